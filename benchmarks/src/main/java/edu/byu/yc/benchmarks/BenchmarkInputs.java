@@ -0,0 +1,122 @@
+package edu.byu.yc.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The sources the benchmarks are run against. The small and medium inputs are built from the
+ * files in test-files, the pathological ones are generated.
+ * <p>
+ * test-files is looked for in the working directory and its parent, or can be given with
+ * -Dtypechecker.testFiles=DIR.
+ */
+final class BenchmarkInputs {
+
+    static final String SMALL = "small";
+    static final String MEDIUM = "medium";
+    static final String DEEP_NESTING = "deepNesting";
+    static final String MANY_INNER_CLASSES = "manyInnerClasses";
+
+    private static final int MEDIUM_COPIES = 50;
+    private static final int NESTING_DEPTH = 100;
+    private static final int INNER_CLASSES = 2000;
+
+    private BenchmarkInputs() {
+    }
+
+    /**
+     * @param name one of the input names
+     * @return the source of that input
+     */
+    static String source(String name) {
+        switch (name) {
+            case SMALL:
+                return read("ValidTypes.java");
+            case MEDIUM:
+                return medium();
+            case DEEP_NESTING:
+                return deepNesting();
+            case MANY_INNER_CLASSES:
+                return manyInnerClasses();
+            default:
+                throw new IllegalArgumentException("Unknown benchmark input " + name);
+        }
+    }
+
+    private static Path testFiles() {
+        String configured = System.getProperty("typechecker.testFiles");
+        if (configured != null) {
+            return Paths.get(configured);
+        }
+        Path here = Paths.get("test-files");
+        return Files.isDirectory(here) ? here : Paths.get("..", "test-files");
+    }
+
+    private static String read(String fileName) {
+        try {
+            return new String(Files.readAllBytes(testFiles().resolve(fileName)), StandardCharsets.UTF_8);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("Unable to read benchmark input " + fileName, ioe);
+        }
+    }
+
+    /**
+     * The members of test-files/Outer.java copied into many inner classes of one file, so the
+     * mix of valid and invalid type usages matches the tests.
+     */
+    private static String medium() {
+        String outer = read("Outer.java");
+        int start = outer.indexOf('{', outer.indexOf("class Outer")) + 1;
+        String body = outer.substring(start, outer.lastIndexOf('}'));
+        String header = outer.substring(0, outer.indexOf("public class Outer"));
+
+        StringBuilder sb = new StringBuilder(header);
+        sb.append("public class Outer {\n");
+        for (int i = 0; i < MEDIUM_COPIES; i++) {
+            sb.append("public class Copy").append(i).append(" {\n").append(body).append("}\n");
+        }
+        sb.append(body).append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Classes nested inside each other, each using its own type, its parent's type and a type
+     * that is not declared anywhere.
+     */
+    private static String deepNesting() {
+        StringBuilder sb = new StringBuilder("package edu.byu.yc.bench;\n\nimport java.lang.String;\n\n");
+        for (int i = 0; i < NESTING_DEPTH; i++) {
+            sb.append("public class Level").append(i).append(" {\n");
+            sb.append("Level").append(i).append(" self;\n");
+            if (i > 0) {
+                sb.append("Level").append(i - 1).append(" parent;\n");
+            }
+            sb.append("String name;\nMissing").append(i).append(" missing;\n");
+        }
+        for (int i = 0; i < NESTING_DEPTH; i++) {
+            sb.append("}\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * One class with many sibling inner classes that refer to each other.
+     */
+    private static String manyInnerClasses() {
+        StringBuilder sb = new StringBuilder("package edu.byu.yc.bench;\n\nimport java.lang.String;\n\n");
+        sb.append("public class Outer {\n");
+        for (int i = 0; i < INNER_CLASSES; i++) {
+            sb.append("public class Inner").append(i).append(" {\n");
+            sb.append("Inner").append((i + 1) % INNER_CLASSES).append(" next;\n");
+            sb.append("Outer.Inner").append(i).append(" self = new Outer.Inner").append(i).append("();\n");
+            sb.append("String NAME;\n");
+            sb.append("}\n");
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+}
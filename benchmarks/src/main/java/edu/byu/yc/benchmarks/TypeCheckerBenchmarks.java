@@ -0,0 +1,81 @@
+package edu.byu.yc.benchmarks;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import edu.byu.yc.ASTClassValidator;
+import edu.byu.yc.NoAllCapsVisitor;
+import edu.byu.yc.TypeChecker;
+import edu.byu.yc.Violation;
+import edu.byu.yc.visitors.QualifiedClassVisitor;
+import edu.byu.yc.visitors.TypeVisitor;
+
+/**
+ * Benchmarks for each stage of checking a file: parsing, collecting declarations with
+ * QualifiedClassVisitor, resolving types with TypeVisitor and finding all caps names with
+ * NoAllCapsVisitor. Each stage after parsing runs against a tree parsed once during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TypeCheckerBenchmarks {
+
+    @Param({BenchmarkInputs.SMALL, BenchmarkInputs.MEDIUM, BenchmarkInputs.DEEP_NESTING,
+            BenchmarkInputs.MANY_INNER_CLASSES})
+    public String input;
+
+    private char[] source;
+    private ASTNode compilationUnit;
+    private List<ASTClassValidator> classValidators;
+
+    @Setup
+    public void setUp() {
+        source = BenchmarkInputs.source(input).toCharArray();
+        compilationUnit = TypeChecker.parse(source);
+        QualifiedClassVisitor qualifiedClassVisitor = new QualifiedClassVisitor();
+        compilationUnit.accept(qualifiedClassVisitor);
+        classValidators = qualifiedClassVisitor.getClassValidators();
+    }
+
+    @Benchmark
+    public ASTNode parse() {
+        return TypeChecker.parse(source);
+    }
+
+    @Benchmark
+    public List<ASTClassValidator> qualifiedClassVisitor() {
+        QualifiedClassVisitor visitor = new QualifiedClassVisitor();
+        compilationUnit.accept(visitor);
+        return visitor.getClassValidators();
+    }
+
+    @Benchmark
+    public List<Violation> typeVisitor() {
+        TypeVisitor visitor = new TypeVisitor(classValidators);
+        compilationUnit.accept(visitor);
+        return visitor.getViolations();
+    }
+
+    @Benchmark
+    public List<Violation> noAllCapsVisitor() {
+        NoAllCapsVisitor visitor = new NoAllCapsVisitor();
+        compilationUnit.accept(visitor);
+        return visitor.getViolations();
+    }
+}
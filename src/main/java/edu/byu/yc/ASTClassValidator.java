@@ -2,8 +2,13 @@ package edu.byu.yc;
 
 import org.eclipse.jdt.core.dom.ASTNode;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import edu.byu.yc.environment.TypeIndex;
+
 /**
  * @author Samuel Nuttall
  *
@@ -13,19 +18,47 @@ import java.util.Set;
 public class ASTClassValidator {
 
     private Set<String> declaredTypes;
+    private TypeIndex typeIndex;
     private ASTNode rootNode;
     private String packageName;
+    private Map<String, String> importedTypes;
+    private List<String> onDemandImports;
+    private Map<ASTNode, TypeIndex.Node> localScopes;
+
+    public ASTClassValidator(Set<String> declaredTypes, TypeIndex typeIndex, ASTNode rootNode, String packageName) {
+        this(declaredTypes, typeIndex, rootNode, packageName, Collections.<String, String>emptyMap(),
+                Collections.<String>emptyList());
+    }
 
-    public ASTClassValidator(Set<String> declaredTypes, ASTNode rootNode, String packageName) {
+    public ASTClassValidator(Set<String> declaredTypes, TypeIndex typeIndex, ASTNode rootNode, String packageName,
+                             Map<String, String> importedTypes, List<String> onDemandImports) {
+        this(declaredTypes, typeIndex, rootNode, packageName, importedTypes, onDemandImports,
+                Collections.<ASTNode, TypeIndex.Node>emptyMap());
+    }
+
+    public ASTClassValidator(Set<String> declaredTypes, TypeIndex typeIndex, ASTNode rootNode, String packageName,
+                             Map<String, String> importedTypes, List<String> onDemandImports,
+                             Map<ASTNode, TypeIndex.Node> localScopes) {
         this.declaredTypes = declaredTypes;
+        this.typeIndex = typeIndex;
         this.rootNode = rootNode;
         this.packageName = packageName;
+        this.importedTypes = importedTypes;
+        this.onDemandImports = onDemandImports;
+        this.localScopes = localScopes;
     }
 
     public Set<String> getDeclaredTypes() {
         return declaredTypes;
     }
 
+    /**
+     * @return the declared types as names relative to the package, for lookups while visiting
+     */
+    public TypeIndex getTypeIndex() {
+        return typeIndex;
+    }
+
     public ASTNode getRootNode() {
         return rootNode;
     }
@@ -33,4 +66,26 @@ public class ASTClassValidator {
     public String getPackageName() {
         return packageName;
     }
+
+    /**
+     * @return the fully qualified name of each single type import of the file, by simple name
+     */
+    public Map<String, String> getImportedTypes() {
+        return importedTypes;
+    }
+
+    /**
+     * @return the packages and types that the file imports all of the member types of with *
+     */
+    public List<String> getOnDemandImports() {
+        return onDemandImports;
+    }
+
+    /**
+     * @return the scope of the local types of each method and initializer that declares any, by
+     * the MethodDeclaration or Initializer node
+     */
+    public Map<ASTNode, TypeIndex.Node> getLocalScopes() {
+        return localScopes;
+    }
 }
@@ -0,0 +1,50 @@
+package edu.byu.yc;
+
+/**
+ * Bounds on how much work a check does: how long the analysis of one file may take, and how many
+ * violations are found before the files that have not been started are skipped. A caller that
+ * only needs to know whether there is any violation, such as a pre-commit hook, stops at the
+ * first one.
+ */
+public class CheckLimits {
+
+    /**
+     * No file timeout and no violation limit
+     */
+    public static final CheckLimits NONE = new CheckLimits(0, 0);
+
+    private final long fileTimeoutMillis;
+    private final int maxViolations;
+
+    /**
+     * @param fileTimeoutMillis how long the analysis of one file may take before it stops with
+     * the violations found so far, 0 for no limit
+     * @param maxViolations how many violations are found before the remaining files are skipped,
+     * 0 for no limit
+     */
+    public CheckLimits(long fileTimeoutMillis, int maxViolations) {
+        this.fileTimeoutMillis = fileTimeoutMillis;
+        this.maxViolations = maxViolations;
+    }
+
+    /**
+     * @return how long the analysis of one file may take, 0 for no limit
+     */
+    public long getFileTimeoutMillis() {
+        return fileTimeoutMillis;
+    }
+
+    /**
+     * @return how many violations are found before the remaining files are skipped, 0 for no limit
+     */
+    public int getMaxViolations() {
+        return maxViolations;
+    }
+
+    /**
+     * @return true if a check stops once it has found getMaxViolations violations
+     */
+    public boolean hasViolationLimit() {
+        return maxViolations > 0;
+    }
+}
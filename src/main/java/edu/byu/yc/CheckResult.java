@@ -0,0 +1,70 @@
+package edu.byu.yc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The merged results of checking a set of Java files. Files are kept in the order they were
+ * added so that the merged lists are deterministic regardless of which worker finished first.
+ * Files that were not checked because the check reached its violation limit are listed as skipped.
+ */
+public class CheckResult {
+
+    private List<FileResult> fileResults = new ArrayList<>();
+    private List<Violation> allCaps = new ArrayList<>();
+    private List<Violation> typeViolations = new ArrayList<>();
+    private List<String> skipped = new ArrayList<>();
+
+    /**
+     * Merge the results of a single file into this result
+     *
+     * @param fileResult the results of checking one file
+     */
+    public void add(FileResult fileResult) {
+        fileResults.add(fileResult);
+        allCaps.addAll(fileResult.getAllCaps());
+        typeViolations.addAll(fileResult.getTypeViolations());
+    }
+
+    /**
+     * Record a file that was not checked
+     *
+     * @param path the file's path
+     */
+    public void skip(String path) {
+        skipped.add(path);
+    }
+
+    public List<FileResult> getFileResults() {
+        return Collections.unmodifiableList(fileResults);
+    }
+
+    public List<Violation> getAllCaps() {
+        return allCaps;
+    }
+
+    public List<Violation> getTypeViolations() {
+        return typeViolations;
+    }
+
+    /**
+     * @return the files that were not checked because the check reached its violation limit
+     */
+    public List<String> getSkipped() {
+        return Collections.unmodifiableList(skipped);
+    }
+
+    /**
+     * @return the checked files whose analysis stopped at the file timeout
+     */
+    public List<String> getTruncated() {
+        List<String> truncated = new ArrayList<>();
+        for (FileResult result : fileResults) {
+            if (result.isTruncated()) {
+                truncated.add(result.getPath());
+            }
+        }
+        return truncated;
+    }
+}
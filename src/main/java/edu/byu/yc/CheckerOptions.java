@@ -0,0 +1,525 @@
+package edu.byu.yc;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.byu.yc.environment.ClasspathIndex;
+import edu.byu.yc.naming.NamingRules;
+import edu.byu.yc.report.ReportFormat;
+
+/**
+ * Command line options for the TypeChecker. Anything that is not an option is treated as a file
+ * or directory to be checked.
+ */
+public class CheckerOptions {
+
+    /**
+     * The port a daemon listens on when no port is given
+     */
+    public static final int DEFAULT_DAEMON_PORT = 7373;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Charset encoding = StandardCharsets.UTF_8;
+    private List<String> includes = new ArrayList<>();
+    private List<String> excludes = new ArrayList<>();
+    private List<String> paths = new ArrayList<>();
+    private Path cacheDirectory;
+    private long cacheMaxBytes = 256L * 1024 * 1024;
+    private boolean daemon;
+    private boolean watch;
+    private boolean stream;
+    private boolean statementsRecovery;
+    private boolean stats;
+    private NamingRules naming = NamingRules.DEFAULT;
+    private boolean jdkTypes;
+    private List<Path> classpath = new ArrayList<>();
+    private List<String> sourcepath = new ArrayList<>();
+    private ReportFormat format = ReportFormat.TEXT;
+    private Path output;
+    private int port;
+    private int idleTimeoutSeconds = 15 * 60;
+    private int workers = 1;
+    private String workerHeap;
+    private int workerTimeoutSeconds = 30 * 60;
+    private Path shard;
+    private Path shardOutput;
+    private int fileTimeoutSeconds;
+    private int maxViolations;
+    private boolean failFast;
+    private Path baseline;
+    private Path writeBaseline;
+
+    /**
+     * Parse the command line arguments given to TypeChecker.main
+     *
+     * @param args command line arguments
+     * @return the parsed options
+     * @throws IllegalArgumentException if an option is unknown or is missing its value
+     */
+    public static CheckerOptions parse(String[] args) {
+        CheckerOptions options = new CheckerOptions();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("-j".equals(arg) || "--threads".equals(arg)) {
+                options.threads = parsePositiveInt(arg, value(args, ++i, arg));
+            } else if ("--encoding".equals(arg)) {
+                options.encoding = parseCharset(arg, value(args, ++i, arg));
+            } else if ("--cache".equals(arg)) {
+                options.cacheDirectory = Paths.get(value(args, ++i, arg));
+            } else if ("--cache-max-mb".equals(arg)) {
+                options.cacheMaxBytes = parsePositiveInt(arg, value(args, ++i, arg)) * 1024L * 1024L;
+            } else if ("--daemon".equals(arg)) {
+                options.daemon = true;
+            } else if ("--jdk-types".equals(arg)) {
+                options.jdkTypes = true;
+            } else if ("-cp".equals(arg) || "--classpath".equals(arg)) {
+                for (String entry : value(args, ++i, arg).split(File.pathSeparator)) {
+                    if (!entry.isEmpty()) {
+                        options.classpath.add(Paths.get(entry));
+                    }
+                }
+            } else if ("--sourcepath".equals(arg)) {
+                for (String entry : value(args, ++i, arg).split(File.pathSeparator)) {
+                    if (!entry.isEmpty()) {
+                        options.sourcepath.add(entry);
+                    }
+                }
+            } else if ("--watch".equals(arg)) {
+                options.watch = true;
+            } else if ("--stream".equals(arg)) {
+                options.stream = true;
+            } else if ("--statements-recovery".equals(arg)) {
+                options.statementsRecovery = true;
+            } else if ("--naming".equals(arg)) {
+                options.naming = parseNaming(arg, value(args, ++i, arg));
+            } else if ("--stats".equals(arg)) {
+                options.stats = true;
+            } else if ("--port".equals(arg)) {
+                options.port = parsePort(arg, value(args, ++i, arg));
+            } else if ("--idle-timeout".equals(arg)) {
+                options.idleTimeoutSeconds = parsePositiveInt(arg, value(args, ++i, arg));
+            } else if ("--format".equals(arg)) {
+                options.format = parseFormat(arg, value(args, ++i, arg));
+            } else if ("-o".equals(arg) || "--output".equals(arg)) {
+                options.output = Paths.get(value(args, ++i, arg));
+            } else if ("--workers".equals(arg)) {
+                options.workers = parsePositiveInt(arg, value(args, ++i, arg));
+            } else if ("--worker-heap".equals(arg)) {
+                options.workerHeap = parseHeap(arg, value(args, ++i, arg));
+            } else if ("--worker-timeout".equals(arg)) {
+                options.workerTimeoutSeconds = parsePositiveInt(arg, value(args, ++i, arg));
+            } else if ("--shard".equals(arg)) {
+                options.shard = Paths.get(value(args, ++i, arg));
+            } else if ("--shard-output".equals(arg)) {
+                options.shardOutput = Paths.get(value(args, ++i, arg));
+            } else if ("--file-timeout".equals(arg)) {
+                options.fileTimeoutSeconds = parsePositiveInt(arg, value(args, ++i, arg));
+            } else if ("--max-violations".equals(arg)) {
+                options.maxViolations = parsePositiveInt(arg, value(args, ++i, arg));
+            } else if ("--fail-fast".equals(arg)) {
+                options.failFast = true;
+            } else if ("--baseline".equals(arg)) {
+                options.baseline = Paths.get(value(args, ++i, arg));
+            } else if ("--write-baseline".equals(arg)) {
+                options.writeBaseline = Paths.get(value(args, ++i, arg));
+            } else if ("--include".equals(arg)) {
+                options.includes.add(value(args, ++i, arg));
+            } else if ("--exclude".equals(arg)) {
+                options.excludes.add(value(args, ++i, arg));
+            } else if (arg.startsWith("-")) {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            } else {
+                options.paths.add(arg);
+            }
+        }
+        if (options.watch && options.format == ReportFormat.SARIF) {
+            throw new IllegalArgumentException("A SARIF report is a single document and cannot be written by --watch");
+        }
+        if (options.workers > 1 && (options.watch || options.daemon || options.stream)) {
+            throw new IllegalArgumentException("--workers cannot be combined with --watch, --daemon or --stream");
+        }
+        if ((options.maxViolations > 0 || options.failFast)
+                && (options.workers > 1 || options.watch || options.daemon || options.stream)) {
+            throw new IllegalArgumentException(
+                    "--max-violations and --fail-fast cannot be combined with --workers, --watch, --daemon or --stream");
+        }
+        if (options.baseline != null && options.daemon) {
+            throw new IllegalArgumentException("--baseline is given to the clients of a daemon, not to --daemon");
+        }
+        if (options.writeBaseline != null && (options.baseline != null || options.maxViolations > 0
+                || options.failFast || options.watch || options.daemon || options.stream)) {
+            throw new IllegalArgumentException("--write-baseline records every violation and cannot be combined with"
+                    + " --baseline, --max-violations, --fail-fast, --watch, --daemon or --stream");
+        }
+        if ((options.shard == null) != (options.shardOutput == null)) {
+            throw new IllegalArgumentException("--shard and --shard-output must be given together");
+        }
+        return options;
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for option " + option);
+        }
+        return args[i];
+    }
+
+    private static int parsePositiveInt(String option, String value) {
+        try {
+            int n = Integer.parseInt(value);
+            if (n > 0) {
+                return n;
+            }
+        } catch (NumberFormatException nfe) {
+            // fall through to the error below
+        }
+        throw new IllegalArgumentException("Expected a positive number for " + option + " but got " + value);
+    }
+
+    private static int parsePort(String option, String value) {
+        int port = parsePositiveInt(option, value);
+        if (port > 65535) {
+            throw new IllegalArgumentException("Expected a port number for " + option + " but got " + value);
+        }
+        return port;
+    }
+
+    private static ReportFormat parseFormat(String option, String value) {
+        try {
+            return ReportFormat.parse(value);
+        } catch (IllegalArgumentException iae) {
+            throw new IllegalArgumentException("Unknown format " + value + " for " + option
+                    + ", expected text, jsonl or sarif", iae);
+        }
+    }
+
+    private static String parseHeap(String option, String value) {
+        if (!value.matches("[0-9]+[kKmMgG]?")) {
+            throw new IllegalArgumentException("Expected a heap size such as 2g for " + option + " but got " + value);
+        }
+        return value;
+    }
+
+    private static NamingRules parseNaming(String option, String value) {
+        try {
+            return NamingRules.parse(value);
+        } catch (IllegalArgumentException iae) {
+            throw new IllegalArgumentException(iae.getMessage() + " in " + option + " " + value
+                    + ", expected java or kind=style pairs such as method=camelCase,constant=CONSTANT_CASE", iae);
+        }
+    }
+
+    private static Charset parseCharset(String option, String value) {
+        try {
+            return Charset.forName(value);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            throw new IllegalArgumentException("Unknown charset " + value + " for " + option, e);
+        }
+    }
+
+    /**
+     * @return the number of worker threads used to check files
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return the charset Java files are decoded with
+     */
+    public Charset getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * @return globs for the files to check inside of directories, all Java files if empty
+     */
+    public List<String> getIncludes() {
+        return includes;
+    }
+
+    /**
+     * @return globs for the files and directories to skip, such as target or generated sources
+     */
+    public List<String> getExcludes() {
+        return excludes;
+    }
+
+    /**
+     * @return the directory results are cached in between runs, or null for no cache
+     */
+    public Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * @return the size the cache is trimmed to at the end of a run
+     */
+    public long getCacheMaxBytes() {
+        return cacheMaxBytes;
+    }
+
+    /**
+     * @return true to stay running and check files for clients instead of checking the paths
+     */
+    public boolean isDaemon() {
+        return daemon;
+    }
+
+    /**
+     * @return true to accept java.lang types and the JDK types of wildcard imports without a
+     * single type import, which the lab rules otherwise require
+     */
+    public boolean isJdkTypes() {
+        return jdkTypes;
+    }
+
+    /**
+     * @return the format violations are reported in
+     */
+    public ReportFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * @return the file the report is written to, or null for standard output
+     */
+    public Path getOutput() {
+        return output;
+    }
+
+    /**
+     * @return the jars and class directories that imports are checked against, empty to trust
+     * every import
+     */
+    public List<Path> getClasspath() {
+        return classpath;
+    }
+
+    /**
+     * @return files and directories of Java files that the checked files are resolved against
+     * without being checked themselves
+     */
+    public String[] getSourcepath() {
+        return sourcepath.toArray(new String[0]);
+    }
+
+    /**
+     * @return where the catalog of JDK types is saved: the cache directory if there is one,
+     * otherwise .typechecker in the user's home directory
+     */
+    public Path getJdkCatalogDirectory() {
+        return cacheDirectory != null ? cacheDirectory : Paths.get(System.getProperty("user.home"), ".typechecker");
+    }
+
+    /**
+     * @return where daemons write the token their clients must send: .typechecker in the user's
+     * home directory, whatever the cache directory, so that a client finds its daemon's token
+     */
+    public Path getDaemonDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".typechecker");
+    }
+
+    /**
+     * @return true to report each file as soon as its results are final, keeping memory flat
+     * however many files are checked, instead of reporting every file in order at the end
+     */
+    public boolean isStream() {
+        return stream;
+    }
+
+    /**
+     * @return true to have the parser recover the statements of method bodies with syntax errors,
+     * so the types used in them are checked too
+     */
+    public boolean isStatementsRecovery() {
+        return statementsRecovery;
+    }
+
+    /**
+     * @return true to print where the run's time went to standard error once the files have
+     * been checked
+     */
+    public boolean isStats() {
+        return stats;
+    }
+
+    /**
+     * @return the naming convention of each kind of declaration
+     */
+    public NamingRules getNaming() {
+        return naming;
+    }
+
+    /**
+     * @return true to keep checking the paths again as their files change
+     */
+    public boolean isWatch() {
+        return watch;
+    }
+
+    /**
+     * @return the localhost port a daemon listens on, or that the paths are sent to for checking;
+     * 0 if no port was given, in which case a daemon uses DEFAULT_DAEMON_PORT and the paths are
+     * checked in this process
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @return how long a daemon waits without a request before it exits
+     */
+    public int getIdleTimeoutSeconds() {
+        return idleTimeoutSeconds;
+    }
+
+    /**
+     * @return how many worker processes check the paths, 1 to check them in this process
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * @return the maximum heap of each worker process, such as 2g, or null for the JVM's default
+     */
+    public String getWorkerHeap() {
+        return workerHeap;
+    }
+
+    /**
+     * @return how long a worker process may run before it is stopped and started again
+     */
+    public int getWorkerTimeoutSeconds() {
+        return workerTimeoutSeconds;
+    }
+
+    /**
+     * @return the list of files this process checks as a worker of a coordinator, or null if it
+     * is not a worker
+     */
+    public Path getShard() {
+        return shard;
+    }
+
+    /**
+     * @return where this process writes its results as a worker of a coordinator
+     */
+    public Path getShardOutput() {
+        return shardOutput;
+    }
+
+    /**
+     * @return true to stop at the first violation and exit with an error if there is one, for
+     * pre-commit hooks and other callers that only need to know whether the files pass
+     */
+    public boolean isFailFast() {
+        return failFast;
+    }
+
+    /**
+     * @return the violations that are not reported, or null to report every violation
+     */
+    public Path getBaseline() {
+        return baseline;
+    }
+
+    /**
+     * @return where to record every violation as the baseline instead of reporting them, or null
+     * to report them
+     */
+    public Path getWriteBaseline() {
+        return writeBaseline;
+    }
+
+    /**
+     * @return how long the analysis of each file may take, and how many violations are found
+     * before the files that have not been started are skipped
+     */
+    public CheckLimits getLimits() {
+        return new CheckLimits(fileTimeoutSeconds * 1000L, failFast ? 1 : maxViolations);
+    }
+
+    /**
+     * @return the options a worker process is started with: every option that changes the results
+     * for a file, and this process's threads shared among the workers
+     */
+    public List<String> getWorkerArguments() {
+        List<String> arguments = new ArrayList<>();
+        arguments.add("--threads");
+        arguments.add(Integer.toString(Math.max(1, threads / workers)));
+        arguments.add("--encoding");
+        arguments.add(encoding.name());
+        if (cacheDirectory != null) {
+            arguments.add("--cache");
+            arguments.add(cacheDirectory.toString());
+            arguments.add("--cache-max-mb");
+            arguments.add(Long.toString(cacheMaxBytes / (1024 * 1024)));
+        }
+        if (jdkTypes) {
+            arguments.add("--jdk-types");
+        }
+        if (!classpath.isEmpty()) {
+            StringBuilder entries = new StringBuilder();
+            for (Path entry : classpath) {
+                if (entries.length() > 0) {
+                    entries.append(File.pathSeparatorChar);
+                }
+                entries.append(entry);
+            }
+            arguments.add("--classpath");
+            arguments.add(entries.toString());
+        }
+        if (statementsRecovery) {
+            arguments.add("--statements-recovery");
+        }
+        if (naming.hasConventions()) {
+            arguments.add("--naming");
+            arguments.add(naming.toString());
+        }
+        if (fileTimeoutSeconds > 0) {
+            arguments.add("--file-timeout");
+            arguments.add(Integer.toString(fileTimeoutSeconds));
+        }
+        if (baseline != null) {
+            arguments.add("--baseline");
+            arguments.add(baseline.toAbsolutePath().toString());
+        }
+        return arguments;
+    }
+
+    /**
+     * @param index the index of the classpath, or null if there is none
+     * @return a description of every option that changes the results for a file, so that results
+     * cached under one configuration are not reused under another
+     */
+    public String getRuleConfiguration(ClasspathIndex index) {
+        StringBuilder configuration = new StringBuilder("encoding=").append(encoding.name())
+                .append("\nstatementsRecovery=").append(statementsRecovery)
+                .append("\nnaming=").append(naming)
+                .append("\njdk=").append(jdkTypes ? System.getProperty("java.home") + " "
+                        + System.getProperty("java.version") : "none");
+        for (Path entry : classpath) {
+            configuration.append("\nclasspath=").append(entry.toAbsolutePath());
+        }
+        if (index != null) {
+            configuration.append("\nclasspathTypes=").append(Long.toHexString(index.getFingerprint()));
+        }
+        return configuration.toString();
+    }
+
+    /**
+     * @return the files and directories to be checked
+     */
+    public String[] getPaths() {
+        return paths.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,341 @@
+package edu.byu.yc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.byu.yc.baseline.Baseline;
+import edu.byu.yc.cache.ResultCache;
+import edu.byu.yc.engine.DeadlineExceededException;
+import edu.byu.yc.engine.TraversalEngine;
+import edu.byu.yc.environment.ClasspathIndex;
+import edu.byu.yc.environment.JdkCatalog;
+import edu.byu.yc.io.Source;
+import edu.byu.yc.io.SourceLoader;
+import edu.byu.yc.metrics.CheckMetrics;
+import edu.byu.yc.metrics.FileMetrics;
+import edu.byu.yc.metrics.Phase;
+import edu.byu.yc.naming.NamingRules;
+import edu.byu.yc.naming.NamingVisitor;
+import edu.byu.yc.visitors.QualifiedClassVisitor;
+import edu.byu.yc.visitors.TypeVisitor;
+
+/**
+ * Checks one Java file at a time. A FileChecker holds no per-file state, so a single instance is
+ * shared by every worker thread.
+ */
+public class FileChecker {
+
+    private static Logger logger = LoggerFactory.getLogger(FileChecker.class);
+
+    private final SourceLoader loader;
+    private final ResultCache cache;
+    private final JdkCatalog catalog;
+    private final ClasspathIndex classpath;
+    private final ParserFactory parser;
+    private final CheckMetrics metrics;
+    private final NamingRules naming;
+    private final CheckLimits limits;
+    private final Baseline baseline;
+
+    private FileChecker(Builder builder) {
+        this.loader = builder.loader;
+        this.cache = builder.cache;
+        this.catalog = builder.catalog;
+        this.classpath = builder.classpath;
+        this.parser = builder.parser;
+        this.metrics = builder.metrics;
+        this.naming = builder.naming;
+        this.limits = builder.limits;
+        this.baseline = builder.baseline;
+    }
+
+    /**
+     * Collects the settings of a FileChecker. Every setting but the loader is optional.
+     *
+     * <pre>
+     * FileChecker checker = new FileChecker.Builder(new SourceLoader())
+     *         .cache(cache)
+     *         .naming(naming)
+     *         .build();
+     * </pre>
+     */
+    public static final class Builder {
+        private final SourceLoader loader;
+        private ResultCache cache;
+        private JdkCatalog catalog;
+        private ClasspathIndex classpath;
+        private ParserFactory parser = new ParserFactory();
+        private CheckMetrics metrics = CheckMetrics.DISABLED;
+        private NamingRules naming = NamingRules.DEFAULT;
+        private CheckLimits limits = CheckLimits.NONE;
+        private Baseline baseline;
+
+        /**
+         * @param loader reads and decodes each file
+         */
+        public Builder(SourceLoader loader) {
+            this.loader = loader;
+        }
+
+        /**
+         * @param cache results of earlier runs, or null to always check the file
+         * @return this builder
+         */
+        public Builder cache(ResultCache cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * @param catalog the JDK types that can be used without a single type import, or null to
+         * require an import of every JDK type
+         * @return this builder
+         */
+        public Builder catalog(JdkCatalog catalog) {
+            this.catalog = catalog;
+            return this;
+        }
+
+        /**
+         * @param classpath the types imports are checked against, or null to trust every import
+         * @return this builder
+         */
+        public Builder classpath(ClasspathIndex classpath) {
+            this.classpath = classpath;
+            return this;
+        }
+
+        /**
+         * @param parser parses each file on the thread that checks it
+         * @return this builder
+         */
+        public Builder parser(ParserFactory parser) {
+            this.parser = parser;
+            return this;
+        }
+
+        /**
+         * @param metrics records the cost of each file
+         * @return this builder
+         */
+        public Builder metrics(CheckMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * @param naming the naming convention of each kind of declaration
+         * @return this builder
+         */
+        public Builder naming(NamingRules naming) {
+            this.naming = naming;
+            return this;
+        }
+
+        /**
+         * @param limits how long the analysis of each file may take
+         * @return this builder
+         */
+        public Builder limits(CheckLimits limits) {
+            this.limits = limits;
+            return this;
+        }
+
+        /**
+         * @param baseline the violations that are not reported, or null to report every violation
+         * @return this builder
+         */
+        public Builder baseline(Baseline baseline) {
+            this.baseline = baseline;
+            return this;
+        }
+
+        /**
+         * @return a checker with these settings, which can be shared by every worker thread
+         */
+        public FileChecker build() {
+            return new FileChecker(this);
+        }
+    }
+
+    /**
+     * @return where the cost of each file is recorded
+     */
+    public CheckMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Load the Java file at path, parse it and find its naming and type violations. If the
+     * cache already has results for the file's contents they are returned without parsing. If
+     * the analysis passes the file timeout, it stops and the result is truncated and not cached.
+     * Violations in the baseline are removed after the cache, so the cache holds every violation.
+     *
+     * @param path The location of the file to be checked.
+     * @return The results for that file.
+     * @throws UncheckedIOException if the file cannot be read.
+     */
+    public FileResult check(String path) {
+        long started = System.nanoTime();
+        FileMetrics fileMetrics = metrics.startFile(path);
+        MessageDigest digest = cache == null ? null : cache.newKeyDigest();
+        Source source;
+        try {
+            source = loader.load(Paths.get(path), digest);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("Unable to read " + path, ioe);
+        }
+
+        String key = null;
+        if (cache != null) {
+            key = cache.key(digest);
+            FileResult cached = cache.get(key, path);
+            if (cached != null) {
+                fileMetrics.lap(Phase.READ_FILE);
+                fileMetrics.finish(cached, 0, 0, true);
+                return withoutBaseline(cached);
+            }
+        }
+        fileMetrics.lap(Phase.READ_FILE);
+
+        FileResult result = check(path, source.getContents(), parser.parse(source.getContents()), fileMetrics,
+                started);
+        if (cache != null && !result.isTruncated()) {
+            cache.put(key, result);
+        }
+        return withoutBaseline(result);
+    }
+
+    /**
+     * Collect the types a Java file declares for the rest of its package without checking it, for
+     * files that other files are resolved against but that are not checked themselves. Only the
+     * file's declarations are parsed. If the cache already has results for the file's contents,
+     * they are returned without parsing.
+     *
+     * @param path The location of the file to be indexed.
+     * @return The file's package and package types, without any violations.
+     * @throws UncheckedIOException if the file cannot be read.
+     */
+    public FileResult index(String path) {
+        return metrics.measure(Phase.INDEX, () -> {
+            MessageDigest digest = cache == null ? null : cache.newKeyDigest();
+            Source source;
+            try {
+                source = loader.load(Paths.get(path), digest);
+            } catch (IOException ioe) {
+                throw new UncheckedIOException("Unable to read " + path, ioe);
+            }
+            FileResult cached = cache == null ? null : cache.get(cache.key(digest), path);
+            String packageName;
+            Set<String> packageTypes;
+            if (cached != null) {
+                packageName = cached.getPackageName();
+                packageTypes = cached.getPackageTypes();
+            } else {
+                QualifiedClassVisitor qualifiedClassVisitor = new QualifiedClassVisitor();
+                new TraversalEngine()
+                        .subscribe(qualifiedClassVisitor, QualifiedClassVisitor.NODE_TYPES)
+                        .run(parser.parseDeclarations(source.getContents()));
+                packageName = qualifiedClassVisitor.getPackageName();
+                packageTypes = qualifiedClassVisitor.getPackageTypes();
+            }
+            return new FileResult(path, packageName, Collections.<Violation>emptyList(),
+                    Collections.<Violation>emptyList(), Collections.<String>emptySet(), packageTypes);
+        });
+    }
+
+    /**
+     * Parse and check source that has not been saved to a file, such as an editor's buffer. The
+     * result is not cached.
+     *
+     * @param path The name to give the source in the results.
+     * @param contents The source, possibly followed by trailing whitespace.
+     * @return The results for the source.
+     */
+    public FileResult check(String path, char[] contents) {
+        long started = System.nanoTime();
+        FileMetrics fileMetrics = metrics.startFile(path);
+        return withoutBaseline(check(path, contents, parser.parse(contents), fileMetrics, started));
+    }
+
+    private FileResult withoutBaseline(FileResult result) {
+        return baseline == null ? result : baseline.filter(result);
+    }
+
+    /**
+     * Find the naming violations, type violations and declared types of a parsed file. The
+     * declarations are collected and the names checked in one walk of the tree, then the
+     * types used in every class are checked in a second. A walk that is still running at the
+     * file timeout stops, and the result holds what was found before it stopped. Each violation
+     * gets the line of contents it is on, so reports never read the file again.
+     *
+     * @param path The location of the file that was parsed.
+     * @param contents The source the file was parsed from.
+     * @param node The file's CompilationUnit.
+     * @param fileMetrics The measurements of the file, which has just been parsed.
+     * @param started The System.nanoTime the check of the file started at.
+     * @return The results for that file.
+     */
+    private FileResult check(String path, char[] contents, ASTNode node, FileMetrics fileMetrics, long started) {
+        fileMetrics.lap(Phase.PARSE);
+        final NamingVisitor namingVisitor = new NamingVisitor(path, naming);
+        final QualifiedClassVisitor qualifiedClassVisitor = new QualifiedClassVisitor();
+        final TypeVisitor typeVisitor = new TypeVisitor(qualifiedClassVisitor.getClassValidators(), path, catalog,
+                classpath);
+        TraversalEngine engine = new TraversalEngine()
+                .subscribe(namingVisitor, NamingVisitor.NODE_TYPES)
+                .subscribe(qualifiedClassVisitor, QualifiedClassVisitor.NODE_TYPES)
+                .barrier()
+                .subscribe(typeVisitor, TypeVisitor.NODE_TYPES);
+        if (limits.getFileTimeoutMillis() > 0) {
+            engine.deadline(started + TimeUnit.MILLISECONDS.toNanos(limits.getFileTimeoutMillis()));
+        }
+        boolean truncated = false;
+        Phase phase = Phase.DECLARATIONS;
+        try {
+            engine.runPhase(0, node);
+            fileMetrics.lap(phase);
+            phase = Phase.TYPES;
+            engine.runPhase(1, node);
+            fileMetrics.lap(phase);
+        } catch (DeadlineExceededException dee) {
+            fileMetrics.lap(phase);
+            truncated = true;
+            logger.warn("Stopped checking {} after its {} ms timeout, in {}; its results are incomplete", path,
+                    limits.getFileTimeoutMillis(), phase.getLabel());
+        }
+
+        Set<String> declaredTypes = new LinkedHashSet<>();
+        for (ASTClassValidator validator : qualifiedClassVisitor.getClassValidators()) {
+            declaredTypes.addAll(validator.getDeclaredTypes());
+        }
+        CharBuffer source = CharBuffer.wrap(contents);
+        FileResult result = new FileResult(path, qualifiedClassVisitor.getPackageName(),
+                withSourceLines(namingVisitor.getViolations(), source),
+                withSourceLines(typeVisitor.getViolations(), source), declaredTypes,
+                qualifiedClassVisitor.getPackageTypes(), truncated);
+        fileMetrics.finish(result, engine.getNodesVisited(), typeVisitor.getTypesChecked(), false);
+        return result;
+    }
+
+    private static List<Violation> withSourceLines(List<Violation> violations, CharSequence source) {
+        List<Violation> lines = new ArrayList<>(violations.size());
+        for (Violation v : violations) {
+            lines.add(v.withSourceLine(v.snippet(source)));
+        }
+        return lines;
+    }
+}
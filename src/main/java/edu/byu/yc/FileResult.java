@@ -0,0 +1,100 @@
+package edu.byu.yc;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The results of checking a single Java file: the all caps identifiers and the invalid type usages
+ * that were found in its CompilationUnit, along with the types it imports and declares. Violations
+ * are kept in the order they appear in the file.
+ */
+public class FileResult {
+
+    private String path;
+    private String packageName;
+    private List<Violation> allCaps;
+    private List<Violation> typeViolations;
+    private Set<String> declaredTypes;
+    private Set<String> packageTypes;
+    private boolean truncated;
+
+    public FileResult(String path, List<Violation> allCaps, List<Violation> typeViolations, Set<String> declaredTypes) {
+        this(path, "", allCaps, typeViolations, declaredTypes, Collections.<String>emptySet());
+    }
+
+    public FileResult(String path, String packageName, List<Violation> allCaps, List<Violation> typeViolations,
+                      Set<String> declaredTypes, Set<String> packageTypes) {
+        this(path, packageName, allCaps, typeViolations, declaredTypes, packageTypes, false);
+    }
+
+    /**
+     * @param truncated true if the analysis of the file stopped at its timeout, so the violations
+     * are only those found before it stopped
+     */
+    public FileResult(String path, String packageName, List<Violation> allCaps, List<Violation> typeViolations,
+                      Set<String> declaredTypes, Set<String> packageTypes, boolean truncated) {
+        this.path = path;
+        this.packageName = packageName;
+        this.allCaps = allCaps;
+        this.typeViolations = typeViolations;
+        this.declaredTypes = declaredTypes;
+        this.packageTypes = packageTypes;
+        this.truncated = truncated;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return the file's package, "" for the default package
+     */
+    public String getPackageName() {
+        return packageName;
+    }
+
+    /**
+     * @return the all caps names and the declarations that break their naming convention
+     */
+    public List<Violation> getAllCaps() {
+        return allCaps;
+    }
+
+    public List<Violation> getTypeViolations() {
+        return typeViolations;
+    }
+
+    /**
+     * @return the imported and declared types that QualifiedClassVisitor found in the file
+     */
+    public Set<String> getDeclaredTypes() {
+        return declaredTypes;
+    }
+
+    /**
+     * @return the top level and member types the file declares, relative to its package, which
+     * other files of the package can use without an import
+     */
+    public Set<String> getPackageTypes() {
+        return packageTypes;
+    }
+
+    /**
+     * @return true if the analysis of the file stopped at its timeout, so its violations are only
+     * those found before it stopped
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * @return the results with only what is needed to resolve and report the file: its package
+     * and its violations. The types it declares are dropped, as a ProjectIndex holds them once
+     * the file has been added to it.
+     */
+    public FileResult summary() {
+        return new FileResult(path, packageName, allCaps, typeViolations, Collections.<String>emptySet(),
+                Collections.<String>emptySet(), truncated);
+    }
+}
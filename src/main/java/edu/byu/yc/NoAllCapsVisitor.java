@@ -1,35 +1,24 @@
 package edu.byu.yc;
 
-import java.util.HashSet;
-import java.util.Set;
-
-import org.eclipse.jdt.core.dom.ASTVisitor;
-import org.eclipse.jdt.core.dom.SimpleName;
+import edu.byu.yc.naming.NamingRules;
+import edu.byu.yc.naming.NamingVisitor;
 
 /**
- * 
+ * A NamingVisitor with only the rule that no name is all caps.
+ *
  * @author
  *
  */
-public class NoAllCapsVisitor extends ASTVisitor {
+public class NoAllCapsVisitor extends NamingVisitor {
 
     public NoAllCapsVisitor() {
-        allCaps = new HashSet<>();
-    }
-
-    private Set<String> allCaps;
-
-    @Override
-    public boolean visit(SimpleName sn) {
-        String name = sn.toString();
-        if (name == name.toUpperCase()) {
-            allCaps.add(name);
-        }
-        return true;
+        this(null);
     }
 
-    public Set<String> getAllCaps() {
-        return allCaps;
+    /**
+     * @param file the file the visited tree was parsed from, recorded in each violation
+     */
+    public NoAllCapsVisitor(String file) {
+        super(file, NamingRules.DEFAULT);
     }
-
-}
\ No newline at end of file
+}
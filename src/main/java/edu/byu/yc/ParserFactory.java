@@ -0,0 +1,101 @@
+package edu.byu.yc;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTParser;
+
+/**
+ * Parses Java files with one ASTParser per thread, configured the same way for every file.
+ * <p>
+ * The compiler options are computed once for the whole process. JDT resets a parser to its
+ * defaults at the end of every createAST, so each parse sets the kind, source, compiler options
+ * and recovery knobs again before parsing; the parser itself, and the lookups it does when it is
+ * created, are reused by every file its thread parses. A parser holds no reference to the source
+ * or the tree once createAST returns.
+ */
+public class ParserFactory {
+
+    private static final Map<String, String> compilerOptions = compilerOptions();
+
+    private final boolean statementsRecovery;
+    private final boolean resolveBindings;
+    private final ThreadLocal<ASTParser> parsers = ThreadLocal.withInitial(() -> ASTParser.newParser(AST.JLS3));
+
+    /**
+     * A factory that neither recovers statements nor resolves bindings, which the checks need
+     * neither of
+     */
+    public ParserFactory() {
+        this(false, false);
+    }
+
+    /**
+     * @param statementsRecovery true to recover the statements of a method body that has syntax
+     * errors, which finds the types used in them at the cost of a slower parse of broken files
+     * @param resolveBindings true to resolve bindings, which costs a lookup environment per file;
+     * without a Java project to resolve against, most bindings of a single file are missing
+     */
+    public ParserFactory(boolean statementsRecovery, boolean resolveBindings) {
+        this.statementsRecovery = statementsRecovery;
+        this.resolveBindings = resolveBindings;
+    }
+
+    /**
+     * Parse a single Java file without copying it.
+     *
+     * @param source The contents of a Java file, possibly followed by trailing whitespace.
+     * @return An ASTNode representing the entire file.
+     */
+    public ASTNode parse(final char[] source) {
+        return configure(source).createAST(null);
+    }
+
+    /**
+     * Parse only the declarations of a single Java file: its package, imports, types, fields and
+     * method signatures. The bodies of methods and initializers are skipped, leaving them empty in
+     * the tree, which makes the parse several times faster. The types the file declares for the
+     * rest of its package are all still in the tree; only local and anonymous types are not.
+     *
+     * @param source The contents of a Java file, possibly followed by trailing whitespace.
+     * @return An ASTNode representing the file's declarations.
+     */
+    public ASTNode parseDeclarations(final char[] source) {
+        ASTParser p = configure(source);
+        // a focal position outside the file means no body is parsed
+        p.setFocalPosition(-1);
+        return p.createAST(null);
+    }
+
+    private ASTParser configure(char[] source) {
+        ASTParser p = parsers.get();
+        p.setKind(ASTParser.K_COMPILATION_UNIT);
+        p.setSource(source);
+        p.setCompilerOptions(compilerOptions);
+        p.setStatementsRecovery(statementsRecovery);
+        p.setResolveBindings(resolveBindings);
+        return p;
+    }
+
+    public boolean isStatementsRecovery() {
+        return statementsRecovery;
+    }
+
+    public boolean isResolveBindings() {
+        return resolveBindings;
+    }
+
+    /**
+     * JavaCore.getOptions copies every option JDT knows about, so it is done once and the map is
+     * shared by every parser. Parsers only read it.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> compilerOptions() {
+        Map<String, String> options = JavaCore.getOptions();
+        JavaCore.setComplianceOptions(JavaCore.VERSION_1_7, options);
+        return Collections.unmodifiableMap(options);
+    }
+}
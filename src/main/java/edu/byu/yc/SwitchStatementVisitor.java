@@ -1,5 +1,6 @@
 package edu.byu.yc;
 
+import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTVisitor;
 import org.eclipse.jdt.core.dom.Statement;
 import org.eclipse.jdt.core.dom.StructuralPropertyDescriptor;
@@ -20,6 +21,11 @@ import java.util.Set;
  */
 public class SwitchStatementVisitor extends ASTVisitor {
 
+    /**
+     * The node types this visitor handles, for subscribing it to a TraversalEngine
+     */
+    public static final int[] NODE_TYPES = {ASTNode.SWITCH_STATEMENT};
+
     private static Logger logger = LoggerFactory.getLogger(SwitchStatementVisitor.class);
     private Set<String> violations = new HashSet<>();
 
@@ -1,24 +1,54 @@
 package edu.byu.yc;
 
-import java.io.File;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
-import org.eclipse.jdt.core.JavaCore;
-import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTNode;
-import org.eclipse.jdt.core.dom.ASTParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.byu.yc.baseline.Baseline;
+import edu.byu.yc.cache.ResultCache;
+import edu.byu.yc.daemon.CheckDaemon;
+import edu.byu.yc.daemon.DaemonClient;
+import edu.byu.yc.engine.TraversalEngine;
+import edu.byu.yc.environment.ClasspathIndex;
+import edu.byu.yc.environment.JdkCatalog;
+import edu.byu.yc.environment.ProjectIndex;
+import edu.byu.yc.io.SourceFinder;
+import edu.byu.yc.io.SourceLoader;
+import edu.byu.yc.metrics.CheckMetrics;
+import edu.byu.yc.metrics.Phase;
+import edu.byu.yc.report.ReportSink;
+import edu.byu.yc.shard.ShardCoordinator;
+import edu.byu.yc.shard.ShardWorker;
 import edu.byu.yc.visitors.QualifiedClassVisitor;
 import edu.byu.yc.visitors.TypeVisitor;
+import edu.byu.yc.watch.WatchSession;
 
 /**
  * 
@@ -30,51 +60,444 @@ public class TypeChecker {
     private static Logger logger = LoggerFactory.getLogger(TypeChecker.class);
 
     /**
-     * Expand directory names to their contained Java files.
-     * 
-     * @param paths An array of file or directory names to be expanded.
-     * @return A sequence of paths to Java files, either from paths or contained in
-     *         a directory specified by paths.
+     * Identifies the analysis rules in cached results. Change it whenever a change to the
+     * visitors would give different results for the same file.
      */
-    private static ArrayList<String> expand(final String[] paths) {
-        ArrayList<String> result = new ArrayList<>(Math.max(10, paths.length));
-        for (final String path : paths) {
-            final File f = new File(path);
-            if (f.isDirectory()) {
-                final File[] children = f.listFiles();
-                String[] childPaths = new String[children.length];
-                for (int i = 0; i < children.length; ++i) {
-                    childPaths[i] = children[i].getPath();
+    public static final String ANALYZER_VERSION = "7";
+
+    private static final int REPORT_BUFFER_CHARS = 64 * 1024;
+
+    /**
+     * How many files per thread checkStreaming keeps queued, so a worker never waits for the
+     * finder to reach its next file
+     */
+    private static final int IN_FLIGHT_PER_THREAD = 4;
+
+    private static final ParserFactory defaultParser = new ParserFactory();
+    private static final SourceLoader defaultLoader = new SourceLoader();
+    private static final FileChecker defaultChecker = new FileChecker.Builder(defaultLoader).build();
+
+    /**
+     * Find the Java files under roots and check them. Each file is submitted to the pool as soon
+     * as the finder reaches it, so parsing overlaps with walking the rest of the directory tree.
+     * Once every file has been checked, the files are resolved against the types the others
+     * declare, so a class can use the classes of its package that are declared in other files.
+     *
+     * @param roots Files and directories that contain the Java files to check.
+     * @param finder Decides which files under roots are checked.
+     * @param checker Checks each file.
+     * @param pool The pool that parses and analyzes the files.
+     * @return The merged results, in the order the files were found.
+     */
+    public static CheckResult checkAll(final String[] roots, final SourceFinder finder,
+                                       final FileChecker checker, final ExecutorService pool) {
+        return checkAll(roots, new String[0], finder, checker, pool);
+    }
+
+    /**
+     * Find the Java files under roots and check them, resolving them against the types declared
+     * by the Java files under sourcepath as well as by each other. The files under sourcepath
+     * that are not also under roots are not checked, so only their declarations are parsed.
+     *
+     * @param roots Files and directories that contain the Java files to check.
+     * @param sourcepath Files and directories that contain Java files to resolve against.
+     * @param finder Decides which files under roots and sourcepath are used.
+     * @param checker Checks each file.
+     * @param pool The pool that parses and analyzes the files.
+     * @return The merged results of the files under roots, in the order they were found.
+     */
+    public static CheckResult checkAll(final String[] roots, final String[] sourcepath, final SourceFinder finder,
+                                       final FileChecker checker, final ExecutorService pool) {
+        final ProjectIndex index = new ProjectIndex();
+        final List<String> paths = new ArrayList<>();
+        final Set<Path> checked = new HashSet<>();
+        final List<Future<FileResult>> futures = new ArrayList<>();
+        final List<Future<?>> indexed = new ArrayList<>();
+        checker.getMetrics().time(Phase.EXPAND, () -> {
+            finder.find(roots, found -> {
+                final String path = found.toString();
+                paths.add(path);
+                checked.add(found.toAbsolutePath().normalize());
+                futures.add(pool.submit(() -> index.add(checker.check(path))));
+            });
+            findUnchecked(sourcepath, checked, finder,
+                    path -> indexed.add(pool.submit(() -> indexFile(checker, index, path))));
+        });
+        awaitIndexed(indexed);
+        return collect(paths, resolveAll(futures, index, pool));
+    }
+
+    /**
+     * Find the Java files under roots and check them as checkAll does, stopping once limits'
+     * violation limit has been reached. Each file is submitted as soon as the finder reaches it
+     * and resolved as soon as it has been checked, so the first violation is reported without
+     * parsing the rest of the project. A type violation is first resolved against the files
+     * checked so far; only a name they do not declare falls back to an index of the declarations
+     * of every file under roots and sourcepath, which is built the first time one is needed. Each
+     * file's violations are therefore final when they are counted.
+     * <p>
+     * Once the limit is reached, the files that have not been started are cancelled and the
+     * files found after it are not submitted; both are listed as skipped. The limit is
+     * approximate: the files that are being checked when it is reached are finished, so the
+     * results can hold up to one file's violations per thread more than the limit.
+     *
+     * @param roots Files and directories that contain the Java files to check.
+     * @param sourcepath Files and directories that contain Java files to resolve against.
+     * @param finder Decides which files under roots and sourcepath are used.
+     * @param checker Checks each file.
+     * @param pool The pool that parses and analyzes the files.
+     * @param limits How many violations are found before the remaining files are skipped.
+     * @return The merged results of the files under roots that were checked, in the order they
+     * were found, and the files that were skipped.
+     */
+    public static CheckResult checkAll(final String[] roots, final String[] sourcepath, final SourceFinder finder,
+                                       final FileChecker checker, final ExecutorService pool,
+                                       final CheckLimits limits) {
+        if (!limits.hasViolationLimit()) {
+            return checkAll(roots, sourcepath, finder, checker, pool);
+        }
+        final ProjectIndex checkedIndex = new ProjectIndex();
+        final DeclarationsIndex declarations = new DeclarationsIndex(checker);
+        final AtomicInteger remaining = new AtomicInteger(limits.getMaxViolations());
+        final List<String> paths = new ArrayList<>();
+        final Set<Path> checked = new HashSet<>();
+        final List<Future<FileResult>> futures = new ArrayList<>();
+        final Set<Integer> started = ConcurrentHashMap.newKeySet();
+        final Future<FileResult> skipped = CompletableFuture.completedFuture(null);
+        try {
+            checker.getMetrics().time(Phase.EXPAND, () -> {
+                finder.find(roots, found -> {
+                    final String path = found.toString();
+                    paths.add(path);
+                    checked.add(found.toAbsolutePath().normalize());
+                    declarations.add(path);
+                    final int file = paths.size() - 1;
+                    synchronized (futures) {
+                        futures.add(remaining.get() <= 0 ? skipped : pool.submit(() -> {
+                            started.add(file);
+                            if (remaining.get() <= 0) {
+                                return null;
+                            }
+                            FileResult result = checkLimited(checker, checkedIndex, declarations, path);
+                            int violations = result.getAllCaps().size() + result.getTypeViolations().size();
+                            if (violations > 0 && remaining.addAndGet(-violations) <= 0) {
+                                cancelUnstarted(futures, started);
+                            }
+                            return result;
+                        }));
+                    }
+                });
+                findUnchecked(sourcepath, checked, finder, declarations::add);
+            });
+        } finally {
+            declarations.discovered();
+        }
+        return collect(paths, futures);
+    }
+
+    /**
+     * Check a file, add it to checkedIndex and resolve its type violations, first against the
+     * files checked so far and then, if any are left, against the declarations of every file.
+     */
+    private static FileResult checkLimited(final FileChecker checker, final ProjectIndex checkedIndex,
+                                           final DeclarationsIndex declarations, final String path) {
+        FileResult result = checkedIndex.resolve(checkedIndex.add(checker.check(path)));
+        return result.getTypeViolations().isEmpty() ? result : declarations.get().resolve(result);
+    }
+
+    /**
+     * Cancel every file that has not been started. Cancelling a running FutureTask would discard
+     * its result, so the files that are being checked are left to finish; one that starts while
+     * the others are cancelled sees that the limit was reached and is skipped.
+     */
+    private static void cancelUnstarted(final List<Future<FileResult>> futures, final Set<Integer> started) {
+        synchronized (futures) {
+            for (int i = 0; i < futures.size(); i++) {
+                if (!started.contains(i)) {
+                    futures.get(i).cancel(false);
                 }
-                result.addAll(expand(childPaths));
-            } else {
-                if (path.endsWith(".java")) {
-                    result.add(f.getPath());
+            }
+        }
+    }
+
+    /**
+     * The declarations of every file under the roots and source path, indexed the first time a
+     * checked file has a type violation that the files checked so far cannot resolve. Most
+     * checks that stop early never need it, so they never parse the rest of the project.
+     */
+    private static final class DeclarationsIndex {
+        private final FileChecker checker;
+        private final List<String> paths = new ArrayList<>();
+        private final CompletableFuture<Void> discovered = new CompletableFuture<>();
+        private ProjectIndex index;
+
+        private DeclarationsIndex(final FileChecker checker) {
+            this.checker = checker;
+        }
+
+        /**
+         * Add a file to index once one is needed. Called by the thread that finds the files.
+         */
+        private void add(final String path) {
+            synchronized (paths) {
+                paths.add(path);
+            }
+        }
+
+        /**
+         * Called once every file has been found, so that the index can be built.
+         */
+        private void discovered() {
+            discovered.complete(null);
+        }
+
+        /**
+         * @return the index, which is built on the calling thread the first time, once every
+         * file has been found, while other callers wait for it
+         */
+        private synchronized ProjectIndex get() {
+            if (index == null) {
+                discovered.join();
+                final ProjectIndex built = new ProjectIndex();
+                List<String> all;
+                synchronized (paths) {
+                    all = new ArrayList<>(paths);
                 }
+                all.parallelStream().forEach(path -> indexFile(checker, built, path));
+                index = built;
+            }
+            return index;
+        }
+    }
+
+    private static void awaitIndexed(final List<Future<?>> indexed) {
+        for (Future<?> future : indexed) {
+            try {
+                future.get();
+            } catch (ExecutionException ee) {
+                // indexFile logs its own failures
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while indexing the source path", ie);
             }
         }
-        return result;
     }
 
     /**
-     * Parse all of the Java files in paths and return the concatenation of their
-     * contents.
-     * 
-     * @param paths A sequence of paths to Java files.
-     * @return A single AST representing all file contents.
+     * Find the Java files under sourcepath that are not among the files being checked.
      */
-    private static ASTNode parseAll(final ArrayList<String> paths) {
+    private static void findUnchecked(final String[] sourcepath, final Set<Path> checked, final SourceFinder finder,
+                                      final Consumer<String> consumer) {
+        finder.find(sourcepath, found -> {
+            if (!checked.contains(found.toAbsolutePath().normalize())) {
+                consumer.accept(found.toString());
+            }
+        });
+    }
 
-        StringBuilder ssb = new StringBuilder();
+    /**
+     * Add the types a file declares to index without checking it. A file that cannot be indexed
+     * is left out of the index with a warning, since it is not one of the files being checked.
+     */
+    private static void indexFile(final FileChecker checker, final ProjectIndex index, final String path) {
+        try {
+            index.add(checker.index(path));
+        } catch (RuntimeException e) {
+            logger.warn("Unable to index {}: {}", path, e.toString());
+        }
+    }
+
+    /**
+     * Find the Java files under roots and check them with memory that does not grow with the
+     * number of files. At most maxInFlight files are queued or being checked at once, and each
+     * CompilationUnit can be collected as soon as its file has been checked. A file without type
+     * violations is final once it is checked and goes to sink right away; the others are kept as
+     * summaries until every file has been added to the index, then resolved and sent to sink.
+     * Files reach sink in the order they finish, not the order they were found.
+     *
+     * @param roots Files and directories that contain the Java files to check.
+     * @param finder Decides which files under roots are checked.
+     * @param checker Checks each file.
+     * @param pool The pool that parses and analyzes the files.
+     * @param maxInFlight The most files that are queued or being checked at once.
+     * @param sink Receives each file's results, from any of the pool's threads.
+     * @return The number of files that were checked.
+     */
+    public static int checkStreaming(final String[] roots, final SourceFinder finder, final FileChecker checker,
+                                     final ExecutorService pool, final int maxInFlight,
+                                     final Consumer<FileResult> sink) {
+        return checkStreaming(roots, new String[0], finder, checker, pool, maxInFlight, sink);
+    }
+
+    /**
+     * Check the Java files under roots as checkStreaming does, resolving them against the types
+     * declared by the Java files under sourcepath as well as by each other. Only the declarations
+     * of the files under sourcepath that are not also under roots are parsed, and they are not
+     * sent to sink.
+     *
+     * @param roots Files and directories that contain the Java files to check.
+     * @param sourcepath Files and directories that contain Java files to resolve against.
+     * @param finder Decides which files under roots and sourcepath are used.
+     * @param checker Checks each file.
+     * @param pool The pool that parses and analyzes the files.
+     * @param maxInFlight The most files that are queued, being checked or being indexed at once.
+     * @param sink Receives each checked file's results, from any of the pool's threads.
+     * @return The number of files that were checked.
+     */
+    public static int checkStreaming(final String[] roots, final String[] sourcepath, final SourceFinder finder,
+                                     final FileChecker checker, final ExecutorService pool, final int maxInFlight,
+                                     final Consumer<FileResult> sink) {
+        final ProjectIndex index = new ProjectIndex();
+        final Queue<FileResult> unresolved = new ConcurrentLinkedQueue<>();
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        final AtomicInteger checked = new AtomicInteger();
+        final Set<Path> paths = new HashSet<>();
+        final LongAdder waited = new LongAdder();
+        checker.getMetrics().time(Phase.EXPAND, () -> {
+            finder.find(roots, found -> {
+                final String path = found.toString();
+                paths.add(found.toAbsolutePath().normalize());
+                acquire(inFlight, waited);
+                pool.execute(() -> {
+                    try {
+                        FileResult result = index.add(checker.check(path));
+                        checked.incrementAndGet();
+                        if (result.getTypeViolations().isEmpty()) {
+                            sink.accept(result);
+                        } else {
+                            unresolved.add(result.summary());
+                        }
+                    } catch (RuntimeException e) {
+                        logger.error("Unable to check {}", path, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            });
+            findUnchecked(sourcepath, paths, finder, path -> {
+                acquire(inFlight, waited);
+                pool.execute(() -> {
+                    try {
+                        indexFile(checker, index, path);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            });
+        });
+        // expand only counts finding the files, not waiting for the workers to take them
+        checker.getMetrics().excludeWait(Phase.EXPAND, waited.sum());
+        // every permit is back once the last file has been checked
+        inFlight.acquireUninterruptibly(maxInFlight);
+        inFlight.release(maxInFlight);
+
+        for (FileResult result = unresolved.poll(); result != null; result = unresolved.poll()) {
+            sink.accept(index.resolve(result));
+        }
+        return checked.get();
+    }
+
+    /**
+     * Take a permit from inFlight, adding the time spent waiting for one to waited.
+     */
+    private static void acquire(Semaphore inFlight, LongAdder waited) {
+        long start = System.nanoTime();
+        inFlight.acquireUninterruptibly();
+        waited.add(System.nanoTime() - start);
+    }
+
+    /**
+     * Check every Java file in paths. Each file is parsed into its own CompilationUnit and
+     * analyzed on the given pool, then resolved against the types the other files declare.
+     *
+     * @param paths A sequence of paths to Java files.
+     * @param pool The pool that parses and analyzes the files.
+     * @return The merged results, in the same order as paths.
+     */
+    public static CheckResult checkAll(final List<String> paths, final ExecutorService pool) {
+        final ProjectIndex index = new ProjectIndex();
+        List<Future<FileResult>> futures = new ArrayList<>(paths.size());
         for (final String path : paths) {
-            ssb.append(readFile(path));
+            futures.add(pool.submit(() -> index.add(checkFile(path))));
         }
-        final String sourceString = ssb.toString();
-        if (sourceString.isEmpty()) {
-            logger.error("No java source found");
-            System.exit(-1);
+        return collect(paths, resolveAll(futures, index, pool));
+    }
+
+    /**
+     * The second phase of checking a project. Wait until every file has been checked and added
+     * to index, then resolve each file against index on the pool.
+     *
+     * @param checked The first phase, each of which adds its result to index.
+     * @param index The types declared by the project.
+     * @param pool The pool that resolves the files.
+     * @return The resolved results, in the same order as checked. A file whose check failed keeps
+     * its failed future.
+     */
+    public static List<Future<FileResult>> resolveAll(final List<Future<FileResult>> checked,
+                                                      final ProjectIndex index, final ExecutorService pool) {
+        for (Future<FileResult> future : checked) {
+            try {
+                future.get();
+            } catch (ExecutionException ee) {
+                // reported when the results are collected
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while checking files", ie);
+            }
+        }
+
+        List<Future<FileResult>> resolved = new ArrayList<>(checked.size());
+        for (Future<FileResult> future : checked) {
+            try {
+                final FileResult result = future.get();
+                resolved.add(result.getTypeViolations().isEmpty()
+                        ? future
+                        : pool.submit(() -> index.resolve(result)));
+            } catch (ExecutionException ee) {
+                resolved.add(future);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while checking files", ie);
+            }
         }
-        return parse(sourceString);
+        return resolved;
+    }
+
+    /**
+     * Wait for each file to be checked and merge the results in order. A file that cannot be
+     * checked is logged and left out of the results, and a file whose future holds null or was
+     * cancelled was skipped.
+     */
+    private static CheckResult collect(final List<String> paths, final List<Future<FileResult>> futures) {
+        CheckResult result = new CheckResult();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                FileResult fileResult = futures.get(i).get();
+                if (fileResult == null) {
+                    result.skip(paths.get(i));
+                } else {
+                    result.add(fileResult);
+                }
+            } catch (CancellationException ce) {
+                result.skip(paths.get(i));
+            } catch (ExecutionException ee) {
+                logger.error("Unable to check {}", paths.get(i), ee.getCause());
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while checking " + paths.get(i), ie);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Parse the Java file at path and find its all caps names and type violations.
+     *
+     * @param path The location of the file to be checked.
+     * @return The results for that file.
+     */
+    public static FileResult checkFile(final String path) {
+        return defaultChecker.check(path);
     }
 
     /**
@@ -85,9 +508,9 @@ public class TypeChecker {
      */
     static String readFile(final String path) {
         try {
-            return String.join("\n", Files.readAllLines(Paths.get(path)));
+            return defaultLoader.load(Paths.get(path)).toString();
         } catch (IOException ioe) {
-            logger.debug(ioe.getMessage());
+            logger.error("Unable to read {}: {}", path, ioe.toString());
         }
         return "";
     }
@@ -99,58 +522,361 @@ public class TypeChecker {
      * @return An ASTNode representing the entire program.
      */
     static ASTNode parse(final String sourceString) {
-        ASTParser p = ASTParser.newParser(AST.JLS3);
-        p.setKind(ASTParser.K_COMPILATION_UNIT);
-        p.setSource(sourceString.toCharArray());
-        Map<?, ?> options = JavaCore.getOptions();
-        JavaCore.setComplianceOptions(JavaCore.VERSION_1_7, options);
-        p.setCompilerOptions(options);
-        return p.createAST(null);
+        return parse(sourceString.toCharArray());
     }
 
+    /**
+     * Parse the given source without copying it.
+     *
+     * @param source The contents of a Java file, possibly followed by trailing whitespace.
+     * @return An ASTNode representing the entire file.
+     */
+    public static ASTNode parse(final char[] source) {
+        return defaultParser.parse(source);
+    }
 
-    public static Set<String> getTypeViolations(ASTNode node) {
+    /**
+     * Find every use of a type that is neither imported nor declared in node.
+     *
+     * @param node An AST to be analyzed.
+     * @return The invalid type usages, in the order they appear in the AST.
+     */
+    public static List<Violation> getTypeViolations(ASTNode node) {
         final QualifiedClassVisitor qualifiedClassVisitor = new QualifiedClassVisitor();
-        node.accept(qualifiedClassVisitor);
-
-        List<ASTClassValidator> classValidators = qualifiedClassVisitor.getClassValidators();
-
-        //Resolve declarations in each class
-        Set<String> violations = new HashSet<>();
-        for (ASTClassValidator validator : classValidators) {
-            TypeVisitor tv = new TypeVisitor(validator);
-            ASTNode classNode = validator.getRootNode();
-            classNode.accept(tv);
-            violations.addAll(tv.getViolations());
-        }
-        return violations;
+        final TypeVisitor typeVisitor = new TypeVisitor(qualifiedClassVisitor.getClassValidators());
+        new TraversalEngine()
+                .subscribe(qualifiedClassVisitor, QualifiedClassVisitor.NODE_TYPES)
+                .barrier()
+                .subscribe(typeVisitor, TypeVisitor.NODE_TYPES)
+                .run(node);
+        return typeVisitor.getViolations();
     }
 
     /**
-     * Get the names of every identifier whose letters are all capitalized in node.
+     * Get the first use of every identifier whose letters are all capitalized in node.
      * 
      * @param node An AST to be analyzed.
-     * @return The set of all identifiers in all caps contained in the AST.
+     * @return A violation for each identifier in all caps contained in the AST.
      */
-    public static Set<String> getAllCaps(ASTNode node) {
+    public static List<Violation> getAllCaps(ASTNode node) {
         final NoAllCapsVisitor v = new NoAllCapsVisitor();
         node.accept(v);
-        return v.getAllCaps();
+        return v.getViolations();
     }
 
     public static void main(String[] args) {
-        ASTNode node = parseAll(expand(args));
+        CheckerOptions options;
+        try {
+            options = CheckerOptions.parse(args);
+        } catch (IllegalArgumentException iae) {
+            logger.error(iae.getMessage());
+            System.exit(-1);
+            return;
+        }
+
+        ClasspathIndex classpath = null;
+        if (!options.getClasspath().isEmpty()) {
+            classpath = ClasspathIndex.load(options.getClasspath(), options.getJdkCatalogDirectory());
+        }
+        ResultCache cache = null;
+        if (options.getCacheDirectory() != null) {
+            try {
+                cache = new ResultCache(options.getCacheDirectory(), options.getCacheMaxBytes(),
+                        ANALYZER_VERSION + "\n" + options.getRuleConfiguration(classpath));
+            } catch (IOException ioe) {
+                logger.warn("Not using cache {}: {}", options.getCacheDirectory(), ioe.toString());
+            }
+        }
+
+        if (options.getShard() != null) {
+            runShard(options, cache, classpath);
+            return;
+        }
+        if (options.isDaemon()) {
+            serve(options, cache, classpath);
+            return;
+        }
+        if (options.isWatch()) {
+            watch(options, cache, classpath);
+            return;
+        }
+
+        CheckResult result = null;
+        if (options.getPort() != 0) {
+            try {
+                result = new DaemonClient(options.getPort(), options.getDaemonDirectory()).check(options.getPaths());
+            } catch (IOException ioe) {
+                logger.warn("Checking in this process after the daemon failed: {}", ioe.toString());
+            }
+            if (result == null) {
+                logger.debug("No daemon on port {}, checking in this process", options.getPort());
+            } else if (options.getBaseline() != null) {
+                Baseline baseline = loadBaseline(options);
+                CheckResult unrecorded = new CheckResult();
+                for (FileResult fileResult : result.getFileResults()) {
+                    unrecorded.add(baseline.filter(fileResult));
+                }
+                result = unrecorded;
+            }
+        }
+        if (result == null && options.getWorkers() > 1) {
+            result = checkSharded(options, cache, classpath);
+        }
+        if (result == null && options.isStream()) {
+            streamInProcess(options, cache, classpath);
+            return;
+        }
+        if (result == null) {
+            result = checkInProcess(options, cache, classpath);
+        }
+
+        if (result.getFileResults().isEmpty()) {
+            logger.error("No java source found");
+            System.exit(-1);
+        }
+        if (options.getWriteBaseline() != null) {
+            try {
+                int recorded = Baseline.write(options.getWriteBaseline(), result);
+                logger.info("Recorded {} violations in {}", recorded, options.getWriteBaseline());
+            } catch (IOException ioe) {
+                logger.error("Unable to write the baseline {}: {}", options.getWriteBaseline(), ioe.toString());
+                System.exit(-1);
+            }
+            return;
+        }
+
+        try (ReportSink sink = newReportSink(options)) {
+            for (FileResult fileResult : result.getFileResults()) {
+                sink.accept(fileResult);
+            }
+        } catch (IOException ioe) {
+            logger.error("Unable to write the report: {}", ioe.toString());
+            System.exit(-1);
+        }
+        if (!result.getSkipped().isEmpty()) {
+            logger.warn("Skipped {} files after reaching the violation limit: {}", result.getSkipped().size(),
+                    result.getSkipped());
+        }
+        if (!result.getTruncated().isEmpty()) {
+            logger.warn("Results are incomplete for {} files that reached the file timeout: {}",
+                    result.getTruncated().size(), result.getTruncated());
+        }
+        if (options.isFailFast() && !(result.getAllCaps().isEmpty() && result.getTypeViolations().isEmpty())) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Open the report the options ask for, on standard output unless an output file is given.
+     */
+    private static ReportSink newReportSink(CheckerOptions options) throws IOException {
+        Writer out;
+        if (options.getOutput() == null) {
+            out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), REPORT_BUFFER_CHARS);
+        } else {
+            out = Files.newBufferedWriter(options.getOutput(), StandardCharsets.UTF_8);
+        }
+        return new ReportSink(options.getFormat().newWriter(out), ReportSink.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create the checker the options ask for, with metrics that are registered with JMX so a
+     * running check can be watched.
+     *
+     * @param classpath the index of the options' classpath, or null if it is empty
+     */
+    private static FileChecker newChecker(CheckerOptions options, ResultCache cache, ClasspathIndex classpath) {
+        JdkCatalog catalog = null;
+        if (options.isJdkTypes()) {
+            try {
+                catalog = JdkCatalog.load(options.getJdkCatalogDirectory());
+            } catch (IOException ioe) {
+                logger.error("Unable to load the JDK catalog from {}: {}", options.getJdkCatalogDirectory(),
+                        ioe.toString());
+                System.exit(-1);
+            }
+        }
+        CheckMetrics metrics = new CheckMetrics();
+        metrics.register();
+        return new FileChecker.Builder(new SourceLoader(options.getEncoding()))
+                .cache(cache)
+                .catalog(catalog)
+                .classpath(classpath)
+                .parser(new ParserFactory(options.isStatementsRecovery(), false))
+                .metrics(metrics)
+                .naming(options.getNaming())
+                .limits(options.getLimits())
+                .baseline(loadBaseline(options))
+                .build();
+    }
+
+    /**
+     * Map the baseline the options ask for.
+     *
+     * @return the baseline, or null if none is given
+     */
+    private static Baseline loadBaseline(CheckerOptions options) {
+        if (options.getBaseline() == null) {
+            return null;
+        }
+        try {
+            return Baseline.map(options.getBaseline());
+        } catch (IOException ioe) {
+            logger.error("Unable to read the baseline {}: {}", options.getBaseline(), ioe.toString());
+            System.exit(-1);
+            return null;
+        }
+    }
 
+    private static void printStats(CheckerOptions options, FileChecker checker) {
+        if (options.isStats()) {
+            System.err.print(checker.getMetrics().format());
+        }
+    }
 
-        Set<String> ac = getAllCaps(node);
-        for (String c : ac) {
-            logger.error("Found a name that is all caps: {}", c);
+    private static CheckResult checkInProcess(CheckerOptions options, ResultCache cache, ClasspathIndex classpath) {
+        SourceFinder finder = new SourceFinder(options.getIncludes(), options.getExcludes());
+        FileChecker checker = newChecker(options, cache, classpath);
+        ForkJoinPool pool = new ForkJoinPool(options.getThreads());
+        CheckResult result;
+        try {
+            result = checkAll(options.getPaths(), options.getSourcepath(), finder, checker, pool, options.getLimits());
+        } finally {
+            pool.shutdown();
         }
 
-        Set<String> violations = getTypeViolations(node);
-        for (String v : violations) {
-            logger.error("Invalid type used {}", v);
+        if (cache != null) {
+            logger.debug("Cache hits {} misses {}", cache.getHits(), cache.getMisses());
+            cache.trim();
+        }
+        printStats(options, checker);
+        return result;
+    }
+
+    /**
+     * Check the paths with checkStreaming, reporting each file as soon as it is final.
+     */
+    private static void streamInProcess(CheckerOptions options, ResultCache cache, ClasspathIndex classpath) {
+        SourceFinder finder = new SourceFinder(options.getIncludes(), options.getExcludes());
+        FileChecker checker = newChecker(options, cache, classpath);
+        ForkJoinPool pool = new ForkJoinPool(options.getThreads());
+        int files = 0;
+        try (ReportSink sink = newReportSink(options)) {
+            files = checkStreaming(options.getPaths(), options.getSourcepath(), finder, checker, pool,
+                    options.getThreads() * IN_FLIGHT_PER_THREAD, sink);
+        } catch (IOException ioe) {
+            logger.error("Unable to write the report: {}", ioe.toString());
+            System.exit(-1);
+        } finally {
+            pool.shutdown();
         }
 
+        if (cache != null) {
+            logger.debug("Cache hits {} misses {}", cache.getHits(), cache.getMisses());
+            cache.trim();
+        }
+        printStats(options, checker);
+        if (files == 0) {
+            logger.error("No java source found");
+            System.exit(-1);
+        }
+    }
+
+    /**
+     * Check the paths in worker processes, each with its own heap.
+     */
+    private static CheckResult checkSharded(CheckerOptions options, ResultCache cache, ClasspathIndex classpath) {
+        SourceFinder finder = new SourceFinder(options.getIncludes(), options.getExcludes());
+        // builds the saved JDK catalog once, as main did the classpath index, so the workers only map them
+        newChecker(options, cache, classpath);
+        ShardCoordinator coordinator = new ShardCoordinator(ShardCoordinator.javaCommand(options.getWorkerHeap()),
+                options.getWorkerArguments(), options.getWorkers(), options.getWorkerTimeoutSeconds() * 1000L);
+        CheckResult result = null;
+        try {
+            result = coordinator.check(options.getPaths(), options.getSourcepath(), finder);
+        } catch (IOException ioe) {
+            logger.error("Unable to check {} in worker processes: {}", Arrays.toString(options.getPaths()),
+                    ioe.toString());
+            System.exit(-1);
+        }
+
+        if (cache != null) {
+            cache.trim();
+        }
+        return result;
+    }
+
+    /**
+     * Check one shard of a coordinator's files and write their results for it to merge.
+     */
+    private static void runShard(CheckerOptions options, ResultCache cache, ClasspathIndex classpath) {
+        FileChecker checker = newChecker(options, cache, classpath);
+        ForkJoinPool pool = new ForkJoinPool(options.getThreads());
+        try {
+            ShardWorker.run(options.getShard(), options.getShardOutput(), checker, pool);
+        } catch (IOException ioe) {
+            logger.error("Unable to check shard {}: {}", options.getShard(), ioe.toString());
+            System.exit(-1);
+        } finally {
+            pool.shutdown();
+        }
+        if (cache != null) {
+            logger.debug("Cache hits {} misses {}", cache.getHits(), cache.getMisses());
+        }
+    }
+
+    /**
+     * Run as a daemon until it is idle or shut down, keeping the parser and visitors warm
+     * between the requests of its clients.
+     */
+    private static void serve(CheckerOptions options, ResultCache cache, ClasspathIndex classpath) {
+        int port = options.getPort() != 0 ? options.getPort() : CheckerOptions.DEFAULT_DAEMON_PORT;
+        SourceFinder finder = new SourceFinder(options.getIncludes(), options.getExcludes());
+        FileChecker checker = newChecker(options, cache, classpath);
+        ForkJoinPool pool = new ForkJoinPool(options.getThreads());
+        try (CheckDaemon daemon = new CheckDaemon(port, options.getIdleTimeoutSeconds() * 1000L,
+                finder, checker, pool, options.getEncoding(), options.getDaemonDirectory())) {
+            daemon.warmUp();
+            daemon.serve();
+        } catch (IOException ioe) {
+            logger.error("Unable to start a daemon on port {}: {}", port, ioe.toString());
+            System.exit(-1);
+        } finally {
+            pool.shutdown();
+        }
+
+        if (cache != null) {
+            logger.debug("Cache hits {} misses {}", cache.getHits(), cache.getMisses());
+            cache.trim();
+        }
+        printStats(options, checker);
+    }
+
+    /**
+     * Check the paths, then check the files again each time they change until the process is
+     * stopped.
+     */
+    private static void watch(CheckerOptions options, ResultCache cache, ClasspathIndex classpath) {
+        SourceFinder finder = new SourceFinder(options.getIncludes(), options.getExcludes());
+        FileChecker checker = newChecker(options, cache, classpath);
+        ForkJoinPool pool = new ForkJoinPool(options.getThreads());
+        try (ReportSink sink = newReportSink(options);
+             WatchSession session = new WatchSession(options.getPaths(), finder, checker, pool, sink)) {
+            CheckResult result = session.start();
+            if (result.getFileResults().isEmpty()) {
+                logger.error("No java source found");
+                System.exit(-1);
+            }
+            for (FileResult fileResult : result.getFileResults()) {
+                sink.accept(fileResult);
+            }
+            logger.info("Watching {} files for changes", result.getFileResults().size());
+            session.run();
+        } catch (IOException ioe) {
+            logger.error("Unable to watch {}: {}", Arrays.toString(options.getPaths()), ioe.toString());
+            System.exit(-1);
+        } finally {
+            pool.shutdown();
+        }
     }
 }
@@ -0,0 +1,231 @@
+package edu.byu.yc;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * A single rule violation, recorded by position instead of as flattened source text. The checker
+ * adds the line the violation starts on from the source it decoded, so reports show it without
+ * reading the file again. Violations are ordered by file, position, rule and name, consistently
+ * with equals, which ignores the source line.
+ */
+public class Violation implements Comparable<Violation> {
+
+    public static final String ALL_CAPS = "all-caps";
+    public static final String UNDECLARED_TYPE = "undeclared-type";
+    public static final String UNRESOLVED_IMPORT = "unresolved-import";
+    /**
+     * The start of the rules of naming conventions, which are followed by the kind of declaration,
+     * as in naming-method
+     */
+    public static final String NAMING_PREFIX = "naming-";
+
+    private static final Comparator<Violation> ORDER = Comparator
+            .comparing(Violation::getFile, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparingInt(Violation::getStartOffset)
+            .thenComparingInt(Violation::getLength)
+            .thenComparing(Violation::getRuleId)
+            .thenComparing(Violation::getName);
+
+    private String ruleId;
+    private String file;
+    private String name;
+    private int startOffset;
+    private int length;
+    private int line;
+    private int column;
+    private String enclosingType;
+    private String sourceLine = "";
+
+    public Violation(String ruleId, String file, String name, int startOffset, int length, int line, int column) {
+        this(ruleId, file, name, startOffset, length, line, column, "");
+    }
+
+    /**
+     * @param enclosingType the type the violation is in, relative to its package, such as
+     * Outer.Inner, or "" if it is outside of any type
+     */
+    public Violation(String ruleId, String file, String name, int startOffset, int length, int line, int column,
+                     String enclosingType) {
+        this.ruleId = ruleId;
+        this.file = file;
+        this.name = name;
+        this.startOffset = startOffset;
+        this.length = length;
+        this.line = line;
+        this.column = column;
+        this.enclosingType = enclosingType;
+    }
+
+    /**
+     * Record a violation at node. The line and column come from the CompilationUnit's line table,
+     * or are 0 if the node is not part of a CompilationUnit. The enclosing type is found by walking
+     * up from node.
+     *
+     * @param ruleId the rule that was violated
+     * @param file the file the node was parsed from, or null
+     * @param name the identifier or type name that violates the rule
+     * @param node the node that violates the rule
+     * @return the violation
+     */
+    public static Violation at(String ruleId, String file, String name, ASTNode node) {
+        int start = node.getStartPosition();
+        int line = 0;
+        int column = 0;
+        ASTNode root = node.getRoot();
+        if (root instanceof CompilationUnit) {
+            CompilationUnit cu = (CompilationUnit) root;
+            line = Math.max(0, cu.getLineNumber(start));
+            column = Math.max(0, cu.getColumnNumber(start)) + 1;
+        }
+        return new Violation(ruleId, file, name, start, node.getLength(), line, column, enclosingType(node));
+    }
+
+    /**
+     * @return the names of the types around node, outermost first, such as Outer.Inner
+     */
+    private static String enclosingType(ASTNode node) {
+        String enclosing = "";
+        for (ASTNode parent = node.getParent(); parent != null; parent = parent.getParent()) {
+            if (parent instanceof AbstractTypeDeclaration) {
+                String name = ((AbstractTypeDeclaration) parent).getName().getIdentifier();
+                enclosing = enclosing.isEmpty() ? name : name + "." + enclosing;
+            }
+        }
+        return enclosing;
+    }
+
+    public String getRuleId() {
+        return ruleId;
+    }
+
+    /**
+     * @return true if this violation is of a rule about names rather than types, which are
+     * reported with the all caps names of a file
+     */
+    public boolean isNaming() {
+        return ALL_CAPS.equals(ruleId) || ruleId.startsWith(NAMING_PREFIX);
+    }
+
+    /**
+     * @return the file the violation is in, or null if the source did not come from a file
+     */
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * @return the identifier or type name that violates the rule
+     */
+    public String getName() {
+        return name;
+    }
+
+    public int getStartOffset() {
+        return startOffset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return the 1 based line of the start of the violation, or 0 if unknown
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * @return the 1 based column of the start of the violation, or 0 if unknown
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * @return the type the violation is in, relative to its package, such as Outer.Inner, or ""
+     * if it is outside of any type or was not recorded
+     */
+    public String getEnclosingType() {
+        return enclosingType;
+    }
+
+    /**
+     * @return the line of source the violation starts on, as rendered by snippet, or "" if it
+     * was not recorded
+     */
+    public String getSourceLine() {
+        return sourceLine;
+    }
+
+    /**
+     * @param otherFile the file to give the copy
+     * @return a copy of this violation in another file, for results that were cached elsewhere
+     */
+    public Violation inFile(String otherFile) {
+        Violation copy = new Violation(ruleId, otherFile, name, startOffset, length, line, column, enclosingType);
+        copy.sourceLine = sourceLine;
+        return copy;
+    }
+
+    /**
+     * @param text the line of source the violation starts on
+     * @return a copy of this violation that shows text as its source line
+     */
+    public Violation withSourceLine(String text) {
+        Violation copy = new Violation(ruleId, file, name, startOffset, length, line, column, enclosingType);
+        copy.sourceLine = text;
+        return copy;
+    }
+
+    /**
+     * Render the line of source that the violation starts on.
+     *
+     * @param source the contents of the violation's file
+     * @return the line, without its line terminator or surrounding whitespace
+     */
+    public String snippet(CharSequence source) {
+        int start = Math.min(startOffset, source.length());
+        int end = start;
+        while (start > 0 && source.charAt(start - 1) != '\n' && source.charAt(start - 1) != '\r') {
+            start--;
+        }
+        while (end < source.length() && source.charAt(end) != '\n' && source.charAt(end) != '\r') {
+            end++;
+        }
+        return source.subSequence(start, end).toString().trim();
+    }
+
+    @Override
+    public int compareTo(Violation other) {
+        return ORDER.compare(this, other);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Violation)) {
+            return false;
+        }
+        Violation other = (Violation) o;
+        return startOffset == other.startOffset && length == other.length
+                && ruleId.equals(other.ruleId) && name.equals(other.name) && Objects.equals(file, other.file);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ruleId, file, name, startOffset, length);
+    }
+
+    @Override
+    public String toString() {
+        return (file == null ? "" : file + ":") + line + ":" + column + ": " + ruleId + " " + name;
+    }
+}
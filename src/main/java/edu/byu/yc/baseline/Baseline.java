@@ -0,0 +1,244 @@
+package edu.byu.yc.baseline;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.byu.yc.CheckResult;
+import edu.byu.yc.FileResult;
+import edu.byu.yc.Violation;
+
+/**
+ * The violations a project already had when it adopted the checker, so that only new ones are
+ * reported. Each violation is recorded as a 64 bit FNV-1a fingerprint of its rule, its file
+ * relative to the working directory, its enclosing type and its name. The fingerprint has no line
+ * or offset, so a violation keeps it when code above it is added or removed, and is lost only
+ * when the violation is fixed, renamed or moved to another type or file.
+ * <p>
+ * The file is a 16 byte header (magic, format version and count) followed by the sorted little
+ * endian fingerprints. A violation that occurs several times is recorded that many times, and the
+ * same number of occurrences are suppressed, so adding another copy of a known violation is still
+ * reported. The file is memory mapped and each fingerprint is found by binary search, so opening
+ * and matching a baseline of a hundred thousand violations reads only the pages it probes.
+ */
+public final class Baseline {
+
+    private static final int MAGIC = 0x5459424c;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final Path WORKING_DIRECTORY = Paths.get("").toAbsolutePath();
+
+    private final ByteBuffer fingerprints;
+    private final int size;
+
+    private Baseline(ByteBuffer fingerprints, int size) {
+        this.fingerprints = fingerprints;
+        this.size = size;
+    }
+
+    /**
+     * @param file a baseline written by write
+     * @return the baseline, mapped read only
+     * @throws IOException if the file cannot be read or is not a baseline
+     */
+    public static Baseline map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_BYTES || length > Integer.MAX_VALUE) {
+                throw new IOException("corrupt baseline length " + length);
+            }
+            MappedByteBuffer fingerprints = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            fingerprints.order(ByteOrder.LITTLE_ENDIAN);
+            long size = fingerprints.getLong(8);
+            if (fingerprints.getInt(0) != MAGIC || fingerprints.getInt(4) != FORMAT_VERSION
+                    || length != HEADER_BYTES + 8 * size) {
+                throw new IOException("unknown baseline format in " + file);
+            }
+            return new Baseline(fingerprints, (int) size);
+        }
+    }
+
+    /**
+     * Record every violation of result. The baseline is written to a temporary file next to file,
+     * then moved into place, so that a check never maps a partly written baseline.
+     *
+     * @param file where to write the baseline; its directory must exist
+     * @param result the results of checking the project
+     * @return the number of violations recorded
+     * @throws IOException if the baseline cannot be written
+     */
+    public static int write(Path file, CheckResult result) throws IOException {
+        long[] recorded = new long[result.getAllCaps().size() + result.getTypeViolations().size()];
+        int size = 0;
+        for (FileResult fileResult : result.getFileResults()) {
+            String path = normalize(fileResult.getPath());
+            for (Violation violation : fileResult.getAllCaps()) {
+                recorded[size++] = fingerprint(path, violation);
+            }
+            for (Violation violation : fileResult.getTypeViolations()) {
+                recorded[size++] = fingerprint(path, violation);
+            }
+        }
+        Arrays.sort(recorded, 0, size);
+
+        ByteBuffer contents = ByteBuffer.allocate(HEADER_BYTES + 8 * size).order(ByteOrder.LITTLE_ENDIAN);
+        contents.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(size);
+        for (int i = 0; i < size; i++) {
+            contents.putLong(recorded[i]);
+        }
+        contents.flip();
+
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (contents.hasRemaining()) {
+                    channel.write(contents);
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of violations recorded, counting each occurrence
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param fingerprint a fingerprint computed by fingerprint
+     * @return how many occurrences of the violation were recorded
+     */
+    public int count(long fingerprint) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (get(middle) < fingerprint) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        int count = 0;
+        for (int i = low; i < size && get(i) == fingerprint; i++) {
+            count++;
+        }
+        return count;
+    }
+
+    private long get(int index) {
+        return fingerprints.getLong(HEADER_BYTES + 8 * index);
+    }
+
+    /**
+     * Remove the violations of result that are recorded in the baseline. The n recorded
+     * occurrences of a violation suppress its first n occurrences in the file.
+     *
+     * @param result the results of one file
+     * @return result, or a copy without its recorded violations if it has any
+     */
+    public FileResult filter(FileResult result) {
+        if (size == 0 || (result.getAllCaps().isEmpty() && result.getTypeViolations().isEmpty())) {
+            return result;
+        }
+        String path = normalize(result.getPath());
+        Map<Long, Integer> remaining = new HashMap<>();
+        List<Violation> allCaps = filter(path, result.getAllCaps(), remaining);
+        List<Violation> typeViolations = filter(path, result.getTypeViolations(), remaining);
+        if (allCaps == result.getAllCaps() && typeViolations == result.getTypeViolations()) {
+            return result;
+        }
+        return new FileResult(result.getPath(), result.getPackageName(), allCaps, typeViolations,
+                result.getDeclaredTypes(), result.getPackageTypes(), result.isTruncated());
+    }
+
+    /**
+     * @param remaining how many recorded occurrences of each fingerprint seen so far in the file
+     * have not been matched yet
+     * @return violations, or the ones that are not recorded if there are any that are
+     */
+    private List<Violation> filter(String path, List<Violation> violations, Map<Long, Integer> remaining) {
+        List<Violation> unrecorded = null;
+        for (int i = 0; i < violations.size(); i++) {
+            Violation violation = violations.get(i);
+            long fingerprint = fingerprint(path, violation);
+            Integer left = remaining.get(fingerprint);
+            int count = left == null ? count(fingerprint) : left;
+            if (count > 0) {
+                remaining.put(fingerprint, count - 1);
+                if (unrecorded == null) {
+                    unrecorded = new ArrayList<>(violations.subList(0, i));
+                }
+            } else {
+                if (left == null) {
+                    remaining.put(fingerprint, 0);
+                }
+                if (unrecorded != null) {
+                    unrecorded.add(violation);
+                }
+            }
+        }
+        return unrecorded == null ? violations : unrecorded;
+    }
+
+    /**
+     * @param violation a violation
+     * @return its fingerprint, which does not depend on where in its file it is
+     */
+    public static long fingerprint(Violation violation) {
+        return fingerprint(normalize(violation.getFile()), violation);
+    }
+
+    private static long fingerprint(String path, Violation violation) {
+        long hash = feed(FNV_OFFSET, violation.getRuleId());
+        hash = feed(feed(hash, '\0'), path);
+        hash = feed(feed(hash, '\0'), violation.getEnclosingType());
+        return feed(feed(hash, '\0'), violation.getName());
+    }
+
+    /**
+     * @return path relative to the working directory if it is under it, with / between its names,
+     * so that a baseline can be shared between checkouts and operating systems
+     */
+    static String normalize(String path) {
+        Path absolute = Paths.get(path).toAbsolutePath().normalize();
+        Path relative = absolute.startsWith(WORKING_DIRECTORY) ? WORKING_DIRECTORY.relativize(absolute) : absolute;
+        return relative.toString().replace('\\', '/');
+    }
+
+    private static long feed(long hash, CharSequence chars) {
+        for (int i = 0; i < chars.length(); i++) {
+            hash = feed(hash, chars.charAt(i));
+        }
+        return hash;
+    }
+
+    private static long feed(long hash, char c) {
+        return (hash ^ c) * FNV_PRIME;
+    }
+}
@@ -0,0 +1,338 @@
+package edu.byu.yc.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.byu.yc.FileResult;
+import edu.byu.yc.Violation;
+
+/**
+ * An on-disk cache of FileResults keyed by a hash of the file's contents, the analyzer version
+ * and the rule configuration, so a file that has not changed since the last run does not need to
+ * be parsed again. Entries hold a file's results from before they are resolved against the rest
+ * of the project by ProjectIndex, so they stay valid when other files change.
+ * <p>
+ * Each entry is its own file, written to a temporary file and then moved into place, so several
+ * threads or processes can share one cache directory: a reader sees either a whole entry or none.
+ * An entry that cannot be read is treated as a miss. Hits refresh the entry's modification time
+ * and trim deletes the least recently used entries until the cache fits in its size limit.
+ */
+public class ResultCache {
+
+    private static Logger logger = LoggerFactory.getLogger(ResultCache.class);
+
+    private static final int MAGIC = 0x54435243;
+    private static final int FORMAT_VERSION = 5;
+    private static final String SUFFIX = ".tcr";
+    private static final int MAX_STRING_BYTES = 64 * 1024 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path directory;
+    private final long maxBytes;
+    private final byte[] configuration;
+    private final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(ResultCache::newDigest);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param directory where entries are stored, created if it does not exist
+     * @param maxBytes the size trim shrinks the cache to
+     * @param configuration the analyzer version and every option that changes a file's results
+     * @throws IOException if the directory cannot be created
+     */
+    public ResultCache(Path directory, long maxBytes, String configuration) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        this.configuration = configuration.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * @return a digest for the calling thread, already seeded with the configuration, that the
+     * file's contents should be added to before calling key
+     */
+    public MessageDigest newKeyDigest() {
+        MessageDigest digest = digests.get();
+        digest.reset();
+        digest.update(configuration);
+        return digest;
+    }
+
+    /**
+     * @param digest a digest from newKeyDigest that the file's contents have been added to
+     * @return the cache key for the file
+     */
+    public String key(MessageDigest digest) {
+        byte[] hash = digest.digest();
+        char[] key = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            key[2 * i] = HEX[(hash[i] >> 4) & 0xf];
+            key[2 * i + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(key);
+    }
+
+    private Path entry(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + SUFFIX);
+    }
+
+    /**
+     * Look up the results for a file.
+     *
+     * @param key the file's cache key
+     * @param path the path to give the cached FileResult
+     * @return the cached results, or null if there are none
+     */
+    public FileResult get(String key, String path) {
+        Path entry = entry(key);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("unknown cache entry format");
+            }
+            FileResult result = read(in, path);
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+            return result;
+        } catch (NoSuchFileException nsfe) {
+            misses.incrementAndGet();
+            return null;
+        } catch (IOException ioe) {
+            logger.warn("Ignoring unreadable cache entry {}: {}", entry, ioe.toString());
+            deleteQuietly(entry);
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Store the results for a file. Failures are logged, since the cache is only an optimization.
+     *
+     * @param key the file's cache key
+     * @param result the results of checking the file
+     */
+    public void put(String key, FileResult result) {
+        Path entry = entry(key);
+        Path temp = null;
+        try {
+            Files.createDirectories(entry.getParent());
+            temp = Files.createTempFile(entry.getParent(), key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                write(out, result);
+            }
+            move(temp, entry);
+        } catch (IOException ioe) {
+            logger.warn("Unable to write cache entry {}: {}", entry, ioe.toString());
+            if (temp != null) {
+                deleteQuietly(temp);
+            }
+        }
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Delete the least recently used entries until the cache is no larger than its size limit.
+     */
+    public void trim() {
+        List<Path> entries = new ArrayList<>();
+        List<BasicFileAttributes> attributes = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(directory)) {
+            for (Path shard : shards) {
+                if (!Files.isDirectory(shard)) {
+                    continue;
+                }
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(shard, "*" + SUFFIX)) {
+                    for (Path file : files) {
+                        BasicFileAttributes attrs;
+                        try {
+                            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                        } catch (NoSuchFileException nsfe) {
+                            // deleted by another process since the directory was listed
+                            continue;
+                        }
+                        entries.add(file);
+                        attributes.add(attrs);
+                        total += attrs.size();
+                    }
+                }
+            }
+        } catch (IOException ioe) {
+            logger.warn("Unable to trim cache {}: {}", directory, ioe.toString());
+            return;
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+
+        Integer[] order = new Integer[entries.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) ->
+                attributes.get(a).lastModifiedTime().compareTo(attributes.get(b).lastModifiedTime()));
+        for (int i = 0; i < order.length && total > maxBytes; i++) {
+            if (deleteQuietly(entries.get(order[i]))) {
+                total -= attributes.get(order[i]).size();
+            }
+        }
+    }
+
+    private static boolean deleteQuietly(Path path) {
+        try {
+            return Files.deleteIfExists(path);
+        } catch (IOException ioe) {
+            return false;
+        }
+    }
+
+    /**
+     * Write a file's results in the form the cache stores them, which is also how shard workers
+     * hand their results to the coordinator. The path is not written.
+     *
+     * @param out where to write the results
+     * @param result the results
+     * @throws IOException if out cannot be written
+     */
+    public static void write(DataOutputStream out, FileResult result) throws IOException {
+        writeString(out, result.getPackageName());
+        writeViolations(out, result.getAllCaps());
+        writeViolations(out, result.getTypeViolations());
+        writeSet(out, result.getDeclaredTypes());
+        writeSet(out, result.getPackageTypes());
+    }
+
+    /**
+     * Read a file's results that were written with write.
+     *
+     * @param in where to read the results from
+     * @param path the path to give the results and their violations
+     * @return the results
+     * @throws IOException if in cannot be read or does not hold results
+     */
+    public static FileResult read(DataInputStream in, String path) throws IOException {
+        String packageName = readString(in);
+        List<Violation> allCaps = readViolations(in, path);
+        List<Violation> typeViolations = readViolations(in, path);
+        Set<String> declaredTypes = readSet(in);
+        Set<String> packageTypes = readSet(in);
+        return new FileResult(path, packageName, allCaps, typeViolations, declaredTypes, packageTypes);
+    }
+
+    /**
+     * Violations are stored without their file, which is the path the entry is read for.
+     */
+    private static void writeViolations(DataOutputStream out, List<Violation> violations) throws IOException {
+        out.writeInt(violations.size());
+        for (Violation violation : violations) {
+            writeString(out, violation.getRuleId());
+            writeString(out, violation.getName());
+            out.writeInt(violation.getStartOffset());
+            out.writeInt(violation.getLength());
+            out.writeInt(violation.getLine());
+            out.writeInt(violation.getColumn());
+            writeString(out, violation.getEnclosingType());
+            writeString(out, violation.getSourceLine());
+        }
+    }
+
+    private static List<Violation> readViolations(DataInputStream in, String path) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("corrupt violation count " + size);
+        }
+        List<Violation> violations = new ArrayList<>(Math.min(size, 1024));
+        for (int i = 0; i < size; i++) {
+            String ruleId = readString(in);
+            String name = readString(in);
+            violations.add(new Violation(ruleId, path, name, in.readInt(), in.readInt(), in.readInt(), in.readInt(),
+                    readString(in)).withSourceLine(readString(in)));
+        }
+        return violations;
+    }
+
+    private static void writeSet(DataOutputStream out, Set<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static Set<String> readSet(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("corrupt set size " + size);
+        }
+        Set<String> values = new LinkedHashSet<>(Math.min(size, 1024) * 2);
+        for (int i = 0; i < size; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    /**
+     * Strings are written as length prefixed UTF-8 rather than with writeUTF, which is limited
+     * to 64K.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_STRING_BYTES) {
+            throw new IOException("corrupt string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+}
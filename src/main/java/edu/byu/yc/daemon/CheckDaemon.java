@@ -0,0 +1,365 @@
+package edu.byu.yc.daemon;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.byu.yc.FileChecker;
+import edu.byu.yc.FileResult;
+import edu.byu.yc.TypeChecker;
+import edu.byu.yc.environment.ProjectIndex;
+import edu.byu.yc.io.SourceFinder;
+
+/**
+ * Keeps a warmed up checker resident and checks files for clients that connect to a localhost
+ * port, so that editors and commit hooks do not pay for starting a JVM and loading JDT on every
+ * call. See DaemonProtocol for the requests it accepts.
+ * <p>
+ * Any local user can connect to the port, so the daemon writes a random token to a file that
+ * only its owner can read, and serves only connections that send the token first. The file is
+ * deleted when the daemon closes.
+ * <p>
+ * Each connection is served by its own thread, and the files of every request are checked on one
+ * shared pool. The daemon exits once it has had no connections for its idle timeout, or when a
+ * client sends SHUTDOWN.
+ */
+public class CheckDaemon implements Closeable {
+
+    private static Logger logger = LoggerFactory.getLogger(CheckDaemon.class);
+
+    private static final int MAX_CONNECTIONS = 16;
+    private static final int ACCEPT_TIMEOUT_MILLIS = 1000;
+    private static final int MAX_SOURCE_BYTES = 64 * 1024 * 1024;
+    private static final int TOKEN_BYTES = 32;
+    private static final String WARM_UP_SOURCE =
+            "import java.util.List;\nclass WarmUp { List<String> names; static final int MAX = 1; }";
+
+    private final SourceFinder finder;
+    private final FileChecker checker;
+    private final ExecutorService pool;
+    private final Charset encoding;
+    private final long idleTimeoutMillis;
+    private final ServerSocket serverSocket;
+    private final Path tokenFile;
+    private final byte[] token;
+    private final ExecutorService connections;
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private volatile long lastActivity = System.currentTimeMillis();
+    private volatile boolean running = true;
+
+    /**
+     * Bind to port on the loopback interface and write the token clients must send to
+     * DaemonProtocol.tokenFile. Nothing is accepted until serve is called.
+     *
+     * @param port the port to listen on, or 0 for any free port
+     * @param idleTimeoutMillis how long to wait without a connection before exiting
+     * @param finder decides which files in the directories clients send are checked
+     * @param checker checks each file
+     * @param pool the pool that parses and analyzes the files
+     * @param encoding the charset of the SOURCE bytes clients send
+     * @param tokenDirectory where to write the token file
+     * @throws IOException if the port cannot be bound or the token cannot be written
+     */
+    public CheckDaemon(int port, long idleTimeoutMillis, SourceFinder finder, FileChecker checker,
+                       ExecutorService pool, Charset encoding, Path tokenDirectory) throws IOException {
+        this.finder = finder;
+        this.checker = checker;
+        this.pool = pool;
+        this.encoding = encoding;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.serverSocket.setSoTimeout(ACCEPT_TIMEOUT_MILLIS);
+        this.tokenFile = DaemonProtocol.tokenFile(tokenDirectory, serverSocket.getLocalPort());
+        try {
+            this.token = writeToken(tokenFile);
+        } catch (IOException ioe) {
+            serverSocket.close();
+            throw ioe;
+        }
+        this.connections = Executors.newFixedThreadPool(MAX_CONNECTIONS, r -> {
+            Thread thread = new Thread(r, "check-daemon-connection");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the port the daemon is listening on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return the file that holds the token clients must send
+     */
+    public Path getTokenFile() {
+        return tokenFile;
+    }
+
+    /**
+     * Write a new random token to a temporary file that only the owner can read, then move it
+     * into place, so the token is never readable by anyone else, even briefly.
+     *
+     * @return the token, as the UTF-8 bytes of its hex digits
+     */
+    private static byte[] writeToken(Path file) throws IOException {
+        byte[] random = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(random);
+        StringBuilder hex = new StringBuilder(2 * TOKEN_BYTES);
+        for (byte b : random) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        byte[] token = hex.toString().getBytes(StandardCharsets.UTF_8);
+
+        Path directory = Files.createDirectories(file.toAbsolutePath().getParent());
+        String prefix = file.getFileName().toString();
+        Path temp = directory.getFileSystem().supportedFileAttributeViews().contains("posix")
+                ? Files.createTempFile(directory, prefix, ".tmp",
+                        PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")))
+                : Files.createTempFile(directory, prefix, ".tmp");
+        try {
+            Files.write(temp, token);
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return token;
+    }
+
+    /**
+     * Load the parser and visitor classes and let the JIT see them before the first client does.
+     */
+    public void warmUp() {
+        for (int i = 0; i < 20; i++) {
+            checker.check("WarmUp.java", WARM_UP_SOURCE.toCharArray());
+        }
+    }
+
+    /**
+     * Accept connections until the daemon has been idle for its timeout or is shut down.
+     */
+    public void serve() {
+        logger.info("Listening on {}", serverSocket.getLocalSocketAddress());
+        while (running) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketTimeoutException ste) {
+                if (activeConnections.get() == 0
+                        && System.currentTimeMillis() - lastActivity > idleTimeoutMillis) {
+                    logger.info("Exiting after {} ms without a request", idleTimeoutMillis);
+                    running = false;
+                }
+                continue;
+            } catch (IOException ioe) {
+                if (running) {
+                    logger.error("Unable to accept a connection", ioe);
+                }
+                continue;
+            }
+            activeConnections.incrementAndGet();
+            lastActivity = System.currentTimeMillis();
+            connections.execute(() -> handle(socket));
+        }
+        close();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        connections.shutdownNow();
+        try {
+            serverSocket.close();
+        } catch (IOException ioe) {
+            logger.debug("Unable to close {}: {}", serverSocket, ioe.toString());
+        }
+        try {
+            Files.deleteIfExists(tokenFile);
+        } catch (IOException ioe) {
+            logger.debug("Unable to delete {}: {}", tokenFile, ioe.toString());
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (Socket s = socket;
+             InputStream in = new BufferedInputStream(s.getInputStream());
+             OutputStream out = new BufferedOutputStream(s.getOutputStream())) {
+            if (!authorized(DaemonProtocol.readLine(in))) {
+                logger.warn("Refusing a connection that did not send the token in {}", tokenFile);
+                DaemonProtocol.writeLine(out, DaemonProtocol.ERROR, "Expected AUTH and the token in " + tokenFile);
+                return;
+            }
+            String line;
+            while (running && (line = DaemonProtocol.readLine(in)) != null) {
+                lastActivity = System.currentTimeMillis();
+                if (!handle(DaemonProtocol.split(line), in, out)) {
+                    break;
+                }
+                out.flush();
+            }
+        } catch (SocketException se) {
+            logger.debug("Client disconnected: {}", se.toString());
+        } catch (IOException ioe) {
+            logger.warn("Closing connection: {}", ioe.toString());
+        } finally {
+            lastActivity = System.currentTimeMillis();
+            activeConnections.decrementAndGet();
+        }
+    }
+
+    /**
+     * @param line the first line of a connection, or null if it closed without one
+     * @return true if the line is AUTH followed by this daemon's token
+     */
+    private boolean authorized(String line) {
+        if (line == null) {
+            return false;
+        }
+        String[] request = DaemonProtocol.split(line);
+        return request.length == 2 && DaemonProtocol.AUTH.equals(request[0])
+                && MessageDigest.isEqual(token, request[1].getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return false if the connection should be closed
+     */
+    private boolean handle(String[] request, InputStream in, OutputStream out) throws IOException {
+        switch (request[0]) {
+            case DaemonProtocol.CHECK:
+                check(Arrays.copyOfRange(request, 1, request.length), out);
+                return true;
+            case DaemonProtocol.SOURCE:
+                return checkSource(request, in, out);
+            case DaemonProtocol.PING:
+                DaemonProtocol.writeLine(out, DaemonProtocol.PONG);
+                return true;
+            case DaemonProtocol.SHUTDOWN:
+                DaemonProtocol.writeLine(out, DaemonProtocol.BYE);
+                out.flush();
+                running = false;
+                serverSocket.close();
+                return false;
+            default:
+                DaemonProtocol.writeLine(out, DaemonProtocol.ERROR, "Unknown request " + request[0]);
+                return true;
+        }
+    }
+
+    /**
+     * Check the files under roots as one project, so the files of a request can use the types of
+     * their package that the other files declare.
+     */
+    private void check(String[] roots, OutputStream out) throws IOException {
+        final ProjectIndex index = new ProjectIndex();
+        final List<String> paths = new ArrayList<>();
+        final List<Future<FileResult>> checked = new ArrayList<>();
+        finder.find(roots, found -> {
+            final String path = found.toString();
+            paths.add(path);
+            checked.add(pool.submit(() -> index.add(checker.check(path))));
+        });
+        List<Future<FileResult>> futures;
+        try {
+            futures = TypeChecker.resolveAll(checked, index, pool);
+        } catch (IllegalStateException ise) {
+            checked.forEach(f -> f.cancel(true));
+            throw new IOException(ise.getMessage(), ise);
+        }
+
+        int violations = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                violations += DaemonProtocol.writeFile(out, futures.get(i).get());
+            } catch (ExecutionException ee) {
+                DaemonProtocol.writeLine(out, DaemonProtocol.FAILED, paths.get(i), message(ee.getCause()));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new IOException("Interrupted while checking " + paths.get(i), ie);
+            }
+            out.flush();
+        }
+        DaemonProtocol.writeLine(out, DaemonProtocol.DONE, Integer.toString(futures.size()),
+                Integer.toString(violations));
+    }
+
+    private boolean checkSource(String[] request, InputStream in, OutputStream out) throws IOException {
+        int length;
+        try {
+            length = request.length == 3 ? Integer.parseInt(request[2]) : -1;
+        } catch (NumberFormatException nfe) {
+            length = -1;
+        }
+        if (length < 0 || length > MAX_SOURCE_BYTES) {
+            // the source that follows cannot be skipped without its length
+            DaemonProtocol.writeLine(out, DaemonProtocol.ERROR, "Expected SOURCE name byteLength");
+            return false;
+        }
+        byte[] bytes = new byte[length];
+        try {
+            new DataInputStream(in).readFully(bytes);
+        } catch (EOFException eofe) {
+            throw new IOException("Connection closed in the middle of " + request[1], eofe);
+        }
+        CharBuffer decoded = encoding.decode(ByteBuffer.wrap(bytes));
+        char[] contents = Arrays.copyOfRange(decoded.array(), decoded.arrayOffset(),
+                decoded.arrayOffset() + decoded.remaining());
+
+        Future<FileResult> future = pool.submit(() -> checker.check(request[1], contents));
+        int violations = 0;
+        try {
+            violations = DaemonProtocol.writeFile(out, future.get());
+        } catch (ExecutionException ee) {
+            DaemonProtocol.writeLine(out, DaemonProtocol.FAILED, request[1], message(ee.getCause()));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while checking " + request[1], ie);
+        }
+        DaemonProtocol.writeLine(out, DaemonProtocol.DONE, "1", Integer.toString(violations));
+        return true;
+    }
+
+    /**
+     * @return the failure as a single protocol field
+     */
+    private static String message(Throwable t) {
+        return String.valueOf(t).replace('\t', ' ').replace('\r', ' ').replace('\n', ' ');
+    }
+}
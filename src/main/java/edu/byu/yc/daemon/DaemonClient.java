@@ -0,0 +1,178 @@
+package edu.byu.yc.daemon;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import edu.byu.yc.CheckResult;
+import edu.byu.yc.FileResult;
+import edu.byu.yc.Violation;
+
+/**
+ * Sends paths to a CheckDaemon on a localhost port and reads back its results. Each connection
+ * starts with the token the daemon wrote to its token file.
+ */
+public class DaemonClient {
+
+    private static Logger logger = LoggerFactory.getLogger(DaemonClient.class);
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 500;
+
+    private final int port;
+    private final Path tokenFile;
+
+    /**
+     * @param port the port the daemon listens on
+     * @param tokenDirectory the directory the daemon wrote its token file to
+     */
+    public DaemonClient(int port, Path tokenDirectory) {
+        this.port = port;
+        this.tokenFile = DaemonProtocol.tokenFile(tokenDirectory, port);
+    }
+
+    /**
+     * Have the daemon check paths. Relative paths are resolved against this process's working
+     * directory before they are sent, since the daemon's may be different.
+     *
+     * @param paths files and directories to check
+     * @return the results, in the order the daemon found the files, or null if no daemon is
+     * listening on the port or it has no token file
+     * @throws IOException if the connection fails after it was made, or the daemon's reply is malformed
+     */
+    public CheckResult check(String[] paths) throws IOException {
+        String[] request = new String[paths.length + 1];
+        request[0] = DaemonProtocol.CHECK;
+        for (int i = 0; i < paths.length; i++) {
+            request[i + 1] = Paths.get(paths[i]).toAbsolutePath().toString();
+        }
+
+        Socket socket = connect();
+        if (socket == null) {
+            return null;
+        }
+        try (Socket s = socket;
+             InputStream in = new BufferedInputStream(s.getInputStream());
+             OutputStream out = new BufferedOutputStream(s.getOutputStream())) {
+            DaemonProtocol.writeLine(out, request);
+            out.flush();
+            return readResult(in);
+        }
+    }
+
+    /**
+     * Ask the daemon to exit.
+     *
+     * @return false if no daemon is listening on the port or it has no token file
+     * @throws IOException if the connection fails after it was made
+     */
+    public boolean shutdown() throws IOException {
+        Socket socket = connect();
+        if (socket == null) {
+            return false;
+        }
+        try (Socket s = socket) {
+            OutputStream out = s.getOutputStream();
+            DaemonProtocol.writeLine(out, DaemonProtocol.SHUTDOWN);
+            out.flush();
+            return DaemonProtocol.BYE.equals(DaemonProtocol.readLine(s.getInputStream()));
+        }
+    }
+
+    /**
+     * Read the daemon's token, connect to it and send the token.
+     *
+     * @return the connection, or null if there is no token file or nothing listens on the port
+     */
+    private Socket connect() throws IOException {
+        String token;
+        try {
+            token = new String(Files.readAllBytes(tokenFile), StandardCharsets.UTF_8).trim();
+        } catch (NoSuchFileException nsfe) {
+            logger.debug("No daemon token in {}", tokenFile);
+            return null;
+        }
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT_MILLIS);
+        } catch (ConnectException ce) {
+            socket.close();
+            return null;
+        }
+        try {
+            DaemonProtocol.writeLine(socket.getOutputStream(), DaemonProtocol.AUTH, token);
+        } catch (IOException ioe) {
+            socket.close();
+            throw ioe;
+        }
+        return socket;
+    }
+
+    private static CheckResult readResult(InputStream in) throws IOException {
+        CheckResult result = new CheckResult();
+        String file = null;
+        List<Violation> allCaps = null;
+        List<Violation> typeViolations = null;
+        String line;
+        while ((line = DaemonProtocol.readLine(in)) != null) {
+            String[] fields = DaemonProtocol.split(line);
+            switch (fields[0]) {
+                case DaemonProtocol.FILE:
+                    if (file != null) {
+                        result.add(new FileResult(file, allCaps, typeViolations, Collections.<String>emptySet()));
+                    }
+                    file = field(fields, 1, line);
+                    allCaps = new ArrayList<>();
+                    typeViolations = new ArrayList<>();
+                    break;
+                case DaemonProtocol.VIOLATION:
+                    if (file == null) {
+                        throw new IOException("Violation before any file: " + line);
+                    }
+                    Violation violation = DaemonProtocol.parseViolation(fields, file);
+                    if (violation.isNaming()) {
+                        allCaps.add(violation);
+                    } else {
+                        typeViolations.add(violation);
+                    }
+                    break;
+                case DaemonProtocol.FAILED:
+                    logger.error("Unable to check {}: {}", field(fields, 1, line), field(fields, 2, line));
+                    break;
+                case DaemonProtocol.DONE:
+                    if (file != null) {
+                        result.add(new FileResult(file, allCaps, typeViolations, Collections.<String>emptySet()));
+                    }
+                    return result;
+                case DaemonProtocol.ERROR:
+                    throw new IOException("Daemon rejected the request: " + field(fields, 1, line));
+                default:
+                    throw new IOException("Unexpected reply from daemon: " + line);
+            }
+        }
+        throw new IOException("Daemon closed the connection before it finished");
+    }
+
+    private static String field(String[] fields, int i, String line) throws IOException {
+        if (i >= fields.length) {
+            throw new IOException("Malformed reply from daemon: " + line);
+        }
+        return fields[i];
+    }
+}
@@ -0,0 +1,157 @@
+package edu.byu.yc.daemon;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import edu.byu.yc.FileResult;
+import edu.byu.yc.Violation;
+
+/**
+ * The line protocol spoken between a CheckDaemon and its clients. Every line is UTF-8, ends with
+ * a newline and has tab separated fields. The first line of a connection must be
+ * <pre>
+ * AUTH   token                 the contents of the daemon's token file
+ * </pre>
+ * or the daemon answers ERROR and closes it, since any local user can connect to the port but
+ * only the daemon's owner can read the token file. A connection can then carry any number of
+ * requests:
+ * <pre>
+ * CHECK  path [path...]        check files and directories on the daemon's file system
+ * SOURCE name byteLength       check the byteLength bytes that follow, which are not saved
+ * PING                         answered with PONG
+ * SHUTDOWN                     answered with BYE, and the daemon exits
+ * </pre>
+ * CHECK and SOURCE are answered with a FILE line for each file, followed by a V line for each of
+ * its violations, and then a DONE line with the number of files and violations. The files of a
+ * CHECK are resolved against each other as one project, then each file is written and flushed as
+ * soon as it has been resolved, in the order the files were found:
+ * <pre>
+ * FILE   path
+ * V      ruleId line column startOffset length name enclosingType sourceLine
+ * FAILED path message
+ * DONE   files violations
+ * ERROR  message
+ * </pre>
+ */
+public final class DaemonProtocol {
+
+    public static final String AUTH = "AUTH";
+    public static final String CHECK = "CHECK";
+    public static final String SOURCE = "SOURCE";
+    public static final String PING = "PING";
+    public static final String SHUTDOWN = "SHUTDOWN";
+
+    public static final String FILE = "FILE";
+    public static final String VIOLATION = "V";
+    public static final String FAILED = "FAILED";
+    public static final String DONE = "DONE";
+    public static final String ERROR = "ERROR";
+    public static final String PONG = "PONG";
+    public static final String BYE = "BYE";
+
+    public static final char SEPARATOR = '\t';
+
+    /**
+     * The number of fields in a V line, including the V. The source line comes last, since it
+     * can hold tabs of its own.
+     */
+    static final int VIOLATION_FIELDS = 9;
+
+    /**
+     * The longest request line a daemon accepts, so a client cannot make it buffer without limit
+     */
+    static final int MAX_LINE_BYTES = 1024 * 1024;
+
+    private DaemonProtocol() {
+    }
+
+    /**
+     * Read one line, without its line terminator.
+     *
+     * @param in the connection
+     * @return the line, or null at the end of the stream
+     * @throws IOException if the line is longer than MAX_LINE_BYTES or cannot be read
+     */
+    static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                return line.size() == 0 ? null : line.toString("UTF-8");
+            }
+            if (line.size() >= MAX_LINE_BYTES) {
+                throw new IOException("Request line longer than " + MAX_LINE_BYTES + " bytes");
+            }
+            line.write(b);
+        }
+        String text = line.toString("UTF-8");
+        return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+    }
+
+    static void writeLine(OutputStream out, String... fields) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                line.append(SEPARATOR);
+            }
+            line.append(fields[i]);
+        }
+        line.append('\n');
+        out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Write a file's results, ending with the number of violations written.
+     */
+    static int writeFile(OutputStream out, FileResult result) throws IOException {
+        writeLine(out, FILE, result.getPath());
+        return writeViolations(out, result.getAllCaps()) + writeViolations(out, result.getTypeViolations());
+    }
+
+    private static int writeViolations(OutputStream out, List<Violation> violations) throws IOException {
+        for (Violation v : violations) {
+            writeLine(out, VIOLATION, v.getRuleId(), Integer.toString(v.getLine()), Integer.toString(v.getColumn()),
+                    Integer.toString(v.getStartOffset()), Integer.toString(v.getLength()), v.getName(),
+                    v.getEnclosingType(), v.getSourceLine());
+        }
+        return violations.size();
+    }
+
+    /**
+     * @param fields a V line split on tabs
+     * @param file the path from the FILE line before it
+     * @return the violation the line describes
+     * @throws IOException if the line is malformed
+     */
+    static Violation parseViolation(String[] fields, String file) throws IOException {
+        if (fields.length != VIOLATION_FIELDS) {
+            throw new IOException("Malformed violation " + String.join(" ", fields));
+        }
+        try {
+            return new Violation(fields[1], file, fields[6], Integer.parseInt(fields[4]),
+                    Integer.parseInt(fields[5]), Integer.parseInt(fields[2]), Integer.parseInt(fields[3]),
+                    fields[7]).withSourceLine(fields[8]);
+        } catch (NumberFormatException nfe) {
+            throw new IOException("Malformed violation " + String.join(" ", fields), nfe);
+        }
+    }
+
+    /**
+     * @param directory the directory daemons keep their tokens in
+     * @param port the port of a daemon
+     * @return the file the daemon on port writes its token to
+     */
+    public static Path tokenFile(Path directory, int port) {
+        return directory.resolve("daemon-" + port + ".token");
+    }
+
+    static String[] split(String line) {
+        int limit = line.startsWith(VIOLATION + SEPARATOR) ? VIOLATION_FIELDS : -1;
+        return line.split(String.valueOf(SEPARATOR), limit);
+    }
+}
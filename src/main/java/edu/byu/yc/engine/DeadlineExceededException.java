@@ -0,0 +1,14 @@
+package edu.byu.yc.engine;
+
+/**
+ * Thrown out of TraversalEngine.run when a walk passes the engine's deadline. The visitors keep
+ * whatever they found before the walk stopped.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(long nodesVisited) {
+        super("Stopped after " + nodesVisited + " nodes");
+    }
+}
@@ -0,0 +1,312 @@
+package edu.byu.yc.engine;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.AnnotationTypeDeclaration;
+import org.eclipse.jdt.core.dom.AnonymousClassDeclaration;
+import org.eclipse.jdt.core.dom.ArrayType;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.EnumConstantDeclaration;
+import org.eclipse.jdt.core.dom.EnumDeclaration;
+import org.eclipse.jdt.core.dom.FieldDeclaration;
+import org.eclipse.jdt.core.dom.ImportDeclaration;
+import org.eclipse.jdt.core.dom.Initializer;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.PackageDeclaration;
+import org.eclipse.jdt.core.dom.ParameterizedType;
+import org.eclipse.jdt.core.dom.PrimitiveType;
+import org.eclipse.jdt.core.dom.QualifiedName;
+import org.eclipse.jdt.core.dom.QualifiedType;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.SimpleType;
+import org.eclipse.jdt.core.dom.SingleVariableDeclaration;
+import org.eclipse.jdt.core.dom.SwitchStatement;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+import org.eclipse.jdt.core.dom.TypeDeclarationStatement;
+import org.eclipse.jdt.core.dom.TypeParameter;
+import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
+import org.eclipse.jdt.core.dom.WildcardType;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The ASTVisitor that does the walking for one phase of a TraversalEngine. preVisit and postVisit
+ * forward each node only to the visitors that subscribed to its node type, calling their visit and
+ * endVisit for its type, so a node type nobody subscribed to costs one array lookup.
+ * <p>
+ * A subscribed visitor can still return false from visit to skip a node's children. The walk
+ * continues for the other visitors, and that visitor receives nothing more until the endVisit
+ * of the node it pruned.
+ */
+class PhaseDispatcher extends ASTVisitor {
+
+    /**
+     * The node types a visitor may subscribe to. To support another node type, add it here and to
+     * the switches of visit and endVisit.
+     */
+    static final int[] SUPPORTED_NODE_TYPES = {
+            ASTNode.COMPILATION_UNIT,
+            ASTNode.PACKAGE_DECLARATION,
+            ASTNode.IMPORT_DECLARATION,
+            ASTNode.TYPE_DECLARATION,
+            ASTNode.ENUM_DECLARATION,
+            ASTNode.ANNOTATION_TYPE_DECLARATION,
+            ASTNode.ANONYMOUS_CLASS_DECLARATION,
+            ASTNode.TYPE_DECLARATION_STATEMENT,
+            ASTNode.METHOD_DECLARATION,
+            ASTNode.INITIALIZER,
+            ASTNode.FIELD_DECLARATION,
+            ASTNode.ENUM_CONSTANT_DECLARATION,
+            ASTNode.VARIABLE_DECLARATION_FRAGMENT,
+            ASTNode.SINGLE_VARIABLE_DECLARATION,
+            ASTNode.TYPE_PARAMETER,
+            ASTNode.SIMPLE_NAME,
+            ASTNode.QUALIFIED_NAME,
+            ASTNode.SIMPLE_TYPE,
+            ASTNode.QUALIFIED_TYPE,
+            ASTNode.PARAMETERIZED_TYPE,
+            ASTNode.ARRAY_TYPE,
+            ASTNode.PRIMITIVE_TYPE,
+            ASTNode.WILDCARD_TYPE,
+            ASTNode.SWITCH_STATEMENT
+    };
+
+    /**
+     * The clock is read once every this many nodes, as reading it costs more than a visit
+     */
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    private final ASTVisitor[] visitors;
+    private final int[][] subscribersByType;
+    private final ASTNode[] mutedAt;
+    private final boolean hasDeadline;
+    private final long deadline;
+    private long nodesVisited;
+
+    PhaseDispatcher(List<Subscription> subscriptions) {
+        this(subscriptions, false, 0);
+    }
+
+    /**
+     * @param subscriptions the visitors of the phase
+     * @param hasDeadline true to stop the walk at deadline
+     * @param deadline the System.nanoTime after which the walk stops
+     */
+    PhaseDispatcher(List<Subscription> subscriptions, boolean hasDeadline, long deadline) {
+        this.hasDeadline = hasDeadline;
+        this.deadline = deadline;
+        visitors = new ASTVisitor[subscriptions.size()];
+        mutedAt = new ASTNode[visitors.length];
+        subscribersByType = new int[maxNodeType() + 1][];
+        for (int i = 0; i < visitors.length; i++) {
+            Subscription subscription = subscriptions.get(i);
+            visitors[i] = subscription.getVisitor();
+            for (int nodeType : subscription.getNodeTypes()) {
+                int[] current = subscribersByType[nodeType];
+                int[] updated = current == null ? new int[1] : Arrays.copyOf(current, current.length + 1);
+                updated[updated.length - 1] = i;
+                subscribersByType[nodeType] = updated;
+            }
+        }
+    }
+
+    static boolean isSupported(int nodeType) {
+        for (int supported : SUPPORTED_NODE_TYPES) {
+            if (supported == nodeType) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int maxNodeType() {
+        int max = 0;
+        for (int nodeType : SUPPORTED_NODE_TYPES) {
+            max = Math.max(max, nodeType);
+        }
+        return max;
+    }
+
+    /**
+     * @return the number of nodes this dispatcher has walked
+     */
+    long getNodesVisited() {
+        return nodesVisited;
+    }
+
+    @Override
+    public void preVisit(ASTNode node) {
+        nodesVisited++;
+        if (hasDeadline && nodesVisited % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+            throw new DeadlineExceededException(nodesVisited);
+        }
+        int[] subscribers = subscribersByType(node.getNodeType());
+        if (subscribers != null) {
+            for (int i : subscribers) {
+                if (mutedAt[i] == null && !visit(visitors[i], node)) {
+                    mutedAt[i] = node;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void postVisit(ASTNode node) {
+        int[] subscribers = subscribersByType(node.getNodeType());
+        if (subscribers != null) {
+            for (int i : subscribers) {
+                if (mutedAt[i] == null) {
+                    endVisit(visitors[i], node);
+                } else if (mutedAt[i] == node) {
+                    mutedAt[i] = null;
+                    endVisit(visitors[i], node);
+                }
+            }
+        }
+    }
+
+    private int[] subscribersByType(int nodeType) {
+        return nodeType < subscribersByType.length ? subscribersByType[nodeType] : null;
+    }
+
+    /**
+     * Call the visit method of visitor for the type of node, which must be a supported type.
+     */
+    private static boolean visit(ASTVisitor visitor, ASTNode node) {
+        switch (node.getNodeType()) {
+            case ASTNode.COMPILATION_UNIT:
+                return visitor.visit((CompilationUnit) node);
+            case ASTNode.PACKAGE_DECLARATION:
+                return visitor.visit((PackageDeclaration) node);
+            case ASTNode.IMPORT_DECLARATION:
+                return visitor.visit((ImportDeclaration) node);
+            case ASTNode.TYPE_DECLARATION:
+                return visitor.visit((TypeDeclaration) node);
+            case ASTNode.ENUM_DECLARATION:
+                return visitor.visit((EnumDeclaration) node);
+            case ASTNode.ANNOTATION_TYPE_DECLARATION:
+                return visitor.visit((AnnotationTypeDeclaration) node);
+            case ASTNode.ANONYMOUS_CLASS_DECLARATION:
+                return visitor.visit((AnonymousClassDeclaration) node);
+            case ASTNode.TYPE_DECLARATION_STATEMENT:
+                return visitor.visit((TypeDeclarationStatement) node);
+            case ASTNode.METHOD_DECLARATION:
+                return visitor.visit((MethodDeclaration) node);
+            case ASTNode.INITIALIZER:
+                return visitor.visit((Initializer) node);
+            case ASTNode.FIELD_DECLARATION:
+                return visitor.visit((FieldDeclaration) node);
+            case ASTNode.ENUM_CONSTANT_DECLARATION:
+                return visitor.visit((EnumConstantDeclaration) node);
+            case ASTNode.VARIABLE_DECLARATION_FRAGMENT:
+                return visitor.visit((VariableDeclarationFragment) node);
+            case ASTNode.SINGLE_VARIABLE_DECLARATION:
+                return visitor.visit((SingleVariableDeclaration) node);
+            case ASTNode.TYPE_PARAMETER:
+                return visitor.visit((TypeParameter) node);
+            case ASTNode.SIMPLE_NAME:
+                return visitor.visit((SimpleName) node);
+            case ASTNode.QUALIFIED_NAME:
+                return visitor.visit((QualifiedName) node);
+            case ASTNode.SIMPLE_TYPE:
+                return visitor.visit((SimpleType) node);
+            case ASTNode.QUALIFIED_TYPE:
+                return visitor.visit((QualifiedType) node);
+            case ASTNode.PARAMETERIZED_TYPE:
+                return visitor.visit((ParameterizedType) node);
+            case ASTNode.ARRAY_TYPE:
+                return visitor.visit((ArrayType) node);
+            case ASTNode.PRIMITIVE_TYPE:
+                return visitor.visit((PrimitiveType) node);
+            case ASTNode.WILDCARD_TYPE:
+                return visitor.visit((WildcardType) node);
+            case ASTNode.SWITCH_STATEMENT:
+                return visitor.visit((SwitchStatement) node);
+            default:
+                throw new IllegalStateException("Unsupported node type " + node.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Call the endVisit method of visitor for the type of node, which must be a supported type.
+     */
+    private static void endVisit(ASTVisitor visitor, ASTNode node) {
+        switch (node.getNodeType()) {
+            case ASTNode.COMPILATION_UNIT:
+                visitor.endVisit((CompilationUnit) node);
+                break;
+            case ASTNode.PACKAGE_DECLARATION:
+                visitor.endVisit((PackageDeclaration) node);
+                break;
+            case ASTNode.IMPORT_DECLARATION:
+                visitor.endVisit((ImportDeclaration) node);
+                break;
+            case ASTNode.TYPE_DECLARATION:
+                visitor.endVisit((TypeDeclaration) node);
+                break;
+            case ASTNode.ENUM_DECLARATION:
+                visitor.endVisit((EnumDeclaration) node);
+                break;
+            case ASTNode.ANNOTATION_TYPE_DECLARATION:
+                visitor.endVisit((AnnotationTypeDeclaration) node);
+                break;
+            case ASTNode.ANONYMOUS_CLASS_DECLARATION:
+                visitor.endVisit((AnonymousClassDeclaration) node);
+                break;
+            case ASTNode.TYPE_DECLARATION_STATEMENT:
+                visitor.endVisit((TypeDeclarationStatement) node);
+                break;
+            case ASTNode.METHOD_DECLARATION:
+                visitor.endVisit((MethodDeclaration) node);
+                break;
+            case ASTNode.INITIALIZER:
+                visitor.endVisit((Initializer) node);
+                break;
+            case ASTNode.FIELD_DECLARATION:
+                visitor.endVisit((FieldDeclaration) node);
+                break;
+            case ASTNode.ENUM_CONSTANT_DECLARATION:
+                visitor.endVisit((EnumConstantDeclaration) node);
+                break;
+            case ASTNode.VARIABLE_DECLARATION_FRAGMENT:
+                visitor.endVisit((VariableDeclarationFragment) node);
+                break;
+            case ASTNode.SINGLE_VARIABLE_DECLARATION:
+                visitor.endVisit((SingleVariableDeclaration) node);
+                break;
+            case ASTNode.TYPE_PARAMETER:
+                visitor.endVisit((TypeParameter) node);
+                break;
+            case ASTNode.SIMPLE_NAME:
+                visitor.endVisit((SimpleName) node);
+                break;
+            case ASTNode.QUALIFIED_NAME:
+                visitor.endVisit((QualifiedName) node);
+                break;
+            case ASTNode.SIMPLE_TYPE:
+                visitor.endVisit((SimpleType) node);
+                break;
+            case ASTNode.QUALIFIED_TYPE:
+                visitor.endVisit((QualifiedType) node);
+                break;
+            case ASTNode.PARAMETERIZED_TYPE:
+                visitor.endVisit((ParameterizedType) node);
+                break;
+            case ASTNode.ARRAY_TYPE:
+                visitor.endVisit((ArrayType) node);
+                break;
+            case ASTNode.PRIMITIVE_TYPE:
+                visitor.endVisit((PrimitiveType) node);
+                break;
+            case ASTNode.WILDCARD_TYPE:
+                visitor.endVisit((WildcardType) node);
+                break;
+            case ASTNode.SWITCH_STATEMENT:
+                visitor.endVisit((SwitchStatement) node);
+                break;
+            default:
+                throw new IllegalStateException("Unsupported node type " + node.getClass().getSimpleName());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package edu.byu.yc.engine;
+
+import org.eclipse.jdt.core.dom.ASTVisitor;
+
+/**
+ * A visitor and the node types it wants to see.
+ */
+class Subscription {
+
+    private ASTVisitor visitor;
+    private int[] nodeTypes;
+
+    Subscription(ASTVisitor visitor, int[] nodeTypes) {
+        this.visitor = visitor;
+        this.nodeTypes = nodeTypes;
+    }
+
+    ASTVisitor getVisitor() {
+        return visitor;
+    }
+
+    int[] getNodeTypes() {
+        return nodeTypes;
+    }
+}
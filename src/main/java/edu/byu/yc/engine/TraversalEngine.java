@@ -0,0 +1,131 @@
+package edu.byu.yc.engine;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drives several ASTVisitors with a single walk of the AST instead of one walk per visitor.
+ * <p>
+ * Each visitor subscribes to the node types it overrides, and only receives visit and endVisit
+ * calls for those types (preVisit and postVisit are not forwarded). Visitors are called in the
+ * order they subscribed.
+ * <p>
+ * Some checks need the results of an earlier walk, such as TypeVisitor, which needs every type
+ * that QualifiedClassVisitor found. barrier() starts a new phase: every visitor subscribed before
+ * the barrier finishes the whole tree before any visitor subscribed after it sees a node, at the
+ * cost of one more walk.
+ *
+ * <pre>
+ * new TraversalEngine()
+ *         .subscribe(qualifiedClassVisitor, QualifiedClassVisitor.NODE_TYPES)
+ *         .subscribe(noAllCapsVisitor, NoAllCapsVisitor.NODE_TYPES)
+ *         .barrier()
+ *         .subscribe(typeVisitor, TypeVisitor.NODE_TYPES)
+ *         .run(compilationUnit);
+ * </pre>
+ * <p>
+ * A deadline bounds the time a walk may take, so that one pathological tree cannot stall a run.
+ * The walk stops with a DeadlineExceededException once it passes the deadline.
+ */
+public class TraversalEngine {
+
+    private List<List<Subscription>> phases = new ArrayList<>();
+    private long nodesVisited;
+    private boolean hasDeadline;
+    private long deadline;
+
+    public TraversalEngine() {
+        phases.add(new ArrayList<>());
+    }
+
+    /**
+     * Add a visitor to the current phase.
+     *
+     * @param visitor the visitor to drive
+     * @param nodeTypes the ASTNode node type constants the visitor handles
+     * @return this engine
+     * @throws IllegalArgumentException if the engine cannot dispatch one of the node types
+     */
+    public TraversalEngine subscribe(ASTVisitor visitor, int... nodeTypes) {
+        for (int nodeType : nodeTypes) {
+            if (!PhaseDispatcher.isSupported(nodeType)) {
+                throw new IllegalArgumentException("Unsupported node type "
+                        + ASTNode.nodeClassForType(nodeType).getSimpleName());
+            }
+        }
+        phases.get(phases.size() - 1).add(new Subscription(visitor, nodeTypes.clone()));
+        return this;
+    }
+
+    /**
+     * Start a new phase. Visitors subscribed after the barrier only see the tree once the visitors
+     * subscribed before it have seen all of it.
+     *
+     * @return this engine
+     */
+    public TraversalEngine barrier() {
+        phases.add(new ArrayList<>());
+        return this;
+    }
+
+    /**
+     * Stop any walk that is still running at deadline.
+     *
+     * @param deadline a System.nanoTime
+     * @return this engine
+     */
+    public TraversalEngine deadline(long deadline) {
+        this.hasDeadline = true;
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * Walk root once per phase, dispatching each node to the visitors of that phase.
+     *
+     * @param root the tree to walk, usually a CompilationUnit
+     * @throws DeadlineExceededException if the walk passes the deadline
+     */
+    public void run(ASTNode root) {
+        for (int phase = 0; phase < phases.size(); phase++) {
+            runPhase(phase, root);
+        }
+    }
+
+    /**
+     * Walk root once for a single phase, for callers that measure each phase. The phases must be
+     * run in order.
+     *
+     * @param phase the phase, 0 for the visitors subscribed before the first barrier
+     * @param root the tree to walk
+     * @throws DeadlineExceededException if the walk passes the deadline
+     */
+    public void runPhase(int phase, ASTNode root) {
+        List<Subscription> subscriptions = phases.get(phase);
+        if (!subscriptions.isEmpty()) {
+            PhaseDispatcher dispatcher = new PhaseDispatcher(subscriptions, hasDeadline, deadline);
+            try {
+                root.accept(dispatcher);
+            } finally {
+                nodesVisited += dispatcher.getNodesVisited();
+            }
+        }
+    }
+
+    /**
+     * @return the number of phases, one more than the number of barriers
+     */
+    public int getPhaseCount() {
+        return phases.size();
+    }
+
+    /**
+     * @return the number of nodes walked by every phase run so far
+     */
+    public long getNodesVisited() {
+        return nodesVisited;
+    }
+}
@@ -0,0 +1,218 @@
+package edu.byu.yc.environment;
+
+import org.eclipse.jdt.core.dom.Name;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The types in the jars and class directories of a classpath, so that imports of third party
+ * types can be checked instead of trusted.
+ * <p>
+ * A jar is indexed from the names in its zip central directory alone, without inflating a single
+ * entry, so every named class is included whether or not it is public. Each jar's names are saved
+ * as a NameTable in jar.types next to the jar, or in the fallback directory if the jar's
+ * directory cannot be written, along with the jar's length and last modified time. Later runs map
+ * the saved table as long as the jar has not changed, so a classpath of hundreds of jars is opened
+ * with one mmap per jar. Class directories change too often to be worth saving and are walked on
+ * every run.
+ * <p>
+ * The fingerprint of the index changes whenever a type is added to or removed from any entry, so
+ * results cached against one classpath are not reused against another. A jar contributes its
+ * length and last modified time, and a directory the hashes of the types found in it, since a
+ * directory's own time only changes when one of its direct children does.
+ */
+public class ClasspathIndex implements TypeCatalog {
+
+    private static Logger logger = LoggerFactory.getLogger(ClasspathIndex.class);
+
+    private static final String INDEX_SUFFIX = ".types";
+    private static final String VERSIONS = "META-INF/versions/";
+
+    private final List<NameTable> tables;
+    private final long fingerprint;
+
+    private ClasspathIndex(List<NameTable> tables, long fingerprint) {
+        this.tables = tables;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Open the index of every entry of a classpath, indexing the jars that have changed since
+     * they were last indexed. Entries that do not exist or cannot be read are skipped with a
+     * warning, as javac does.
+     *
+     * @param classpath jars and class directories
+     * @param fallbackDirectory where to save the index of a jar whose directory cannot be written
+     * @return the index
+     */
+    public static ClasspathIndex load(List<Path> classpath, Path fallbackDirectory) {
+        long start = System.nanoTime();
+        int indexed = 0;
+        List<NameTable> tables = new ArrayList<>(classpath.size());
+        long fingerprint = classpath.size();
+        for (Path entry : classpath) {
+            fingerprint *= 31;
+            try {
+                if (Files.isDirectory(entry)) {
+                    Set<String> names = directoryTypes(entry);
+                    tables.add(NameTable.build(names, 0, 0));
+                    for (String name : names) {
+                        fingerprint += NameTable.hash(name);
+                    }
+                } else if (Files.isRegularFile(entry)) {
+                    NameTable table = mapJar(entry, fallbackDirectory);
+                    if (table == null) {
+                        table = indexJar(entry, fallbackDirectory);
+                        indexed++;
+                    }
+                    tables.add(table);
+                    fingerprint += 31 * table.getSourceLength() + table.getSourceModified();
+                } else {
+                    logger.warn("Skipping classpath entry {}, which does not exist", entry);
+                }
+            } catch (IOException ioe) {
+                logger.warn("Skipping unreadable classpath entry {}: {}", entry, ioe.toString());
+            }
+        }
+        logger.debug("Opened the index of {} classpath entries, {} of them indexed again, in {} ms",
+                tables.size(), indexed, (System.nanoTime() - start) / 1000000);
+        return new ClasspathIndex(tables, fingerprint);
+    }
+
+    /**
+     * @return the saved index of jar, or null if there is none that is up to date
+     */
+    private static NameTable mapJar(Path jar, Path fallbackDirectory) throws IOException {
+        long length = Files.size(jar);
+        long modified = Files.getLastModifiedTime(jar).toMillis();
+        for (Path file : new Path[]{besideJar(jar), inDirectory(jar, fallbackDirectory)}) {
+            if (Files.isRegularFile(file)) {
+                try {
+                    NameTable table = NameTable.map(file);
+                    if (table.getSourceLength() == length && table.getSourceModified() == modified) {
+                        return table;
+                    }
+                } catch (IOException ioe) {
+                    logger.debug("Ignoring unreadable index {}: {}", file, ioe.toString());
+                }
+            }
+        }
+        return null;
+    }
+
+    private static NameTable indexJar(Path jar, Path fallbackDirectory) throws IOException {
+        long length = Files.size(jar);
+        long modified = Files.getLastModifiedTime(jar).toMillis();
+        Set<String> names = new LinkedHashSet<>();
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (name.startsWith(VERSIONS)) {
+                    int slash = name.indexOf('/', VERSIONS.length());
+                    name = slash < 0 ? "" : name.substring(slash + 1);
+                }
+                if (!name.startsWith("META-INF/")) {
+                    addType(names, name);
+                }
+            }
+        }
+        NameTable table = NameTable.build(names, length, modified);
+        try {
+            table.save(besideJar(jar));
+        } catch (IOException ioe) {
+            logger.debug("Saving the index of {} in {}: {}", jar, fallbackDirectory, ioe.toString());
+            Files.createDirectories(fallbackDirectory);
+            table.save(inDirectory(jar, fallbackDirectory));
+        }
+        return table;
+    }
+
+    private static Path besideJar(Path jar) {
+        return jar.resolveSibling(jar.getFileName() + INDEX_SUFFIX);
+    }
+
+    private static Path inDirectory(Path jar, Path directory) {
+        String absolute = jar.toAbsolutePath().normalize().toString();
+        return directory.resolve(jar.getFileName() + "-" + Integer.toHexString(absolute.hashCode()) + INDEX_SUFFIX);
+    }
+
+    private static Set<String> directoryTypes(Path directory) throws IOException {
+        Set<String> names = new LinkedHashSet<>();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.forEach(file -> addType(names, directory.relativize(file).toString().replace('\\', '/')));
+        }
+        return names;
+    }
+
+    /**
+     * Add the type a class file declares, and its package, unless it is anonymous or local.
+     *
+     * @param names the names found so far
+     * @param entry the class file's path relative to the classpath entry, such as a/b/C$D.class
+     */
+    private static void addType(Set<String> names, String entry) {
+        if (!entry.endsWith(".class") || entry.endsWith("module-info.class") || entry.endsWith("package-info.class")) {
+            return;
+        }
+        // anonymous and local classes are named Outer$1 and Outer$1Local
+        for (int dollar = entry.indexOf('$'); dollar >= 0; dollar = entry.indexOf('$', dollar + 1)) {
+            if (dollar + 1 < entry.length() && Character.isDigit(entry.charAt(dollar + 1))) {
+                return;
+            }
+        }
+        names.add(entry.substring(0, entry.length() - ".class".length()).replace('/', '.').replace('$', '.'));
+        int slash = entry.lastIndexOf('/');
+        names.add((slash < 0 ? "" : entry.substring(0, slash).replace('/', '.')) + PACKAGE_SUFFIX);
+    }
+
+    /**
+     * @return the number of classpath entries that were opened
+     */
+    public int size() {
+        return tables.size();
+    }
+
+    /**
+     * @return a hash of the types in every entry, which changes when the classpath does
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    @Override
+    public boolean contains(String qualifier, Name name) {
+        return contains(NameTable.hash(qualifier, name));
+    }
+
+    @Override
+    public boolean contains(String qualifiedName) {
+        return contains(NameTable.hash(qualifiedName));
+    }
+
+    @Override
+    public boolean hasPackage(String packageName) {
+        return contains(NameTable.hash(packageName + PACKAGE_SUFFIX));
+    }
+
+    private boolean contains(long hash) {
+        for (NameTable table : tables) {
+            if (table.contains(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,240 @@
+package edu.byu.yc.environment;
+
+import org.eclipse.jdt.core.dom.Name;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.ProviderNotFoundException;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The public types of the running JDK's standard packages, so that types from java.lang and from
+ * wildcard imports of JDK packages can be resolved without loading any classes.
+ * <p>
+ * The catalog is built once per JDK by reading the headers of the class files in the jrt:/ file
+ * system, or in rt.jar before Java 9, and saved as a NameTable. Later runs memory map the saved
+ * table, so opening the catalog costs a single mmap and a lookup is a hash of the name followed
+ * by one or two probes.
+ * <p>
+ * Only packages that the java.* modules export are included: java.*, javax.*, org.w3c.*,
+ * org.xml.* and org.ietf.*. Member types are included as Outer.Inner, and each package that has
+ * a public type as package.*.
+ */
+public class JdkCatalog implements TypeCatalog {
+
+    private static Logger logger = LoggerFactory.getLogger(JdkCatalog.class);
+
+    private static final String[] EXPORTED_PREFIXES = {"java/", "javax/", "org/w3c/", "org/xml/", "org/ietf/"};
+    private static final int ACC_PUBLIC = 0x0001;
+
+    private final NameTable table;
+
+    private JdkCatalog(NameTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Open the catalog of the running JDK that is saved in directory, building and saving it
+     * first if it does not exist yet.
+     *
+     * @param directory where catalogs are saved, created if it does not exist
+     * @return the catalog
+     * @throws IOException if the catalog can be neither read nor built
+     */
+    public static JdkCatalog load(Path directory) throws IOException {
+        String jdk = System.getProperty("java.home") + "\n" + System.getProperty("java.version");
+        Path file = directory.resolve("jdk-catalog-" + Integer.toHexString(jdk.hashCode()) + ".bin");
+        if (Files.isRegularFile(file)) {
+            try {
+                return new JdkCatalog(NameTable.map(file));
+            } catch (IOException ioe) {
+                logger.warn("Rebuilding unreadable JDK catalog {}: {}", file, ioe.toString());
+            }
+        }
+
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        NameTable.build(publicTypes(), 0, 0).save(file);
+        JdkCatalog catalog = new JdkCatalog(NameTable.map(file));
+        logger.debug("Built JDK catalog of {} names in {} ms", catalog.size(), (System.nanoTime() - start) / 1000000);
+        return catalog;
+    }
+
+    /**
+     * @param qualifiedName a package or a fully qualified type name
+     * @return true if it is in one of the packages the JDK exports, which only the JDK can declare
+     */
+    public static boolean isJdkName(String qualifiedName) {
+        for (String prefix : EXPORTED_PREFIXES) {
+            int length = prefix.length() - 1;
+            if (qualifiedName.startsWith(prefix.substring(0, length))
+                    && (qualifiedName.length() == length || qualifiedName.charAt(length) == '.')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of types and packages in the catalog
+     */
+    public int size() {
+        return table.size();
+    }
+
+    @Override
+    public boolean contains(String qualifier, Name name) {
+        return table.contains(NameTable.hash(qualifier, name));
+    }
+
+    @Override
+    public boolean contains(String qualifiedName) {
+        return table.contains(NameTable.hash(qualifiedName));
+    }
+
+    @Override
+    public boolean hasPackage(String packageName) {
+        return table.contains(NameTable.hash(packageName + PACKAGE_SUFFIX));
+    }
+
+    /**
+     * @return the qualified names of the public types in the JDK's exported packages, and of the
+     * packages they are in
+     */
+    private static Set<String> publicTypes() throws IOException {
+        Set<String> names = new LinkedHashSet<>();
+        FileSystem jrt;
+        try {
+            jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+        } catch (ProviderNotFoundException | FileSystemNotFoundException e) {
+            jrt = null;
+        }
+        if (jrt != null) {
+            try (DirectoryStream<Path> modules = Files.newDirectoryStream(jrt.getPath("/modules"), "java.*")) {
+                for (Path module : modules) {
+                    try (Stream<Path> files = Files.walk(module)) {
+                        for (Path file : (Iterable<Path>) files::iterator) {
+                            String entry = module.relativize(file).toString();
+                            if (isCandidate(entry)) {
+                                try (InputStream in = Files.newInputStream(file)) {
+                                    addIfPublic(names, entry, in);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            return names;
+        }
+
+        File rtJar = new File(new File(System.getProperty("java.home"), "lib"), "rt.jar");
+        try (ZipFile zip = new ZipFile(rtJar)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (isCandidate(entry.getName())) {
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        addIfPublic(names, entry.getName(), in);
+                    }
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * @param entry a class file's path, such as java/util/Map$Entry.class
+     * @return true if it is a named class in an exported package
+     */
+    private static boolean isCandidate(String entry) {
+        if (!entry.endsWith(".class") || entry.endsWith("module-info.class") || entry.endsWith("package-info.class")) {
+            return false;
+        }
+        boolean exported = false;
+        for (String prefix : EXPORTED_PREFIXES) {
+            exported |= entry.startsWith(prefix);
+        }
+        if (!exported) {
+            return false;
+        }
+        // anonymous and local classes are named Outer$1 and Outer$1Local
+        for (int dollar = entry.indexOf('$'); dollar >= 0; dollar = entry.indexOf('$', dollar + 1)) {
+            if (dollar + 1 < entry.length() && Character.isDigit(entry.charAt(dollar + 1))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void addIfPublic(Set<String> names, String entry, InputStream in) throws IOException {
+        if (isPublic(new DataInputStream(new BufferedInputStream(in, 1024)))) {
+            names.add(entry.substring(0, entry.length() - ".class".length()).replace('/', '.').replace('$', '.'));
+            names.add(entry.substring(0, entry.lastIndexOf('/')).replace('/', '.') + PACKAGE_SUFFIX);
+        }
+    }
+
+    /**
+     * Read a class file up to its access flags, skipping the constant pool.
+     */
+    private static boolean isPublic(DataInputStream in) throws IOException {
+        if (in.readInt() != 0xcafebabe) {
+            return false;
+        }
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+        int count = in.readUnsignedShort();
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1:
+                    skip(in, in.readUnsignedShort());
+                    break;
+                case 7: case 8: case 16: case 19: case 20:
+                    skip(in, 2);
+                    break;
+                case 15:
+                    skip(in, 3);
+                    break;
+                case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                    skip(in, 4);
+                    break;
+                case 5: case 6:
+                    // longs and doubles take two entries
+                    skip(in, 8);
+                    i++;
+                    break;
+                default:
+                    throw new IOException("unknown constant pool tag " + tag);
+            }
+        }
+        return (in.readUnsignedShort() & ACC_PUBLIC) != 0;
+    }
+
+    private static void skip(DataInputStream in, int n) throws IOException {
+        while (n > 0) {
+            int skipped = in.skipBytes(n);
+            if (skipped <= 0) {
+                throw new EOFException("truncated class file");
+            }
+            n -= skipped;
+        }
+    }
+}
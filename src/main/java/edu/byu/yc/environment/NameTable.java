@@ -0,0 +1,207 @@
+package edu.byu.yc.environment;
+
+import org.eclipse.jdt.core.dom.Name;
+import org.eclipse.jdt.core.dom.QualifiedName;
+import org.eclipse.jdt.core.dom.SimpleName;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+/**
+ * A set of qualified names stored as an open addressing hash table of their 64 bit FNV-1a hashes,
+ * which can be saved to a file and memory mapped again, so that a saved table is opened with a
+ * single mmap instead of being read and rebuilt.
+ * <p>
+ * The file is a 32 byte header (magic, format version, capacity, size, and the length and last
+ * modified time of whatever the names were read from) followed by the little endian slots. A
+ * slot of 0 is empty. Hashes are computed over the segments of a Name in place, so a lookup never
+ * builds a String; two names with the same hash are indistinguishable, which at 64 bits and a few
+ * hundred thousand names is not a practical concern.
+ */
+final class NameTable {
+
+    private static final int MAGIC = 0x5459504e;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final ByteBuffer table;
+    private final int mask;
+    private final int size;
+
+    private NameTable(ByteBuffer table) {
+        this.table = table;
+        this.mask = table.getInt(8) - 1;
+        this.size = table.getInt(12);
+    }
+
+    /**
+     * @param names qualified names
+     * @param sourceLength the length of the file the names were read from, or 0
+     * @param sourceModified the last modified time of that file, or 0
+     * @return a table holding the hashes of names, at most half full
+     */
+    static NameTable build(Collection<String> names, long sourceLength, long sourceModified) {
+        int capacity = Integer.highestOneBit(Math.max(16, names.size() * 2 - 1)) << 1;
+        ByteBuffer table = ByteBuffer.allocate(HEADER_BYTES + 8 * capacity).order(ByteOrder.LITTLE_ENDIAN);
+        table.putInt(0, MAGIC).putInt(4, FORMAT_VERSION).putInt(8, capacity)
+                .putLong(16, sourceLength).putLong(24, sourceModified);
+        int size = 0;
+        for (String name : names) {
+            long hash = hash(name);
+            int slot = (int) hash & (capacity - 1);
+            while (true) {
+                long existing = table.getLong(HEADER_BYTES + 8 * slot);
+                if (existing == hash) {
+                    break;
+                }
+                if (existing == 0) {
+                    table.putLong(HEADER_BYTES + 8 * slot, hash);
+                    size++;
+                    break;
+                }
+                slot = (slot + 1) & (capacity - 1);
+            }
+        }
+        table.putInt(12, size);
+        return new NameTable(table);
+    }
+
+    /**
+     * @param file a table saved by save
+     * @return the table, mapped read only
+     * @throws IOException if the file cannot be read or is not a saved table
+     */
+    static NameTable map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_BYTES || length > Integer.MAX_VALUE) {
+                throw new IOException("corrupt name table length " + length);
+            }
+            MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            table.order(ByteOrder.LITTLE_ENDIAN);
+            int capacity = table.getInt(8);
+            if (table.getInt(0) != MAGIC || table.getInt(4) != FORMAT_VERSION || Integer.bitCount(capacity) != 1
+                    || length != HEADER_BYTES + 8L * capacity) {
+                throw new IOException("unknown name table format");
+            }
+            return new NameTable(table);
+        }
+    }
+
+    /**
+     * Write the table to a temporary file next to file, then move it into place, so that a
+     * reader never maps a partly written table.
+     *
+     * @param file where to save the table; its directory must exist
+     */
+    void save(Path file) throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer contents = table.duplicate();
+                contents.rewind();
+                while (contents.hasRemaining()) {
+                    channel.write(contents);
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @return the number of distinct names in the table
+     */
+    int size() {
+        return size;
+    }
+
+    long getSourceLength() {
+        return table.getLong(16);
+    }
+
+    long getSourceModified() {
+        return table.getLong(24);
+    }
+
+    /**
+     * @param hash a hash computed by one of the hash methods
+     * @return true if a name with the hash was added
+     */
+    boolean contains(long hash) {
+        int slot = (int) hash & mask;
+        while (true) {
+            long existing = table.getLong(HEADER_BYTES + 8 * slot);
+            if (existing == hash) {
+                return true;
+            }
+            if (existing == 0) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * @param qualifiedName a qualified name
+     * @return its hash
+     */
+    static long hash(CharSequence qualifiedName) {
+        return finish(feed(FNV_OFFSET, qualifiedName));
+    }
+
+    /**
+     * @param qualifier a package or type, or "" if name is fully qualified
+     * @param name a simple or qualified name
+     * @return the hash of qualifier.name
+     */
+    static long hash(String qualifier, Name name) {
+        long hash = FNV_OFFSET;
+        if (!qualifier.isEmpty()) {
+            hash = feed(feed(hash, qualifier), '.');
+        }
+        return finish(feed(hash, name));
+    }
+
+    private static long feed(long hash, Name name) {
+        if (name.isSimpleName()) {
+            return feed(hash, ((SimpleName) name).getIdentifier());
+        }
+        QualifiedName qualifiedName = (QualifiedName) name;
+        return feed(feed(feed(hash, qualifiedName.getQualifier()), '.'), qualifiedName.getName().getIdentifier());
+    }
+
+    private static long feed(long hash, CharSequence chars) {
+        for (int i = 0; i < chars.length(); i++) {
+            hash = feed(hash, chars.charAt(i));
+        }
+        return hash;
+    }
+
+    private static long feed(long hash, char c) {
+        return (hash ^ c) * FNV_PRIME;
+    }
+
+    /**
+     * 0 marks an empty slot, so no name may hash to it.
+     */
+    private static long finish(long hash) {
+        return hash == 0 ? 1 : hash;
+    }
+}
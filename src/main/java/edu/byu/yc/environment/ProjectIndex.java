@@ -0,0 +1,114 @@
+package edu.byu.yc.environment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import edu.byu.yc.FileResult;
+import edu.byu.yc.Violation;
+
+/**
+ * The types declared by every file in a run, by package, so that a class can use the other
+ * classes of its package without importing them even when they are declared in another file.
+ * <p>
+ * Checking a project has two phases. In the first, each file is checked on its own and its
+ * results are added here by whichever worker checked it. In the second, once every file has been
+ * added, resolve drops the type violations of each file that name a type of its own package.
+ * Adding and resolving only touch a ConcurrentHashMap and its concurrent key sets, so neither
+ * phase takes a lock on the read path.
+ */
+public class ProjectIndex {
+
+    private final ConcurrentMap<String, Set<String>> typesByPackage = new ConcurrentHashMap<>();
+
+    /**
+     * Add the types that a file declares.
+     *
+     * @param result the results of checking the file on its own
+     * @return result, so that adding can be chained after checking a file
+     */
+    public FileResult add(FileResult result) {
+        if (!result.getPackageTypes().isEmpty()) {
+            typesByPackage.computeIfAbsent(result.getPackageName(), p -> ConcurrentHashMap.newKeySet())
+                    .addAll(result.getPackageTypes());
+        }
+        return result;
+    }
+
+    /**
+     * Remove the types that a file declared, for when the file changes or is deleted. If another
+     * file of the package declares one of the same types, it has to be added again.
+     *
+     * @param result the results the file was added with
+     */
+    public void remove(FileResult result) {
+        Set<String> types = typesByPackage.get(result.getPackageName());
+        if (types != null) {
+            types.removeAll(result.getPackageTypes());
+        }
+    }
+
+    /**
+     * @param packageName a package, "" for the default package
+     * @param typeName a type name relative to the package, such as Outer or Outer.Inner
+     * @return true if some file in the project declares the type
+     */
+    public boolean isDeclared(String packageName, String typeName) {
+        Set<String> types = typesByPackage.get(packageName);
+        return types != null && types.contains(typeName);
+    }
+
+    /**
+     * @param qualifiedName a fully qualified type name, such as a.b.Outer.Inner
+     * @return true if some file in the project declares the type
+     */
+    public boolean isDeclared(String qualifiedName) {
+        for (int dot = qualifiedName.indexOf('.'); dot > 0; dot = qualifiedName.indexOf('.', dot + 1)) {
+            if (isDeclared(qualifiedName.substring(0, dot), qualifiedName.substring(dot + 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param packageName a package, "" for the default package
+     * @return true if some file in the project declares a type in the package
+     */
+    public boolean hasPackage(String packageName) {
+        Set<String> types = typesByPackage.get(packageName);
+        return types != null && !types.isEmpty();
+    }
+
+    /**
+     * Drop the type violations of a file that name a type declared elsewhere in its package, or
+     * that fully qualify a type declared anywhere in the project, and the unresolved imports of
+     * a type or package that the project declares. Every file must have been added before any is
+     * resolved.
+     *
+     * @param result the results of checking the file on its own
+     * @return the results with those violations removed, or result if none were removed
+     */
+    public FileResult resolve(FileResult result) {
+        List<Violation> violations = result.getTypeViolations();
+        List<Violation> unresolved = new ArrayList<>(violations.size());
+        for (Violation violation : violations) {
+            String name = violation.getName();
+            if (name.endsWith(TypeCatalog.PACKAGE_SUFFIX)) {
+                String imported = name.substring(0, name.length() - TypeCatalog.PACKAGE_SUFFIX.length());
+                if (!hasPackage(imported) && !isDeclared(imported)) {
+                    unresolved.add(violation);
+                }
+            } else if (!isDeclared(result.getPackageName(), name) && !isDeclared(name)) {
+                unresolved.add(violation);
+            }
+        }
+        if (unresolved.size() == violations.size()) {
+            return result;
+        }
+        return new FileResult(result.getPath(), result.getPackageName(), result.getAllCaps(), unresolved,
+                result.getDeclaredTypes(), result.getPackageTypes(), result.isTruncated());
+    }
+}
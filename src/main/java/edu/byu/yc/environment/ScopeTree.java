@@ -0,0 +1,169 @@
+package edu.byu.yc.environment;
+
+import org.eclipse.jdt.core.dom.TypeParameter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The environments of a file: one scope for each type, and for each generic method or method
+ * with local types, numbered in the order they are entered. A scope is an int, and its parent,
+ * its type in the TypeIndex and how many type references were checked in it are kept in arrays
+ * indexed by it, so each scope costs the same few bytes however many types are used in it and no
+ * AST node is kept.
+ * <p>
+ * The type parameters of a scope are a small open addressing table of their names. Each scope
+ * records the nearest enclosing scope that has type parameters when it is entered, so a lookup
+ * only probes the scopes that declare any and stops at the first hit.
+ */
+public final class ScopeTree {
+
+    /**
+     * The parent of a top level type's scope
+     */
+    public static final int NONE = -1;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] parents = new int[INITIAL_CAPACITY];
+    private int[] enclosingTypeParameters = new int[INITIAL_CAPACITY];
+    private int[] references = new int[INITIAL_CAPACITY];
+    private TypeIndex.Node[] indexNodes = new TypeIndex.Node[INITIAL_CAPACITY];
+    private String[][] typeParameters = new String[INITIAL_CAPACITY][];
+    private int size;
+
+    /**
+     * Enter the scope of a type, looking up the type in typeIndex once, so that resolving a type
+     * name in the scope is a single probe of the node rather than a walk of the parents.
+     *
+     * @param parent the enclosing scope, or NONE for a top level type
+     * @param name the simple name of the type
+     * @param typeIndex the types of the class being checked
+     * @return the new scope
+     */
+    public int enterType(int parent, String name, TypeIndex typeIndex) {
+        TypeIndex.Node parentNode = parent == NONE ? typeIndex.getRoot() : indexNodes[parent];
+        return enter(parent, parentNode == null ? null : parentNode.child(name));
+    }
+
+    /**
+     * Enter the scope of a method or initializer body, which has no member types of its own but
+     * may have type parameters and local types.
+     *
+     * @param parent the scope of the type that declares the body
+     * @param localTypes the scope that holds the body's local types, or null if it has none
+     * @return the new scope
+     */
+    public int enterBody(int parent, TypeIndex.Node localTypes) {
+        return enter(parent, localTypes);
+    }
+
+    private int enter(int parent, TypeIndex.Node indexNode) {
+        if (size == parents.length) {
+            int capacity = size * 2;
+            parents = Arrays.copyOf(parents, capacity);
+            enclosingTypeParameters = Arrays.copyOf(enclosingTypeParameters, capacity);
+            references = Arrays.copyOf(references, capacity);
+            indexNodes = Arrays.copyOf(indexNodes, capacity);
+            typeParameters = Arrays.copyOf(typeParameters, capacity);
+        }
+        int scope = size++;
+        parents[scope] = parent;
+        indexNodes[scope] = indexNode;
+        if (parent == NONE) {
+            enclosingTypeParameters[scope] = NONE;
+        } else {
+            enclosingTypeParameters[scope] = typeParameters[parent] != null
+                    ? parent : enclosingTypeParameters[parent];
+        }
+        return scope;
+    }
+
+    /**
+     * @param scope a scope
+     * @return the enclosing scope, or NONE for a top level type
+     */
+    public int getParent(int scope) {
+        return parents[scope];
+    }
+
+    /**
+     * @param scope a scope
+     * @return the scope's type in the TypeIndex it was entered with, or the local types of a body,
+     * or null if it has neither
+     */
+    public TypeIndex.Node getIndexNode(int scope) {
+        return indexNodes[scope];
+    }
+
+    /**
+     * Declare the type parameters of the generic type or method of a scope. They must be declared
+     * before any scope is entered inside of it.
+     *
+     * @param scope the scope that was just entered
+     * @param parameters the TypeParameters of the declaration
+     */
+    public void declareTypeParameters(int scope, List<?> parameters) {
+        if (parameters.isEmpty()) {
+            return;
+        }
+        // open addressing in a table at least twice the size of the parameters
+        String[] table = new String[Integer.highestOneBit(parameters.size() * 2 - 1) << 1];
+        int mask = table.length - 1;
+        for (Object parameter : parameters) {
+            String name = ((TypeParameter) parameter).getName().getIdentifier();
+            int slot = name.hashCode() & mask;
+            while (table[slot] != null && !table[slot].equals(name)) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = name;
+        }
+        typeParameters[scope] = table;
+    }
+
+    /**
+     * Check whether name is a type parameter of scope or of a scope that encloses it.
+     *
+     * @param scope the scope the name is used in
+     * @param name a simple type name
+     * @return true if name is a type parameter in scope
+     */
+    public boolean isTypeParameter(int scope, String name) {
+        int hash = name.hashCode();
+        int declaring = typeParameters[scope] != null ? scope : enclosingTypeParameters[scope];
+        for (; declaring != NONE; declaring = enclosingTypeParameters[declaring]) {
+            String[] table = typeParameters[declaring];
+            int mask = table.length - 1;
+            for (int slot = hash & mask; table[slot] != null; slot = (slot + 1) & mask) {
+                if (table[slot].equals(name)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Count a type reference checked in scope.
+     *
+     * @param scope a scope
+     */
+    public void addReference(int scope) {
+        references[scope]++;
+    }
+
+    /**
+     * @param scope a scope
+     * @return the number of type references checked directly in scope
+     */
+    public int getReferences(int scope) {
+        return references[scope];
+    }
+
+    /**
+     * @return the number of scopes entered
+     */
+    public int size() {
+        return size;
+    }
+}
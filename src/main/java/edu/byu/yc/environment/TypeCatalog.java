@@ -0,0 +1,35 @@
+package edu.byu.yc.environment;
+
+import org.eclipse.jdt.core.dom.Name;
+
+/**
+ * Types that are compiled rather than declared in the checked source, such as the JDK's or those
+ * of the jars on a classpath, looked up by name without loading any classes.
+ */
+public interface TypeCatalog {
+
+    /**
+     * The suffix that marks a package in a catalog, as in java.util.*
+     */
+    String PACKAGE_SUFFIX = ".*";
+
+    /**
+     * @param qualifier a package, or a type whose member types are looked up, or "" if name is
+     * fully qualified
+     * @param name a simple or qualified type name
+     * @return true if qualifier.name is a type in the catalog
+     */
+    boolean contains(String qualifier, Name name);
+
+    /**
+     * @param qualifiedName a fully qualified type name, such as java.util.Map.Entry
+     * @return true if it is a type in the catalog
+     */
+    boolean contains(String qualifiedName);
+
+    /**
+     * @param packageName a package, such as java.util
+     * @return true if the catalog has a type in the package
+     */
+    boolean hasPackage(String packageName);
+}
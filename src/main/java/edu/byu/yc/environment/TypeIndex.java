@@ -0,0 +1,107 @@
+package edu.byu.yc.environment;
+
+import org.eclipse.jdt.core.dom.Name;
+import org.eclipse.jdt.core.dom.QualifiedName;
+import org.eclipse.jdt.core.dom.SimpleName;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The names of the types that can be used in a class, stored as a trie of name segments: the root
+ * holds the imported types and the top level types of the package, and each type holds its member
+ * types. Outer.Inner is found by following Outer from the root and then Inner.
+ * <p>
+ * Segments are interned when they are added. Looking up a Name walks its SimpleName identifiers
+ * through the trie, so a lookup never builds a String.
+ */
+public class TypeIndex {
+
+    private final Node root = new Node();
+
+    /**
+     * A type, or the package level scope for the root
+     */
+    public static final class Node {
+        private Map<String, Node> children;
+        private boolean declared;
+
+        /**
+         * @param segment a simple type name
+         * @return the member type with that name, or null if there is none
+         */
+        public Node child(String segment) {
+            return children == null ? null : children.get(segment);
+        }
+
+        /**
+         * @return true if this node is a type that was added to the index, rather than the root
+         */
+        public boolean isDeclared() {
+            return declared;
+        }
+    }
+
+    /**
+     * @return the package level scope, which holds imported and top level types
+     */
+    public Node getRoot() {
+        return root;
+    }
+
+    /**
+     * @return a new scope that cannot be reached from the root, for the local types of a method
+     * body, which are only in scope inside of it
+     */
+    public Node newScope() {
+        return new Node();
+    }
+
+    /**
+     * Add a type named segment inside of parent.
+     *
+     * @param parent the enclosing type, or the root for an imported or top level type
+     * @param segment the simple name of the type
+     * @return the node for the added type
+     */
+    public Node declare(Node parent, String segment) {
+        if (parent.children == null) {
+            parent.children = new HashMap<>(4);
+        }
+        Node child = parent.children.get(segment);
+        if (child == null) {
+            child = new Node();
+            parent.children.put(segment.intern(), child);
+        }
+        child.declared = true;
+        return child;
+    }
+
+    /**
+     * Find the type that name refers to, starting from scope.
+     *
+     * @param scope the type to look in, or the root
+     * @param name a simple or qualified type name
+     * @return the type, or null if scope has no type with that name
+     */
+    public Node find(Node scope, Name name) {
+        if (scope == null) {
+            return null;
+        }
+        if (name.isSimpleName()) {
+            Node found = scope.child(((SimpleName) name).getIdentifier());
+            return found != null && found.declared ? found : null;
+        }
+        QualifiedName qualifiedName = (QualifiedName) name;
+        Node qualifier = find(scope, qualifiedName.getQualifier());
+        return find(qualifier, qualifiedName.getName());
+    }
+
+    /**
+     * @param name a simple or qualified type name
+     * @return true if name is an imported type, a top level type or one of their member types
+     */
+    public boolean contains(Name name) {
+        return find(root, name) != null;
+    }
+}
@@ -0,0 +1,37 @@
+package edu.byu.yc.io;
+
+import java.nio.file.Path;
+
+/**
+ * The decoded contents of a Java file. The contents array may be longer than the file, in which
+ * case everything after length is whitespace, so it can be handed to ASTParser.setSource as is.
+ */
+public class Source {
+
+    private Path path;
+    private char[] contents;
+    private int length;
+
+    public Source(Path path, char[] contents, int length) {
+        this.path = path;
+        this.contents = contents;
+        this.length = length;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public char[] getContents() {
+        return contents;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return new String(contents, 0, length);
+    }
+}
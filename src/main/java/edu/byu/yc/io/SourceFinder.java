@@ -0,0 +1,178 @@
+package edu.byu.yc.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Finds the Java files under a set of files and directories. Directories are walked with
+ * Files.walkFileTree and every matching file is handed to a consumer as soon as it is found, so
+ * the caller can start working on it while the rest of the tree is still being walked.
+ * <p>
+ * Globs are matched against both the path relative to the root being walked and the file name,
+ * so "target" excludes every directory named target while "src/gen/**" only excludes that one.
+ * Symbolic links are followed, and links that loop back to one of their ancestors are skipped.
+ */
+public class SourceFinder {
+
+    private static Logger logger = LoggerFactory.getLogger(SourceFinder.class);
+    private static final String DEFAULT_INCLUDE = "*.java";
+
+    private List<PathMatcher> includes = new ArrayList<>();
+    private List<PathMatcher> excludes = new ArrayList<>();
+
+    public SourceFinder() {
+        this(Collections.<String>emptyList(), Collections.<String>emptyList());
+    }
+
+    /**
+     * @param includeGlobs globs that a file must match to be found, "*.java" if empty
+     * @param excludeGlobs globs for files and directories that should be skipped
+     */
+    public SourceFinder(List<String> includeGlobs, List<String> excludeGlobs) {
+        FileSystem fs = FileSystems.getDefault();
+        for (String glob : includeGlobs.isEmpty() ? Collections.singletonList(DEFAULT_INCLUDE) : includeGlobs) {
+            includes.add(fs.getPathMatcher("glob:" + glob));
+        }
+        for (String glob : excludeGlobs) {
+            excludes.add(fs.getPathMatcher("glob:" + glob));
+        }
+    }
+
+    /**
+     * Walk each of the roots and pass every Java file that is found to the consumer. A root that
+     * is a file is passed along as long as it is a Java file. Unreadable directories and symbolic
+     * link loops are logged and skipped rather than ending the walk.
+     *
+     * @param roots files and directories to search
+     * @param consumer called on the walking thread with each Java file as it is found
+     */
+    public void find(String[] roots, Consumer<Path> consumer) {
+        find(roots, consumer, dir -> { });
+    }
+
+    /**
+     * Walk each of the roots like find, also passing every directory that is walked, including
+     * the roots themselves, to directories.
+     *
+     * @param roots files and directories to search
+     * @param consumer called on the walking thread with each Java file as it is found
+     * @param directories called on the walking thread with each directory before its files
+     */
+    public void find(String[] roots, Consumer<Path> consumer, Consumer<Path> directories) {
+        for (String root : roots) {
+            Path rootPath = Paths.get(root);
+            if (Files.isDirectory(rootPath)) {
+                walk(rootPath, rootPath, consumer, directories);
+            } else if (Files.isRegularFile(rootPath)) {
+                if (root.endsWith(".java")) {
+                    consumer.accept(rootPath);
+                }
+            } else {
+                logger.warn("Skipping {}, no such file or directory", root);
+            }
+        }
+    }
+
+    /**
+     * Find every Java file under the roots.
+     *
+     * @param roots files and directories to search
+     * @return the Java files in the order they were found
+     */
+    public List<Path> findAll(String[] roots) {
+        List<Path> found = new ArrayList<>();
+        find(roots, found::add);
+        return found;
+    }
+
+    /**
+     * Walk a directory that has appeared under root since root was walked, such as one created
+     * while the files are being watched. Globs are still matched relative to root.
+     *
+     * @param root the root that start is in
+     * @param start the directory to walk
+     * @param consumer called on the walking thread with each Java file as it is found
+     * @param directories called on the walking thread with each directory before its files
+     */
+    public void find(Path root, Path start, Consumer<Path> consumer, Consumer<Path> directories) {
+        if (!start.equals(root) && matches(excludes, root, start)) {
+            return;
+        }
+        walk(root, start, consumer, directories);
+    }
+
+    /**
+     * @param root the root that file was found in
+     * @param file a file under root
+     * @return true if walking root would have found file
+     */
+    public boolean isSource(Path root, Path file) {
+        return matches(includes, root, file) && !matches(excludes, root, file);
+    }
+
+    private void walk(final Path root, final Path start, final Consumer<Path> consumer,
+                      final Consumer<Path> directories) {
+        try {
+            Files.walkFileTree(start, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                    new SimpleFileVisitor<Path>() {
+                        @Override
+                        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                            if (!dir.equals(root) && matches(excludes, root, dir)) {
+                                return FileVisitResult.SKIP_SUBTREE;
+                            }
+                            directories.accept(dir);
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                            if (attrs.isRegularFile() && isSource(root, file)) {
+                                consumer.accept(file);
+                            }
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                            if (exc instanceof FileSystemLoopException) {
+                                logger.warn("Skipping {}, symbolic link loop", file);
+                            } else {
+                                logger.warn("Skipping {}, {}", file, exc.toString());
+                            }
+                            return FileVisitResult.CONTINUE;
+                        }
+                    });
+        } catch (IOException ioe) {
+            logger.warn("Unable to walk {}: {}", start, ioe.toString());
+        }
+    }
+
+    private static boolean matches(List<PathMatcher> matchers, Path root, Path path) {
+        Path relative = root.relativize(path);
+        Path name = path.getFileName();
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(relative) || (name != null && matcher.matches(name))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,205 @@
+package edu.byu.yc.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * Loads Java source files straight into a char[] that can be handed to ASTParser.setSource.
+ * <p>
+ * Each file is read into a pooled direct buffer (or memory mapped when it is large) and decoded
+ * once into a char[] that is reused by the calling thread. ASTParser parses the whole array for a
+ * compilation unit, so a reused array that is longer than the file is padded with trailing
+ * spaces; offsets and line numbers are unaffected. The array returned by load is only valid
+ * until the next call to load on the same thread.
+ * <p>
+ * Files that are not valid in the configured charset are decoded again as ISO-8859-1, which maps
+ * every byte to a character, and a warning is logged.
+ */
+public class SourceLoader {
+
+    private static Logger logger = LoggerFactory.getLogger(SourceLoader.class);
+
+    private static final int MIN_BUFFER = 16 * 1024;
+    private static final long MAP_THRESHOLD = 1024 * 1024;
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final Charset charset;
+    private final ThreadLocal<Buffers> buffers;
+
+    public SourceLoader() {
+        this(StandardCharsets.UTF_8);
+    }
+
+    public SourceLoader(final Charset charset) {
+        this.charset = charset;
+        this.buffers = ThreadLocal.withInitial(() -> new Buffers(charset));
+    }
+
+    /**
+     * Read and decode the file at path.
+     *
+     * @param path the Java file to load
+     * @return the decoded source, backed by an array owned by the calling thread
+     * @throws IOException if the file cannot be read
+     */
+    public Source load(Path path) throws IOException {
+        return load(path, null);
+    }
+
+    /**
+     * Read and decode the file at path, adding its raw bytes to digest before they are decoded.
+     *
+     * @param path the Java file to load
+     * @param digest a digest to update with the file's bytes, or null
+     * @return the decoded source, backed by an array owned by the calling thread
+     * @throws IOException if the file cannot be read
+     */
+    public Source load(Path path, MessageDigest digest) throws IOException {
+        Buffers b = buffers.get();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(path + " is too large to parse");
+            }
+            ByteBuffer bytes = size >= MAP_THRESHOLD
+                    ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size)
+                    : b.read(channel, (int) size);
+            if (digest != null) {
+                digest.update(bytes);
+                bytes.rewind();
+            }
+            int length;
+            try {
+                length = b.decode(b.decoder, bytes, (int) size);
+            } catch (CharacterCodingException cce) {
+                logger.warn("{} is not valid {}, reading it as ISO-8859-1", path, charset);
+                bytes.rewind();
+                length = b.decode(b.fallbackDecoder, bytes, (int) size);
+            }
+            return new Source(path, b.lastChars, length);
+        }
+    }
+
+    /**
+     * Per thread buffers. Decoded sources go into char[]s pooled by size class, each class at
+     * most half again as large as the one below it, so a small file never has to be parsed behind
+     * megabytes of padding left over from a large one.
+     */
+    private static final class Buffers {
+        private static final int MIN_CLASS_BITS = 14;
+        private static final int MAX_CLASS_BITS = 23;
+
+        private final CharsetDecoder decoder;
+        private final CharsetDecoder fallbackDecoder;
+        private final char[][] pool = new char[2 * (MAX_CLASS_BITS - MIN_CLASS_BITS) + 1][];
+        private final int[] used = new int[pool.length];
+        private ByteBuffer bytes = ByteBuffer.allocateDirect(MIN_BUFFER);
+        private char[] lastChars;
+
+        private Buffers(Charset charset) {
+            decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT);
+            fallbackDecoder = StandardCharsets.ISO_8859_1.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+
+        private ByteBuffer read(FileChannel channel, int size) throws IOException {
+            if (bytes.capacity() < size) {
+                bytes = ByteBuffer.allocateDirect(Math.max(size, bytes.capacity() * 2));
+            }
+            bytes.clear();
+            bytes.limit(size);
+            while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                // keep reading until the buffer is full or the file ends
+            }
+            bytes.flip();
+            return bytes;
+        }
+
+        /**
+         * Decode in into a pooled array, or into a new array when the file is too large to pool.
+         * Everything after the decoded characters is left as spaces.
+         */
+        private int decode(CharsetDecoder dec, ByteBuffer in, int size) throws CharacterCodingException {
+            int maxChars = (int) Math.min(Integer.MAX_VALUE - 8L,
+                    (long) Math.ceil(size * (double) dec.maxCharsPerByte()) + 1);
+            int sizeClass = sizeClass(maxChars);
+            char[] out;
+            if (sizeClass < 0) {
+                out = new char[maxChars];
+                Arrays.fill(out, ' ');
+            } else {
+                out = pool[sizeClass];
+                if (out == null) {
+                    out = new char[capacity(sizeClass)];
+                    Arrays.fill(out, ' ');
+                    pool[sizeClass] = out;
+                }
+            }
+
+            CharBuffer cb = CharBuffer.wrap(out);
+            dec.reset();
+            try {
+                CoderResult result = dec.decode(in, cb, true);
+                if (result.isUnderflow()) {
+                    result = dec.flush(cb);
+                }
+                if (!result.isUnderflow()) {
+                    result.throwException();
+                }
+            } finally {
+                if (sizeClass >= 0) {
+                    int length = cb.position();
+                    if (used[sizeClass] > length) {
+                        Arrays.fill(out, length, used[sizeClass], ' ');
+                    }
+                    used[sizeClass] = length;
+                }
+            }
+
+            int length = cb.position();
+            if (length > 0 && out[0] == BYTE_ORDER_MARK) {
+                out[0] = ' ';
+            }
+            lastChars = out;
+            return length;
+        }
+
+        /**
+         * @return the pool index for an array of at least n chars, or -1 if n is too large
+         */
+        private static int sizeClass(int n) {
+            if (n <= 1 << MIN_CLASS_BITS) {
+                return 0;
+            }
+            int bits = 32 - Integer.numberOfLeadingZeros(n - 1);
+            if (bits > MAX_CLASS_BITS) {
+                return -1;
+            }
+            int index = 2 * (bits - MIN_CLASS_BITS);
+            return n <= 3 << (bits - 2) ? index - 1 : index;
+        }
+
+        private static int capacity(int sizeClass) {
+            int bits = MIN_CLASS_BITS + (sizeClass + 1) / 2;
+            return sizeClass % 2 == 0 ? 1 << bits : 3 << (bits - 2);
+        }
+    }
+}
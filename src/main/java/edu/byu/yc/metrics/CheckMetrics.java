@@ -0,0 +1,331 @@
+package edu.byu.yc.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import edu.byu.yc.FileResult;
+import edu.byu.yc.Violation;
+
+/**
+ * Where the time of a run goes: the wall time, CPU time and allocated bytes of each phase, the
+ * nodes, types and violations of each file, the distribution of the time files take and the
+ * slowest files.
+ * <p>
+ * Every worker records into the same CheckMetrics. Totals are LongAdders, so recording a file
+ * does not contend with the other workers; only the ranking of the slowest files takes a lock,
+ * and only for a file that is slower than the fastest one ranked. File times are counted in
+ * buckets of powers of two microseconds, so percentiles are upper bounds within a factor of two.
+ */
+public class CheckMetrics implements CheckMetricsMXBean {
+
+    private static Logger logger = LoggerFactory.getLogger(CheckMetrics.class);
+
+    public static final String OBJECT_NAME = "edu.byu.yc:type=CheckMetrics";
+
+    /**
+     * Metrics that record nothing, for checkers that are not measured
+     */
+    public static final CheckMetrics DISABLED = new CheckMetrics(false);
+
+    private static final int SLOWEST_FILES = 20;
+    private static final int PHASES = Phase.values().length;
+    private static final Comparator<FileTiming> BY_WALL_TIME = Comparator.comparingLong(FileTiming::getWallMicros);
+
+    private final boolean enabled;
+    private final LongAdder[] phaseCounts = adders(PHASES);
+    private final LongAdder[] phaseWallNanos = adders(PHASES);
+    private final LongAdder[] phaseCpuNanos = adders(PHASES);
+    private final LongAdder[] phaseAllocatedBytes = adders(PHASES);
+    private final LongAdder files = new LongAdder();
+    private final LongAdder cachedFiles = new LongAdder();
+    private final LongAdder nodesVisited = new LongAdder();
+    private final LongAdder typesChecked = new LongAdder();
+    private final LongAdder[] fileMicrosLog2 = adders(64);
+    private final ConcurrentMap<String, LongAdder> violationsByRule = new ConcurrentHashMap<>();
+    private final PriorityQueue<FileTiming> slowest = new PriorityQueue<>(SLOWEST_FILES + 1, BY_WALL_TIME);
+    private volatile long slowestThreshold;
+
+    public CheckMetrics() {
+        this(true);
+    }
+
+    private CheckMetrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    private static LongAdder[] adders(int n) {
+        LongAdder[] adders = new LongAdder[n];
+        for (int i = 0; i < n; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Register these metrics with the platform MBeanServer, replacing any registered before.
+     */
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException | SecurityException e) {
+            logger.warn("Unable to register metrics with JMX: {}", e.toString());
+        }
+    }
+
+    /**
+     * Start measuring a file on the current thread.
+     *
+     * @param path the file
+     * @return the file's measurements, which must be finished on the same thread
+     */
+    public FileMetrics startFile(String path) {
+        return enabled ? new FileMetrics(this, path) : FileMetrics.DISABLED;
+    }
+
+    /**
+     * Measure a phase that is not part of any one file, such as expanding the paths.
+     *
+     * @param phase the phase task is
+     * @param task the work to measure, run on the current thread
+     */
+    public void time(Phase phase, Runnable task) {
+        measure(phase, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Measure a phase that is not part of any one file and that has a result, such as indexing
+     * a file that is not checked.
+     *
+     * @param phase the phase task is
+     * @param task the work to measure, run on the current thread
+     * @return the result of task
+     */
+    public <T> T measure(Phase phase, Supplier<T> task) {
+        if (!enabled) {
+            return task.get();
+        }
+        long wall = System.nanoTime();
+        long cpu = ThreadClock.cpuNanos();
+        long allocated = ThreadClock.allocatedBytes();
+        T result = task.get();
+        int i = phase.ordinal();
+        phaseCounts[i].increment();
+        phaseWallNanos[i].add(System.nanoTime() - wall);
+        phaseCpuNanos[i].add(ThreadClock.cpuNanos() - cpu);
+        phaseAllocatedBytes[i].add(ThreadClock.allocatedBytes() - allocated);
+        return result;
+    }
+
+    /**
+     * Take the time a measured phase spent blocked on other work, such as waiting for a worker to
+     * take a file, back out of the phase's wall time.
+     *
+     * @param phase the phase that waited
+     * @param nanos how long it waited
+     */
+    public void excludeWait(Phase phase, long nanos) {
+        if (enabled) {
+            phaseWallNanos[phase.ordinal()].add(-nanos);
+        }
+    }
+
+    void record(FileMetrics file, FileResult result, long nodes, long types, boolean cached) {
+        long wallNanos = 0;
+        long cpuNanos = 0;
+        long allocatedBytes = 0;
+        for (Phase phase : Phase.values()) {
+            int i = phase.ordinal();
+            long wall = file.getWallNanos(phase);
+            if (wall != 0) {
+                phaseCounts[i].increment();
+                phaseWallNanos[i].add(wall);
+                phaseCpuNanos[i].add(file.getCpuNanos(phase));
+                phaseAllocatedBytes[i].add(file.getAllocatedBytes(phase));
+            }
+            wallNanos += wall;
+            cpuNanos += file.getCpuNanos(phase);
+            allocatedBytes += file.getAllocatedBytes(phase);
+        }
+        files.increment();
+        if (cached) {
+            cachedFiles.increment();
+        }
+        nodesVisited.add(nodes);
+        typesChecked.add(types);
+        count(result.getAllCaps());
+        count(result.getTypeViolations());
+
+        long wallMicros = wallNanos / 1000;
+        fileMicrosLog2[64 - Long.numberOfLeadingZeros(wallMicros)].increment();
+        if (wallMicros > slowestThreshold) {
+            rank(new FileTiming(file.getPath(), wallMicros, cpuNanos / 1000, allocatedBytes, nodes,
+                    result.getAllCaps().size() + result.getTypeViolations().size()));
+        }
+    }
+
+    private void count(List<Violation> violations) {
+        for (Violation violation : violations) {
+            violationsByRule.computeIfAbsent(violation.getRuleId(), r -> new LongAdder()).increment();
+        }
+    }
+
+    private void rank(FileTiming timing) {
+        synchronized (slowest) {
+            slowest.add(timing);
+            if (slowest.size() > SLOWEST_FILES) {
+                slowest.poll();
+                slowestThreshold = slowest.peek().getWallMicros();
+            }
+        }
+    }
+
+    @Override
+    public long getFilesChecked() {
+        return files.sum();
+    }
+
+    @Override
+    public long getCachedFiles() {
+        return cachedFiles.sum();
+    }
+
+    @Override
+    public long getNodesVisited() {
+        return nodesVisited.sum();
+    }
+
+    @Override
+    public long getTypesChecked() {
+        return typesChecked.sum();
+    }
+
+    @Override
+    public Map<String, Long> getViolationsByRule() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : violationsByRule.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().sum());
+        }
+        return counts;
+    }
+
+    @Override
+    public List<PhaseTotals> getPhases() {
+        List<PhaseTotals> phases = new ArrayList<>(PHASES);
+        for (Phase phase : Phase.values()) {
+            int i = phase.ordinal();
+            phases.add(new PhaseTotals(phase.getLabel(), phaseCounts[i].sum(), phaseWallNanos[i].sum() / 1000000,
+                    phaseCpuNanos[i].sum() / 1000000, phaseAllocatedBytes[i].sum()));
+        }
+        return phases;
+    }
+
+    @Override
+    public List<FileTiming> getSlowestFiles() {
+        List<FileTiming> ranked;
+        synchronized (slowest) {
+            ranked = new ArrayList<>(slowest);
+        }
+        ranked.sort(Collections.reverseOrder(BY_WALL_TIME));
+        return ranked;
+    }
+
+    @Override
+    public long getMedianFileMicros() {
+        return fileMicrosPercentile(0.5);
+    }
+
+    @Override
+    public long getP99FileMicros() {
+        return fileMicrosPercentile(0.99);
+    }
+
+    /**
+     * @param fraction the fraction of files, such as 0.99
+     * @return the power of two microseconds that at least that fraction of files took no longer than
+     */
+    long fileMicrosPercentile(double fraction) {
+        long total = 0;
+        for (LongAdder bucket : fileMicrosLog2) {
+            total += bucket.sum();
+        }
+        long needed = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int i = 0; i < fileMicrosLog2.length; i++) {
+            seen += fileMicrosLog2[i].sum();
+            if (seen >= needed && seen > 0) {
+                return i == 0 ? 0 : 1L << i;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder[] adders : new LongAdder[][]{phaseCounts, phaseWallNanos, phaseCpuNanos, phaseAllocatedBytes,
+                fileMicrosLog2}) {
+            for (LongAdder adder : adders) {
+                adder.reset();
+            }
+        }
+        files.reset();
+        cachedFiles.reset();
+        nodesVisited.reset();
+        typesChecked.reset();
+        violationsByRule.clear();
+        synchronized (slowest) {
+            slowest.clear();
+            slowestThreshold = 0;
+        }
+    }
+
+    /**
+     * @return the metrics as the text of the --stats report
+     */
+    public String format() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "Checked %d files (%d from the cache), %d nodes, %d types%n",
+                getFilesChecked(), getCachedFiles(), getNodesVisited(), getTypesChecked()));
+        report.append(String.format(Locale.ROOT, "File time: median <= %d us, p99 <= %d us%n",
+                getMedianFileMicros(), getP99FileMicros()));
+        report.append("Violations before resolution: ").append(getViolationsByRule()).append(System.lineSeparator());
+        report.append(String.format(Locale.ROOT, "%-40s %8s %10s %10s %12s%n", "Phase (summed over threads)", "count",
+                "wall ms", "cpu ms", "alloc MB"));
+        for (PhaseTotals phase : getPhases()) {
+            report.append(String.format(Locale.ROOT, "%-40s %8d %10d %10d %12.1f%n", phase.getPhase(), phase.getCount(),
+                    phase.getWallMillis(), phase.getCpuMillis(), phase.getAllocatedBytes() / (1024.0 * 1024.0)));
+        }
+        report.append("Slowest files:").append(System.lineSeparator());
+        for (FileTiming file : getSlowestFiles()) {
+            report.append(String.format(Locale.ROOT, "%10d us %10d us cpu %10.1f KB %8d nodes %4d violations  %s%n",
+                    file.getWallMicros(), file.getCpuMicros(), file.getAllocatedBytes() / 1024.0,
+                    file.getNodesVisited(), file.getViolations(), file.getPath()));
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,52 @@
+package edu.byu.yc.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The metrics of a running checker, registered with the platform MBeanServer as
+ * edu.byu.yc:type=CheckMetrics so that jconsole or any JMX client can read them while it runs.
+ */
+public interface CheckMetricsMXBean {
+
+    long getFilesChecked();
+
+    /**
+     * @return the number of files whose results came from the cache
+     */
+    long getCachedFiles();
+
+    long getNodesVisited();
+
+    /**
+     * @return the number of type references TypeVisitor checked
+     */
+    long getTypesChecked();
+
+    /**
+     * @return the number of violations of each rule, before types are resolved across files
+     */
+    Map<String, Long> getViolationsByRule();
+
+    List<PhaseTotals> getPhases();
+
+    /**
+     * @return the slowest files, slowest first
+     */
+    List<FileTiming> getSlowestFiles();
+
+    /**
+     * @return the median time to check a file, rounded up to a power of two microseconds
+     */
+    long getMedianFileMicros();
+
+    /**
+     * @return the 99th percentile time to check a file, rounded up to a power of two microseconds
+     */
+    long getP99FileMicros();
+
+    /**
+     * Start counting again from zero, for a daemon between measurements
+     */
+    void reset();
+}
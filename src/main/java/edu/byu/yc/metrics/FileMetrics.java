@@ -0,0 +1,84 @@
+package edu.byu.yc.metrics;
+
+import edu.byu.yc.FileResult;
+
+/**
+ * The measurements of one file as it is checked, on the thread that checks it. Each lap records
+ * the wall time, CPU time and bytes allocated since the file was started or the last lap, and
+ * finish adds the file to the run's totals.
+ */
+public class FileMetrics {
+
+    static final FileMetrics DISABLED = new FileMetrics(null, null);
+
+    private static final int PHASES = Phase.values().length;
+
+    private final CheckMetrics owner;
+    private final String path;
+    private final long[] wallNanos = new long[PHASES];
+    private final long[] cpuNanos = new long[PHASES];
+    private final long[] allocatedBytes = new long[PHASES];
+    private long lastWall;
+    private long lastCpu;
+    private long lastAllocated;
+
+    FileMetrics(CheckMetrics owner, String path) {
+        this.owner = owner;
+        this.path = path;
+        if (owner != null) {
+            lastWall = System.nanoTime();
+            lastCpu = ThreadClock.cpuNanos();
+            lastAllocated = ThreadClock.allocatedBytes();
+        }
+    }
+
+    /**
+     * Charge the time since the last lap to phase.
+     *
+     * @param phase the phase that just ended
+     */
+    public void lap(Phase phase) {
+        if (owner == null) {
+            return;
+        }
+        long wall = System.nanoTime();
+        long cpu = ThreadClock.cpuNanos();
+        long allocated = ThreadClock.allocatedBytes();
+        wallNanos[phase.ordinal()] += wall - lastWall;
+        cpuNanos[phase.ordinal()] += cpu - lastCpu;
+        allocatedBytes[phase.ordinal()] += allocated - lastAllocated;
+        lastWall = wall;
+        lastCpu = cpu;
+        lastAllocated = allocated;
+    }
+
+    /**
+     * Add the file to the totals of its run.
+     *
+     * @param result the file's results, before they are resolved against the project
+     * @param nodesVisited the number of nodes walked, 0 if the file was not parsed
+     * @param typesChecked the number of type references checked
+     * @param cached true if the results came from the cache
+     */
+    public void finish(FileResult result, long nodesVisited, long typesChecked, boolean cached) {
+        if (owner != null) {
+            owner.record(this, result, nodesVisited, typesChecked, cached);
+        }
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    long getWallNanos(Phase phase) {
+        return wallNanos[phase.ordinal()];
+    }
+
+    long getCpuNanos(Phase phase) {
+        return cpuNanos[phase.ordinal()];
+    }
+
+    long getAllocatedBytes(Phase phase) {
+        return allocatedBytes[phase.ordinal()];
+    }
+}
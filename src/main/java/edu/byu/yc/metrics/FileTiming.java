@@ -0,0 +1,48 @@
+package edu.byu.yc.metrics;
+
+/**
+ * The cost of checking one file, for ranking the slowest files
+ */
+public class FileTiming {
+
+    private final String path;
+    private final long wallMicros;
+    private final long cpuMicros;
+    private final long allocatedBytes;
+    private final long nodesVisited;
+    private final long violations;
+
+    public FileTiming(String path, long wallMicros, long cpuMicros, long allocatedBytes, long nodesVisited,
+                      long violations) {
+        this.path = path;
+        this.wallMicros = wallMicros;
+        this.cpuMicros = cpuMicros;
+        this.allocatedBytes = allocatedBytes;
+        this.nodesVisited = nodesVisited;
+        this.violations = violations;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public long getWallMicros() {
+        return wallMicros;
+    }
+
+    public long getCpuMicros() {
+        return cpuMicros;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public long getNodesVisited() {
+        return nodesVisited;
+    }
+
+    public long getViolations() {
+        return violations;
+    }
+}
@@ -0,0 +1,46 @@
+package edu.byu.yc.metrics;
+
+/**
+ * The steps that checking a project is timed in.
+ */
+public enum Phase {
+
+    /**
+     * Walking the paths given on the command line to find the Java files in them
+     */
+    EXPAND("expand"),
+
+    /**
+     * Reading and decoding a file, and looking it up in the cache
+     */
+    READ_FILE("readFile"),
+
+    PARSE("parse"),
+
+    /**
+     * The first walk of a file's tree. QualifiedClassVisitor and NamingVisitor share the walk, so
+     * their time is measured together.
+     */
+    DECLARATIONS("QualifiedClassVisitor+NamingVisitor"),
+
+    /**
+     * The second walk of a file's tree, by TypeVisitor
+     */
+    TYPES("TypeVisitor"),
+
+    /**
+     * Reading a file of the source path that is not checked, parsing its declarations and
+     * collecting the types it declares
+     */
+    INDEX("indexDeclarations");
+
+    private final String label;
+
+    Phase(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
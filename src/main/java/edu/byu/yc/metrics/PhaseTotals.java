@@ -0,0 +1,44 @@
+package edu.byu.yc.metrics;
+
+/**
+ * The totals of one phase across every file of a run, summed over all threads
+ */
+public class PhaseTotals {
+
+    private final String phase;
+    private final long count;
+    private final long wallMillis;
+    private final long cpuMillis;
+    private final long allocatedBytes;
+
+    public PhaseTotals(String phase, long count, long wallMillis, long cpuMillis, long allocatedBytes) {
+        this.phase = phase;
+        this.count = count;
+        this.wallMillis = wallMillis;
+        this.cpuMillis = cpuMillis;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    /**
+     * @return the number of times the phase ran, usually once per file
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public long getWallMillis() {
+        return wallMillis;
+    }
+
+    public long getCpuMillis() {
+        return cpuMillis;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+}
@@ -0,0 +1,36 @@
+package edu.byu.yc.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * The CPU time and allocated bytes of the current thread, or 0 where the JVM cannot measure them.
+ * Allocated bytes come from HotSpot's extension of ThreadMXBean.
+ */
+final class ThreadClock {
+
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private static final boolean cpuSupported = threads.isCurrentThreadCpuTimeSupported();
+    private static final com.sun.management.ThreadMXBean allocations = allocations();
+
+    private ThreadClock() {
+    }
+
+    private static com.sun.management.ThreadMXBean allocations() {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+            if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+                return hotspot;
+            }
+        }
+        return null;
+    }
+
+    static long cpuNanos() {
+        return cpuSupported ? threads.getCurrentThreadCpuTime() : 0;
+    }
+
+    static long allocatedBytes() {
+        return allocations != null ? allocations.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+}
@@ -0,0 +1,119 @@
+package edu.byu.yc.naming;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.FieldDeclaration;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.Modifier;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+
+import edu.byu.yc.Violation;
+
+/**
+ * The kinds of declaration whose names can be given a naming convention.
+ */
+public enum DeclarationKind {
+
+    /**
+     * Classes, interfaces, enums and annotations
+     */
+    TYPE("type"),
+
+    /**
+     * Methods and annotation members, but not constructors, which are named after their type
+     */
+    METHOD("method"),
+
+    /**
+     * Fields that are not constants
+     */
+    FIELD("field"),
+
+    /**
+     * Static final fields, interface fields and enum constants
+     */
+    CONSTANT("constant"),
+
+    /**
+     * Local variables and parameters
+     */
+    VARIABLE("variable");
+
+    private final String label;
+    private final String ruleId;
+
+    DeclarationKind(String label) {
+        this.label = label;
+        this.ruleId = Violation.NAMING_PREFIX + label;
+    }
+
+    /**
+     * @return the name of the kind on the command line, such as method
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return the rule that a name of this kind violates when it breaks its convention
+     */
+    public String getRuleId() {
+        return ruleId;
+    }
+
+    /**
+     * @param name a name
+     * @return the kind of declaration name declares, or null if it is not the name of a
+     * declaration or is the name of one without a convention, such as a constructor or label
+     */
+    public static DeclarationKind of(SimpleName name) {
+        if (!name.isDeclaration()) {
+            return null;
+        }
+        ASTNode parent = name.getParent();
+        switch (parent.getNodeType()) {
+            case ASTNode.TYPE_DECLARATION:
+            case ASTNode.ENUM_DECLARATION:
+            case ASTNode.ANNOTATION_TYPE_DECLARATION:
+                return TYPE;
+            case ASTNode.METHOD_DECLARATION:
+                return ((MethodDeclaration) parent).isConstructor() ? null : METHOD;
+            case ASTNode.ANNOTATION_TYPE_MEMBER_DECLARATION:
+                return METHOD;
+            case ASTNode.ENUM_CONSTANT_DECLARATION:
+                return CONSTANT;
+            case ASTNode.SINGLE_VARIABLE_DECLARATION:
+                return VARIABLE;
+            case ASTNode.VARIABLE_DECLARATION_FRAGMENT:
+                ASTNode declaration = parent.getParent();
+                return declaration instanceof FieldDeclaration ? fieldKind((FieldDeclaration) declaration) : VARIABLE;
+            default:
+                return null;
+        }
+    }
+
+    private static DeclarationKind fieldKind(FieldDeclaration field) {
+        int modifiers = field.getModifiers();
+        if (Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers)) {
+            return CONSTANT;
+        }
+        ASTNode type = field.getParent();
+        boolean inInterface = type instanceof TypeDeclaration && ((TypeDeclaration) type).isInterface()
+                || type.getNodeType() == ASTNode.ANNOTATION_TYPE_DECLARATION;
+        return inInterface ? CONSTANT : FIELD;
+    }
+
+    /**
+     * @param label the name of a kind on the command line
+     * @return the kind
+     * @throws IllegalArgumentException if no kind has that name
+     */
+    public static DeclarationKind parse(String label) {
+        for (DeclarationKind kind : values()) {
+            if (kind.label.equals(label)) {
+                return kind;
+            }
+        }
+        throw new IllegalArgumentException("Unknown declaration kind " + label);
+    }
+}
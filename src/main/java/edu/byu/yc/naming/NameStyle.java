@@ -0,0 +1,121 @@
+package edu.byu.yc.naming;
+
+/**
+ * The shapes an identifier can have. An identifier is classified once, in a single pass over its
+ * characters that allocates nothing, into a set of flags; each style is then a test of the flags.
+ */
+public enum NameStyle {
+
+    /**
+     * No character that has a different upper case form, such as STUFF, A, X1 or UTF_8
+     */
+    ALL_CAPS("ALL_CAPS") {
+        @Override
+        public boolean matches(int shape) {
+            return (shape & LOWER) == 0;
+        }
+    },
+
+    /**
+     * Upper case words joined by single underscores, such as MAX_VALUE
+     */
+    CONSTANT_CASE("CONSTANT_CASE") {
+        @Override
+        public boolean matches(int shape) {
+            return (shape & (FIRST_UPPER | LOWER | DOLLAR | BAD_UNDERSCORE)) == FIRST_UPPER;
+        }
+    },
+
+    /**
+     * A lower case letter followed by letters and digits, such as getValue
+     */
+    CAMEL_CASE("camelCase") {
+        @Override
+        public boolean matches(int shape) {
+            return (shape & (FIRST_LOWER | UNDERSCORE | DOLLAR)) == FIRST_LOWER;
+        }
+    },
+
+    /**
+     * An upper case letter followed by letters and digits, such as FileChecker
+     */
+    PASCAL_CASE("PascalCase") {
+        @Override
+        public boolean matches(int shape) {
+            return (shape & (FIRST_UPPER | UNDERSCORE | DOLLAR)) == FIRST_UPPER;
+        }
+    };
+
+    static final int LOWER = 1;
+    static final int FIRST_UPPER = 1 << 1;
+    static final int FIRST_LOWER = 1 << 2;
+    static final int UNDERSCORE = 1 << 3;
+    static final int DOLLAR = 1 << 4;
+    /**
+     * A leading or trailing underscore, or two in a row
+     */
+    static final int BAD_UNDERSCORE = 1 << 5;
+
+    private final String label;
+
+    NameStyle(String label) {
+        this.label = label;
+    }
+
+    /**
+     * @param shape the shape of an identifier, from classify
+     * @return true if an identifier of that shape has this style
+     */
+    public abstract boolean matches(int shape);
+
+    /**
+     * @return the name of the style on the command line, such as camelCase
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Classify an identifier in one pass over its characters.
+     *
+     * @param identifier a Java identifier
+     * @return its shape, to be tested with matches
+     */
+    public static int classify(String identifier) {
+        int length = identifier.length();
+        if (length == 0) {
+            return 0;
+        }
+        int first = identifier.codePointAt(0);
+        int shape = Character.isUpperCase(first) ? FIRST_UPPER : Character.isLowerCase(first) ? FIRST_LOWER : 0;
+        int previous = 0;
+        for (int i = 0; i < length; ) {
+            int c = identifier.codePointAt(i);
+            i += Character.charCount(c);
+            if (c == '_') {
+                shape |= previous == '_' || previous == 0 || i == length ? UNDERSCORE | BAD_UNDERSCORE : UNDERSCORE;
+            } else if (c == '$') {
+                shape |= DOLLAR;
+            } else if (Character.toUpperCase(c) != c || Character.isLowerCase(c)) {
+                // isLowerCase catches letters such as the German sharp s, whose upper case is two letters
+                shape |= LOWER;
+            }
+            previous = c;
+        }
+        return shape;
+    }
+
+    /**
+     * @param label the name of a style on the command line
+     * @return the style
+     * @throws IllegalArgumentException if no style has that name
+     */
+    public static NameStyle parse(String label) {
+        for (NameStyle style : values()) {
+            if (style.label.equals(label)) {
+                return style;
+            }
+        }
+        throw new IllegalArgumentException("Unknown naming style " + label);
+    }
+}
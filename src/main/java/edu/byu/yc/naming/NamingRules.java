@@ -0,0 +1,86 @@
+package edu.byu.yc.naming;
+
+/**
+ * The naming convention each kind of declaration must follow, on top of the rule that no name
+ * is all caps. Rules are immutable and shared by every visitor; looking up the style of a kind
+ * is an array access.
+ */
+public class NamingRules {
+
+    /**
+     * Only the rule that no name is all caps
+     */
+    public static final NamingRules DEFAULT = new NamingRules(new NameStyle[DeclarationKind.values().length]);
+
+    /**
+     * The usual Java conventions, given as --naming java
+     */
+    public static final NamingRules JAVA = parse("type=PascalCase,method=camelCase,field=camelCase,"
+            + "constant=CONSTANT_CASE,variable=camelCase");
+
+    private final NameStyle[] styles;
+
+    private NamingRules(NameStyle[] styles) {
+        this.styles = styles;
+    }
+
+    /**
+     * @param spec kind=style pairs separated by commas, such as method=camelCase,constant=CONSTANT_CASE,
+     * or java for the usual Java conventions
+     * @return the rules
+     * @throws IllegalArgumentException if a kind or style is unknown or a pair is malformed
+     */
+    public static NamingRules parse(String spec) {
+        if ("java".equals(spec)) {
+            return JAVA;
+        }
+        NameStyle[] styles = new NameStyle[DeclarationKind.values().length];
+        for (String pair : spec.split(",")) {
+            int equals = pair.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Expected kind=style but found " + pair);
+            }
+            DeclarationKind kind = DeclarationKind.parse(pair.substring(0, equals).trim());
+            styles[kind.ordinal()] = NameStyle.parse(pair.substring(equals + 1).trim());
+        }
+        return new NamingRules(styles);
+    }
+
+    /**
+     * @param kind a kind of declaration
+     * @return the style names of that kind must have, or null if they may have any
+     */
+    public NameStyle getStyle(DeclarationKind kind) {
+        return styles[kind.ordinal()];
+    }
+
+    /**
+     * @return true if some kind of declaration has a convention
+     */
+    public boolean hasConventions() {
+        for (NameStyle style : styles) {
+            if (style != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the rules as kind=style pairs, in the form parse accepts
+     */
+    @Override
+    public String toString() {
+        StringBuilder spec = new StringBuilder();
+        for (DeclarationKind kind : DeclarationKind.values()) {
+            NameStyle style = styles[kind.ordinal()];
+            if (style != null) {
+                if (spec.length() > 0) {
+                    spec.append(',');
+                }
+                spec.append(kind.getLabel()).append('=').append(style.getLabel());
+            }
+        }
+        return spec.toString();
+    }
+}
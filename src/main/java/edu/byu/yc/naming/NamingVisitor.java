@@ -0,0 +1,68 @@
+package edu.byu.yc.naming;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.SimpleName;
+
+import edu.byu.yc.Violation;
+
+/**
+ * Checks every name in a tree against the naming rules: the first use of each all caps name,
+ * and each declaration whose name does not have its kind's style.
+ * <p>
+ * SimpleName is the most common node in any tree, so a name that breaks no rule costs one pass
+ * over its characters and allocates nothing. The kind of declaration is only worked out for
+ * names that declare something, and only when some kind has a convention.
+ */
+public class NamingVisitor extends ASTVisitor {
+
+    /**
+     * The node types this visitor handles, for subscribing it to a TraversalEngine
+     */
+    public static final int[] NODE_TYPES = {ASTNode.SIMPLE_NAME};
+
+    private final String file;
+    private final NamingRules rules;
+    private final boolean conventions;
+    private final Set<String> allCapsNames = new HashSet<>();
+    private final List<Violation> violations = new ArrayList<>();
+
+    /**
+     * @param file the file the visited tree was parsed from, recorded in each violation
+     * @param rules the conventions of each kind of declaration
+     */
+    public NamingVisitor(String file, NamingRules rules) {
+        this.file = file;
+        this.rules = rules;
+        this.conventions = rules.hasConventions();
+    }
+
+    @Override
+    public boolean visit(SimpleName sn) {
+        String name = sn.getIdentifier();
+        int shape = NameStyle.classify(name);
+        if (NameStyle.ALL_CAPS.matches(shape) && allCapsNames.add(name)) {
+            violations.add(Violation.at(Violation.ALL_CAPS, file, name, sn));
+        }
+        if (conventions) {
+            DeclarationKind kind = DeclarationKind.of(sn);
+            NameStyle style = kind == null ? null : rules.getStyle(kind);
+            if (style != null && !style.matches(shape)) {
+                violations.add(Violation.at(kind.getRuleId(), file, name, sn));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the violations in the order they appear in the tree
+     */
+    public List<Violation> getViolations() {
+        return violations;
+    }
+}
@@ -0,0 +1,50 @@
+package edu.byu.yc.report;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import edu.byu.yc.FileResult;
+import edu.byu.yc.Violation;
+
+/**
+ * Writes each violation as a JSON object on a line of its own:
+ * <pre>
+ * {"file":"A.java","line":3,"column":5,"offset":28,"length":1,"rule":"undeclared-type","name":"B","message":"Invalid type used B"}
+ * </pre>
+ */
+public class JsonLinesReportWriter extends ReportWriter {
+
+    public JsonLinesReportWriter(Writer out) {
+        super(out);
+    }
+
+    @Override
+    public void write(FileResult result) throws IOException {
+        for (Violation v : result.getAllCaps()) {
+            write(v);
+        }
+        for (Violation v : result.getTypeViolations()) {
+            write(v);
+        }
+    }
+
+    private void write(Violation v) throws IOException {
+        out.write("{\"file\":");
+        writeJson(v.getFile());
+        out.write(",\"line\":");
+        out.write(Integer.toString(v.getLine()));
+        out.write(",\"column\":");
+        out.write(Integer.toString(v.getColumn()));
+        out.write(",\"offset\":");
+        out.write(Integer.toString(v.getStartOffset()));
+        out.write(",\"length\":");
+        out.write(Integer.toString(v.getLength()));
+        out.write(",\"rule\":");
+        writeJson(v.getRuleId());
+        out.write(",\"name\":");
+        writeJson(v.getName());
+        out.write(",\"message\":");
+        writeJson(message(v));
+        out.write("}\n");
+    }
+}
@@ -0,0 +1,49 @@
+package edu.byu.yc.report;
+
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * The formats violations can be reported in.
+ */
+public enum ReportFormat {
+
+    /**
+     * One file:line:column: message line per violation, followed by the source line it is on
+     */
+    TEXT,
+
+    /**
+     * One JSON object per violation per line
+     */
+    JSONL,
+
+    /**
+     * A single SARIF 2.1.0 log, for code scanning dashboards
+     */
+    SARIF;
+
+    /**
+     * @param name a format's name, in any case
+     * @return the format
+     * @throws IllegalArgumentException if there is no such format
+     */
+    public static ReportFormat parse(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * @param out where to write the report
+     * @return a writer of this format
+     */
+    public ReportWriter newWriter(Writer out) {
+        switch (this) {
+            case JSONL:
+                return new JsonLinesReportWriter(out);
+            case SARIF:
+                return new SarifReportWriter(out);
+            default:
+                return new TextReportWriter(out);
+        }
+    }
+}
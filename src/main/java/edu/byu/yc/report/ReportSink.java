@@ -0,0 +1,140 @@
+package edu.byu.yc.report;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+import edu.byu.yc.FileResult;
+
+/**
+ * Reports results on a thread of its own, so that the threads checking files never wait on
+ * formatting or on the output.
+ * <p>
+ * Results are handed over through a bounded queue, and accept blocks while the queue is full, so
+ * a slow consumer of the report slows the checkers down instead of letting results pile up in
+ * memory. The reporting thread takes results in batches and only flushes its writer once it has
+ * caught up with the queue, so a large run is written in a few large writes, while a watch session
+ * that reports one file at a time still sees each file right away.
+ */
+public class ReportSink implements Consumer<FileResult>, Closeable {
+
+    private static Logger logger = LoggerFactory.getLogger(ReportSink.class);
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final int MAX_BATCH = 256;
+    private static final FileResult END = new FileResult("", Collections.emptyList(), Collections.emptyList(),
+            Collections.<String>emptySet());
+
+    private final ReportWriter writer;
+    private final BlockingQueue<FileResult> queue;
+    private final Thread thread;
+    private volatile IOException failure;
+    private boolean closed;
+
+    /**
+     * Start the reporting thread and write the start of the report.
+     *
+     * @param writer formats the results
+     * @param capacity the number of results that can wait to be written
+     */
+    public ReportSink(ReportWriter writer, int capacity) {
+        this.writer = writer;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(this::run, "report-sink");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queue a file's results to be written, waiting for room in the queue if it is full.
+     *
+     * @param result the file's results
+     */
+    @Override
+    public void accept(FileResult result) {
+        try {
+            queue.put(result);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reporting " + result.getPath(), ie);
+        }
+    }
+
+    private void run() {
+        List<FileResult> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            write(writer::start);
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+                for (FileResult result : batch) {
+                    if (result == END) {
+                        write(writer::finish);
+                        return;
+                    }
+                    write(() -> writer.write(result));
+                }
+                batch.clear();
+                if (queue.isEmpty()) {
+                    write(writer::flush);
+                }
+            }
+        } catch (InterruptedException ie) {
+            failure = new IOException("Interrupted while reporting", ie);
+        }
+    }
+
+    /**
+     * Once a write has failed, the rest of the results are still taken from the queue, so that
+     * the checkers are not blocked, but are dropped.
+     */
+    private void write(Write write) {
+        if (failure != null) {
+            return;
+        }
+        try {
+            write.run();
+        } catch (IOException ioe) {
+            logger.error("Unable to write the report: {}", ioe.toString());
+            failure = ioe;
+        }
+    }
+
+    /**
+     * Write every result that was accepted and the end of the report, then close the writer.
+     *
+     * @throws IOException if any of the report could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        accept(END);
+        try {
+            thread.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while finishing the report", ie);
+        } finally {
+            writer.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private interface Write {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,106 @@
+package edu.byu.yc.report;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+import edu.byu.yc.FileResult;
+import edu.byu.yc.Violation;
+
+/**
+ * Formats the results of each file as it is checked. A ReportWriter is only used by one thread at
+ * a time, and closing it closes the Writer it was given.
+ */
+public abstract class ReportWriter implements Closeable {
+
+    protected final Writer out;
+
+    protected ReportWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Write whatever comes before the first file.
+     */
+    public void start() throws IOException {
+    }
+
+    /**
+     * Write the violations of one file, or nothing if it has none.
+     *
+     * @param result the file's results
+     */
+    public abstract void write(FileResult result) throws IOException;
+
+    /**
+     * Write whatever comes after the last file, and flush.
+     */
+    public void finish() throws IOException {
+        out.flush();
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * @param violation a violation
+     * @return the sentence describing it in every format
+     */
+    protected static String message(Violation violation) {
+        switch (violation.getRuleId()) {
+            case Violation.ALL_CAPS:
+                return "Found a name that is all caps: " + violation.getName();
+            case Violation.UNRESOLVED_IMPORT:
+                return "Unresolved import " + violation.getName();
+            default:
+                if (violation.getRuleId().startsWith(Violation.NAMING_PREFIX)) {
+                    return "Found a " + violation.getRuleId().substring(Violation.NAMING_PREFIX.length())
+                            + " name that breaks its naming convention: " + violation.getName();
+                }
+                return "Invalid type used " + violation.getName();
+        }
+    }
+
+    /**
+     * Write s as a JSON string, with its quotes.
+     */
+    protected void writeJson(String s) throws IOException {
+        out.write('"');
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            out.write(s, start, i - start);
+            start = i + 1;
+            switch (c) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    out.write(String.format("\\u%04x", (int) c));
+            }
+        }
+        out.write(s, start, s.length() - start);
+        out.write('"');
+    }
+}
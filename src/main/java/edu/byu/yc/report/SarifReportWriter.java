@@ -0,0 +1,98 @@
+package edu.byu.yc.report;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import edu.byu.yc.FileResult;
+import edu.byu.yc.TypeChecker;
+import edu.byu.yc.Violation;
+
+/**
+ * Writes a SARIF 2.1.0 log with a single run. Results are streamed into the run as each file is
+ * written, so the log is only valid JSON once finish has been called.
+ */
+public class SarifReportWriter extends ReportWriter {
+
+    private static final String[][] RULES = {
+            {Violation.ALL_CAPS, "Names must not be all caps"},
+            {Violation.UNDECLARED_TYPE, "Types must be declared or imported"},
+            {Violation.UNRESOLVED_IMPORT, "Imports must name a type or package on the classpath"},
+            {Violation.NAMING_PREFIX + "type", "Type names must follow the type naming convention"},
+            {Violation.NAMING_PREFIX + "method", "Method names must follow the method naming convention"},
+            {Violation.NAMING_PREFIX + "field", "Field names must follow the field naming convention"},
+            {Violation.NAMING_PREFIX + "constant", "Constant names must follow the constant naming convention"},
+            {Violation.NAMING_PREFIX + "variable", "Variable names must follow the variable naming convention"},
+    };
+
+    private boolean first = true;
+
+    public SarifReportWriter(Writer out) {
+        super(out);
+    }
+
+    @Override
+    public void start() throws IOException {
+        out.write("{\"version\":\"2.1.0\",\"$schema\":\"https://json.schemastore.org/sarif-2.1.0.json\",");
+        out.write("\"runs\":[{\"tool\":{\"driver\":{\"name\":\"TypeChecker\",\"version\":");
+        writeJson(TypeChecker.ANALYZER_VERSION);
+        out.write(",\"rules\":[");
+        for (int i = 0; i < RULES.length; i++) {
+            out.write(i == 0 ? "{\"id\":" : ",{\"id\":");
+            writeJson(RULES[i][0]);
+            out.write(",\"shortDescription\":{\"text\":");
+            writeJson(RULES[i][1]);
+            out.write("}}");
+        }
+        out.write("]}},\"results\":[");
+    }
+
+    @Override
+    public void write(FileResult result) throws IOException {
+        for (Violation v : result.getAllCaps()) {
+            write(v);
+        }
+        for (Violation v : result.getTypeViolations()) {
+            write(v);
+        }
+    }
+
+    private void write(Violation v) throws IOException {
+        out.write(first ? "\n" : ",\n");
+        first = false;
+        out.write("{\"ruleId\":");
+        writeJson(v.getRuleId());
+        out.write(",\"level\":\"error\",\"message\":{\"text\":");
+        writeJson(message(v));
+        out.write("},\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":");
+        writeJson(uri(v.getFile()));
+        out.write("},\"region\":{\"startLine\":");
+        out.write(Integer.toString(v.getLine()));
+        out.write(",\"startColumn\":");
+        out.write(Integer.toString(v.getColumn()));
+        out.write(",\"charOffset\":");
+        out.write(Integer.toString(v.getStartOffset()));
+        out.write(",\"charLength\":");
+        out.write(Integer.toString(v.getLength()));
+        out.write("}}}]}");
+    }
+
+    @Override
+    public void finish() throws IOException {
+        out.write("\n]}]}\n");
+        out.flush();
+    }
+
+    /**
+     * @return path as a relative or absolute URI reference, with its separators as slashes
+     */
+    private static String uri(String path) {
+        String slashed = path.replace('\\', '/');
+        try {
+            return new URI(null, null, slashed, null).getRawPath();
+        } catch (URISyntaxException use) {
+            return slashed;
+        }
+    }
+}
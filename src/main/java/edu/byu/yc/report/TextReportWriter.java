@@ -0,0 +1,41 @@
+package edu.byu.yc.report;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import edu.byu.yc.FileResult;
+import edu.byu.yc.Violation;
+
+/**
+ * Writes each violation as file:line:column: message, followed by the source line it is on, as
+ * the checker recorded it from the source it decoded.
+ */
+public class TextReportWriter extends ReportWriter {
+
+    public TextReportWriter(Writer out) {
+        super(out);
+    }
+
+    @Override
+    public void write(FileResult result) throws IOException {
+        for (Violation v : result.getAllCaps()) {
+            write(v);
+        }
+        for (Violation v : result.getTypeViolations()) {
+            write(v);
+        }
+    }
+
+    private void write(Violation v) throws IOException {
+        out.write(v.getFile());
+        out.write(':');
+        out.write(Integer.toString(v.getLine()));
+        out.write(':');
+        out.write(Integer.toString(v.getColumn()));
+        out.write(": ");
+        out.write(message(v));
+        out.write('\n');
+        out.write(v.getSourceLine());
+        out.write('\n');
+    }
+}
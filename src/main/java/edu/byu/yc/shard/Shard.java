@@ -0,0 +1,92 @@
+package edu.byu.yc.shard;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The files one worker process is given: those it checks, and those of the source path that it
+ * only indexes. A shard is handed to its worker as a list file with one file per line, each
+ * prefixed with C to check it or I to index it.
+ */
+final class Shard {
+
+    static final char CHECK = 'C';
+    static final char INDEX = 'I';
+
+    private final int id;
+    private final List<String> checked = new ArrayList<>();
+    private final List<String> indexed = new ArrayList<>();
+    private long weight;
+
+    Shard(int id) {
+        this.id = id;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    /**
+     * @return the files the worker checks
+     */
+    List<String> getChecked() {
+        return checked;
+    }
+
+    /**
+     * @return the files the worker only indexes
+     */
+    List<String> getIndexed() {
+        return indexed;
+    }
+
+    /**
+     * @return the estimated cost of the shard, in bytes of source parsed in full
+     */
+    long getWeight() {
+        return weight;
+    }
+
+    void add(char kind, String path, long cost) {
+        (kind == CHECK ? checked : indexed).add(path);
+        weight += cost;
+    }
+
+    void write(Path list) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(list, StandardCharsets.UTF_8)) {
+            for (String path : checked) {
+                out.write(CHECK);
+                out.write(path);
+                out.newLine();
+            }
+            for (String path : indexed) {
+                out.write(INDEX);
+                out.write(path);
+                out.newLine();
+            }
+        }
+    }
+
+    static Shard read(Path list) throws IOException {
+        Shard shard = new Shard(0);
+        try (BufferedReader in = Files.newBufferedReader(list, StandardCharsets.UTF_8)) {
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                char kind = line.charAt(0);
+                if (kind != CHECK && kind != INDEX) {
+                    throw new IOException("Unknown shard entry " + line);
+                }
+                shard.add(kind, line.substring(1), 0);
+            }
+        }
+        return shard;
+    }
+}
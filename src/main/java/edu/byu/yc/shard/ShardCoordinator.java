@@ -0,0 +1,289 @@
+package edu.byu.yc.shard;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import edu.byu.yc.CheckResult;
+import edu.byu.yc.FileResult;
+import edu.byu.yc.TypeChecker;
+import edu.byu.yc.environment.ProjectIndex;
+import edu.byu.yc.io.SourceFinder;
+
+/**
+ * Checks a project in several worker processes, each with a heap of its own, so that no single
+ * JVM has to hold the trees and garbage of every thread.
+ * <p>
+ * The coordinator finds the files, splits them into one shard per worker balanced by the bytes
+ * each worker will parse, and starts a TypeChecker for each shard. A worker checks its files
+ * without resolving them and writes their results; once every worker has finished, the
+ * coordinator adds every file to a ProjectIndex, resolves the checked files and sorts them by
+ * path, so the output does not depend on how the files were sharded or which worker finished
+ * first. A worker that exits with an error, writes incomplete results or runs past the timeout is
+ * started again, up to MAX_ATTEMPTS times.
+ */
+public class ShardCoordinator {
+
+    private static Logger logger = LoggerFactory.getLogger(ShardCoordinator.class);
+
+    /**
+     * How many times a shard is started before the check fails
+     */
+    public static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * A declarations-only parse of a source path file costs about a third of a full check
+     */
+    private static final int INDEX_COST_DIVISOR = 3;
+
+    private static final Comparator<Entry> HEAVIEST_FIRST = Comparator.<Entry>comparingLong(e -> -e.weight)
+            .thenComparing(e -> e.path);
+    private static final Comparator<Shard> LIGHTEST_FIRST = Comparator.comparingLong(Shard::getWeight)
+            .thenComparingInt(Shard::getId);
+
+    private final List<String> command;
+    private final List<String> workerArguments;
+    private final int workers;
+    private final long timeoutMillis;
+
+    /**
+     * @param command the command that starts a TypeChecker, such as the one javaCommand returns
+     * @param workerArguments the options each worker is started with, which must give the same
+     * results as the coordinator's own options
+     * @param workers the most worker processes to start
+     * @param timeoutMillis how long a worker may run before it is stopped and started again
+     */
+    public ShardCoordinator(List<String> command, List<String> workerArguments, int workers, long timeoutMillis) {
+        this.command = command;
+        this.workerArguments = workerArguments;
+        this.workers = workers;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * @param heap the maximum heap of each worker, such as 2g, or null for the JVM's default
+     * @return the command that starts a TypeChecker with the java and classpath of this process
+     */
+    public static List<String> javaCommand(String heap) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (heap != null) {
+            command.add("-Xmx" + heap);
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(TypeChecker.class.getName());
+        return command;
+    }
+
+    /**
+     * Find the Java files under roots, check them in worker processes and resolve them against
+     * each other and against the Java files under sourcepath.
+     *
+     * @param roots Files and directories that contain the Java files to check.
+     * @param sourcepath Files and directories that contain Java files to resolve against.
+     * @param finder Decides which files under roots and sourcepath are used.
+     * @return The results of the files under roots, sorted by path.
+     * @throws IOException if a shard still fails after MAX_ATTEMPTS
+     */
+    public CheckResult check(String[] roots, String[] sourcepath, SourceFinder finder) throws IOException {
+        List<Path> checked = finder.findAll(roots);
+        Set<Path> checkedPaths = new HashSet<>();
+        for (Path path : checked) {
+            checkedPaths.add(path.toAbsolutePath().normalize());
+        }
+        List<Path> indexed = new ArrayList<>();
+        for (Path path : finder.findAll(sourcepath)) {
+            if (!checkedPaths.contains(path.toAbsolutePath().normalize())) {
+                indexed.add(path);
+            }
+        }
+
+        List<ShardResults> results = run(plan(checked, indexed, workers));
+        ProjectIndex index = new ProjectIndex();
+        List<FileResult> files = new ArrayList<>(checked.size());
+        for (ShardResults shard : results) {
+            for (FileResult result : shard.getIndexed()) {
+                index.add(result);
+            }
+            for (FileResult result : shard.getChecked()) {
+                files.add(index.add(result));
+            }
+        }
+        files.sort(Comparator.comparing(FileResult::getPath));
+        CheckResult result = new CheckResult();
+        for (FileResult file : files) {
+            result.add(index.resolve(file));
+        }
+        return result;
+    }
+
+    /**
+     * Split the files into shards of about the same weight, heaviest file first, each going to
+     * the lightest shard so far. A file's weight is its size, or a fraction of it for a file that
+     * is only indexed.
+     *
+     * @param checked the files to check
+     * @param indexed the files to index
+     * @param shards the most shards to make
+     * @return the shards that have any files
+     */
+    static List<Shard> plan(List<Path> checked, List<Path> indexed, int shards) {
+        List<Entry> entries = new ArrayList<>(checked.size() + indexed.size());
+        for (Path path : checked) {
+            entries.add(new Entry(Shard.CHECK, path.toString(), size(path)));
+        }
+        for (Path path : indexed) {
+            entries.add(new Entry(Shard.INDEX, path.toString(), size(path) / INDEX_COST_DIVISOR));
+        }
+        entries.sort(HEAVIEST_FIRST);
+
+        PriorityQueue<Shard> lightest = new PriorityQueue<>(LIGHTEST_FIRST);
+        for (int i = 0; i < Math.max(1, Math.min(shards, entries.size())); i++) {
+            lightest.add(new Shard(i));
+        }
+        for (Entry entry : entries) {
+            Shard shard = lightest.poll();
+            shard.add(entry.kind, entry.path, entry.weight);
+            lightest.add(shard);
+        }
+        List<Shard> planned = new ArrayList<>(lightest);
+        planned.removeIf(shard -> shard.getChecked().isEmpty() && shard.getIndexed().isEmpty());
+        planned.sort(Comparator.comparingInt(Shard::getId));
+        return planned;
+    }
+
+    private static long size(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException ioe) {
+            // the worker reports the file if it cannot be read
+            return 0;
+        }
+    }
+
+    /**
+     * Run every shard in a worker of its own, starting the ones that fail again until they have
+     * all succeeded or one has failed MAX_ATTEMPTS times.
+     */
+    private List<ShardResults> run(List<Shard> shards) throws IOException {
+        Path directory = Files.createTempDirectory("typechecker-shards");
+        try {
+            ShardResults[] results = new ShardResults[shards.size()];
+            List<Shard> pending = new ArrayList<>(shards);
+            for (Shard shard : shards) {
+                shard.write(list(directory, shard));
+            }
+            for (int attempt = 1; !pending.isEmpty(); attempt++) {
+                if (attempt > MAX_ATTEMPTS) {
+                    throw new IOException(pending.size() + " shards failed " + MAX_ATTEMPTS + " times");
+                }
+                pending = runAttempt(pending, directory, results, attempt);
+            }
+            List<ShardResults> complete = new ArrayList<>(results.length);
+            for (ShardResults result : results) {
+                complete.add(result);
+            }
+            return complete;
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    /**
+     * Start a worker for each shard and wait for all of them, sharing one deadline.
+     *
+     * @return the shards that failed
+     */
+    private List<Shard> runAttempt(List<Shard> shards, Path directory, ShardResults[] results, int attempt)
+            throws IOException {
+        List<Process> processes = new ArrayList<>(shards.size());
+        try {
+            for (Shard shard : shards) {
+                Path output = output(directory, shard);
+                Files.deleteIfExists(output);
+                List<String> worker = new ArrayList<>(command);
+                worker.addAll(workerArguments);
+                worker.add("--shard");
+                worker.add(list(directory, shard).toString());
+                worker.add("--shard-output");
+                worker.add(output.toString());
+                logger.debug("Starting shard {} of {} files, attempt {}", shard.getId(),
+                        shard.getChecked().size() + shard.getIndexed().size(), attempt);
+                processes.add(new ProcessBuilder(worker).inheritIO().start());
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            List<Shard> failed = new ArrayList<>();
+            for (int i = 0; i < shards.size(); i++) {
+                Shard shard = shards.get(i);
+                Process process = processes.get(i);
+                if (!process.waitFor(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    logger.warn("Shard {} timed out after {} ms on attempt {}", shard.getId(), timeoutMillis, attempt);
+                    process.destroyForcibly().waitFor();
+                    failed.add(shard);
+                } else if (process.exitValue() != 0) {
+                    logger.warn("Shard {} exited with {} on attempt {}", shard.getId(), process.exitValue(), attempt);
+                    failed.add(shard);
+                } else {
+                    try {
+                        results[shard.getId()] = ShardResults.read(output(directory, shard));
+                    } catch (IOException ioe) {
+                        logger.warn("Shard {} failed on attempt {}: {}", shard.getId(), attempt, ioe.toString());
+                        failed.add(shard);
+                    }
+                }
+            }
+            return failed;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the workers");
+        } finally {
+            for (Process process : processes) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static Path list(Path directory, Shard shard) {
+        return directory.resolve("shard-" + shard.getId() + ".list");
+    }
+
+    private static Path output(Path directory, Shard shard) {
+        return directory.resolve("shard-" + shard.getId() + ".results");
+    }
+
+    private static void deleteRecursively(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException ioe) {
+            logger.debug("Unable to delete {}: {}", directory, ioe.toString());
+        }
+    }
+
+    private static final class Entry {
+        private final char kind;
+        private final String path;
+        private final long weight;
+
+        private Entry(char kind, String path, long weight) {
+            this.kind = kind;
+            this.path = path;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package edu.byu.yc.shard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.byu.yc.FileResult;
+import edu.byu.yc.cache.ResultCache;
+
+/**
+ * The results a worker hands back to the coordinator: each file's results, in the encoding the
+ * result cache uses, after its kind, path and whether its analysis was truncated. The file ends
+ * with a marker, so a worker that dies while writing leaves a file that cannot be mistaken for a
+ * complete one; it is also written to a temporary file and moved into place.
+ */
+final class ShardResults {
+
+    private static final int MAGIC = 0x54435348;
+    private static final int FORMAT_VERSION = 4;
+
+    private final List<FileResult> checked = new ArrayList<>();
+    private final List<FileResult> indexed = new ArrayList<>();
+
+    List<FileResult> getChecked() {
+        return checked;
+    }
+
+    List<FileResult> getIndexed() {
+        return indexed;
+    }
+
+    void add(char kind, FileResult result) {
+        (kind == Shard.CHECK ? checked : indexed).add(result);
+    }
+
+    void write(Path file) throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                write(out, Shard.CHECK, checked);
+                write(out, Shard.INDEX, indexed);
+                out.writeByte(0);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void write(DataOutputStream out, char kind, List<FileResult> results) throws IOException {
+        for (FileResult result : results) {
+            out.writeByte(kind);
+            out.writeUTF(result.getPath());
+            out.writeBoolean(result.isTruncated());
+            ResultCache.write(out, result);
+        }
+    }
+
+    /**
+     * @param file results written by a worker
+     * @return the results
+     * @throws IOException if file cannot be read or is incomplete
+     */
+    static ShardResults read(Path file) throws IOException {
+        ShardResults results = new ShardResults();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Unknown shard results format in " + file);
+            }
+            for (int kind = in.readByte(); kind != 0; kind = in.readByte()) {
+                if (kind != Shard.CHECK && kind != Shard.INDEX) {
+                    throw new IOException("Corrupt shard results in " + file);
+                }
+                String path = in.readUTF();
+                boolean truncated = in.readBoolean();
+                FileResult result = ResultCache.read(in, path);
+                if (truncated) {
+                    result = new FileResult(path, result.getPackageName(), result.getAllCaps(),
+                            result.getTypeViolations(), result.getDeclaredTypes(), result.getPackageTypes(), true);
+                }
+                results.add((char) kind, result);
+            }
+        } catch (EOFException eof) {
+            throw new IOException("Incomplete shard results in " + file, eof);
+        }
+        return results;
+    }
+}
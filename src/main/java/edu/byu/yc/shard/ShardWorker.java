@@ -0,0 +1,68 @@
+package edu.byu.yc.shard;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import edu.byu.yc.FileChecker;
+import edu.byu.yc.FileResult;
+
+/**
+ * The work of one worker process: check and index the files of its shard on its own heap and
+ * write their results, unresolved, for the coordinator to merge.
+ */
+public class ShardWorker {
+
+    private static Logger logger = LoggerFactory.getLogger(ShardWorker.class);
+
+    private ShardWorker() {
+    }
+
+    /**
+     * Check the files of a shard. A file that cannot be checked is logged and left out of the
+     * results, as it is when checking in a single process.
+     *
+     * @param list the shard's list file, written by the coordinator
+     * @param output where to write the results
+     * @param checker checks and indexes each file
+     * @param pool the pool that checks the files
+     * @throws IOException if the list cannot be read or the results cannot be written
+     */
+    public static void run(Path list, Path output, FileChecker checker, ExecutorService pool) throws IOException {
+        Shard shard = Shard.read(list);
+        List<Future<FileResult>> checked = new ArrayList<>(shard.getChecked().size());
+        for (String path : shard.getChecked()) {
+            checked.add(pool.submit(() -> checker.check(path)));
+        }
+        List<Future<FileResult>> indexed = new ArrayList<>(shard.getIndexed().size());
+        for (String path : shard.getIndexed()) {
+            indexed.add(pool.submit(() -> checker.index(path)));
+        }
+
+        ShardResults results = new ShardResults();
+        collect(results, Shard.CHECK, shard.getChecked(), checked);
+        collect(results, Shard.INDEX, shard.getIndexed(), indexed);
+        results.write(output);
+    }
+
+    private static void collect(ShardResults results, char kind, List<String> paths, List<Future<FileResult>> futures)
+            throws IOException {
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(kind, futures.get(i).get());
+            } catch (ExecutionException ee) {
+                logger.error("Unable to {} {}", kind == Shard.CHECK ? "check" : "index", paths.get(i), ee.getCause());
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while checking " + paths.get(i), ie);
+            }
+        }
+    }
+}
@@ -2,22 +2,30 @@ package edu.byu.yc.visitors;
 
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTVisitor;
-import org.eclipse.jdt.core.dom.BodyDeclaration;
+import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.ImportDeclaration;
+import org.eclipse.jdt.core.dom.Initializer;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.Name;
 import org.eclipse.jdt.core.dom.PackageDeclaration;
+import org.eclipse.jdt.core.dom.QualifiedName;
+import org.eclipse.jdt.core.dom.SimpleName;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import edu.byu.yc.ASTClassValidator;
+import edu.byu.yc.environment.TypeIndex;
 
 /**
  * @author Samuel Nuttall
@@ -29,12 +37,25 @@ import edu.byu.yc.ASTClassValidator;
  */
 public class QualifiedClassVisitor extends ASTVisitor {
 
+    /**
+     * The node types this visitor handles, for subscribing it to a TraversalEngine
+     */
+    public static final int[] NODE_TYPES = {ASTNode.PACKAGE_DECLARATION, ASTNode.IMPORT_DECLARATION,
+            ASTNode.TYPE_DECLARATION};
+
     private static Logger logger = LoggerFactory.getLogger(QualifiedClassVisitor.class);
     private Set<String> unqualifiedClassNames = new HashSet<>();
     private Set<String> declaredTypes = new HashSet<>();
     private String packageName = "";
     private Map<String, String> simpleNameToFullyQualifiedName = new HashMap<>();
+    private TypeIndex typeIndex = new TypeIndex();
+    private Map<String, TypeIndex.Node> simpleNameToIndexNode = new HashMap<>();
     private List<ASTClassValidator> classValidators = new ArrayList<>();
+    private Set<String> packageTypes = new LinkedHashSet<>();
+    private Map<String, String> importedTypes = new HashMap<>();
+    private List<String> onDemandImports = new ArrayList<>();
+    private List<ImportDeclaration> imports = new ArrayList<>();
+    private Map<ASTNode, TypeIndex.Node> localScopes;
 
     /**
      * Stores the import Statements in declaredTypes set so that the valid classes to be used within
@@ -45,11 +66,37 @@ public class QualifiedClassVisitor extends ASTVisitor {
      */
     @Override
     public boolean visit(ImportDeclaration node) {
-        ASTNode parent = node.getParent();
-        declaredTypes.add(node.getName().toString());
+        Name name = node.getName();
+        imports.add(node);
+        declareImport(node);
+        if (node.isStatic()) {
+            return true;
+        }
+        if (node.isOnDemand()) {
+            onDemandImports.add(name.getFullyQualifiedName());
+        } else {
+            importedTypes.put(simpleName(name), name.getFullyQualifiedName());
+        }
         return true;
     }
 
+    /**
+     * Declares an import in the declaredTypes and TypeIndex of the current class. Imports belong
+     * to the whole file, so they are declared again for each top level class
+     */
+    private void declareImport(ImportDeclaration node) {
+        declaredTypes.add(node.getName().toString());
+        if (!node.isOnDemand()) {
+            typeIndex.declare(typeIndex.getRoot(), simpleName(node.getName()));
+        }
+    }
+
+    private static String simpleName(Name name) {
+        return name.isQualifiedName()
+                ? ((QualifiedName) name).getName().getIdentifier()
+                : ((SimpleName) name).getIdentifier();
+    }
+
     /**
      * Visits TypeDeclaration nodes and stores them in the declaredTypes set so that if the type is
      * used elsewhere in the class it can be determined valid
@@ -60,41 +107,106 @@ public class QualifiedClassVisitor extends ASTVisitor {
     @Override
     public boolean visit(TypeDeclaration node) {
         String declarationName = node.getName().toString();
+        String packageTypeName = packageTypeName(node);
+        if (packageTypeName != null) {
+            packageTypes.add(packageTypeName);
+        }
         //logger.info("DECLARATION NAME {}", declarationName);
         ASTNode parent = node.getParent();
 
-        if (parent instanceof BodyDeclaration) {
+        if (parent instanceof TypeDeclaration) {
             TypeDeclaration parentTD = (TypeDeclaration) parent;
             String parentQN = simpleNameToFullyQualifiedName.get(parentTD.getName().toString());
-            String qualifiedName =  parentQN + "." + declarationName;
-            simpleNameToFullyQualifiedName.put(declarationName, qualifiedName);
-            declaredTypes.add(qualifiedName);
+            if (parentQN != null) {
+                String qualifiedName =  parentQN + "." + declarationName;
+                simpleNameToFullyQualifiedName.put(declarationName, qualifiedName);
+                declaredTypes.add(qualifiedName);
+            }
+            TypeIndex.Node parentNode = simpleNameToIndexNode.get(parentTD.getName().toString());
+            simpleNameToIndexNode.put(declarationName, typeIndex.declare(parentNode, declarationName));
         }
-        else {
+        else if (parent instanceof CompilationUnit) {
 
             String qualifiedName =  packageName + "." + declarationName;
             simpleNameToFullyQualifiedName.put(declarationName, qualifiedName);
             declaredTypes.add(qualifiedName);
+            simpleNameToIndexNode.put(declarationName, typeIndex.declare(typeIndex.getRoot(), declarationName));
+        }
+        else {
+            // a local type, or a member of an anonymous class or enum, is only in scope in the
+            // body that declares it
+            simpleNameToFullyQualifiedName.remove(declarationName);
+            simpleNameToIndexNode.put(declarationName, typeIndex.declare(localScope(node), declarationName));
         }
 
         return true;
     }
 
     /**
-     * For each class file, a new classValidator is added to simplify the resolving of the current
-     * environment. declaredTypes, simpleNameToFullyQualifiedName, and packageName are all reset for
-     * the next file to be traversed
+     * @return the scope of the local types of the method or initializer that node is declared in,
+     * or a scope of its own if it is in neither
+     */
+    private TypeIndex.Node localScope(TypeDeclaration node) {
+        ASTNode body = node.getParent();
+        while (body != null && !(body instanceof MethodDeclaration || body instanceof Initializer)) {
+            if (body instanceof TypeDeclaration || body instanceof CompilationUnit) {
+                return typeIndex.newScope();
+            }
+            body = body.getParent();
+        }
+        if (body == null) {
+            return typeIndex.newScope();
+        }
+        if (localScopes == null) {
+            localScopes = new IdentityHashMap<>();
+        }
+        TypeIndex.Node scope = localScopes.get(body);
+        if (scope == null) {
+            scope = typeIndex.newScope();
+            localScopes.put(body, scope);
+        }
+        return scope;
+    }
+
+    /**
+     * @return the name of node relative to its package, such as Outer.Inner, or null if node is
+     * a local type or is nested in something other than a class, since other files cannot use it
+     * by that name
+     */
+    private static String packageTypeName(TypeDeclaration node) {
+        String name = node.getName().getIdentifier();
+        ASTNode parent = node.getParent();
+        while (parent instanceof TypeDeclaration) {
+            name = ((TypeDeclaration) parent).getName().getIdentifier() + "." + name;
+            parent = parent.getParent();
+        }
+        return parent instanceof CompilationUnit ? name : null;
+    }
+
+    /**
+     * For each top level class, a new classValidator is added to simplify the resolving of the
+     * current environment. Local types belong to the validator of the class they are declared in.
+     * declaredTypes, simpleNameToFullyQualifiedName, and the TypeIndex are all reset for the next
+     * class to be traversed, keeping only the imports of the file
      *
      * @param node
      */
     @Override
     public void endVisit(TypeDeclaration node) {
         ASTNode parent = node.getParent();
-        if (!(parent instanceof BodyDeclaration)) {
-            ASTClassValidator v = new ASTClassValidator(declaredTypes, node, packageName);
+        if (parent instanceof CompilationUnit) {
+            ASTClassValidator v = new ASTClassValidator(declaredTypes, typeIndex, node, packageName,
+                    importedTypes, onDemandImports,
+                    localScopes == null ? Collections.<ASTNode, TypeIndex.Node>emptyMap() : localScopes);
             classValidators.add(v);
             declaredTypes = new HashSet<>();
             simpleNameToFullyQualifiedName = new HashMap<>();
+            typeIndex = new TypeIndex();
+            simpleNameToIndexNode = new HashMap<>();
+            localScopes = null;
+            for (ImportDeclaration declaration : imports) {
+                declareImport(declaration);
+            }
         }
 
     }
@@ -119,6 +231,21 @@ public class QualifiedClassVisitor extends ASTVisitor {
         return unqualifiedClassNames;
     }
 
+    /**
+     * @return the package of the visited file, "" for the default package
+     */
+    public String getPackageName() {
+        return packageName;
+    }
+
+    /**
+     * @return the types declared in the visited file that the rest of its package can use, as
+     * names relative to the package
+     */
+    public Set<String> getPackageTypes() {
+        return packageTypes;
+    }
+
     public List<ASTClassValidator> getClassValidators() {
         return classValidators;
     }
@@ -2,6 +2,14 @@ package edu.byu.yc.visitors;
 
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.ImportDeclaration;
+import org.eclipse.jdt.core.dom.Initializer;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.Name;
+import org.eclipse.jdt.core.dom.ParameterizedType;
+import org.eclipse.jdt.core.dom.QualifiedName;
+import org.eclipse.jdt.core.dom.QualifiedType;
+import org.eclipse.jdt.core.dom.SimpleName;
 import org.eclipse.jdt.core.dom.SimpleType;
 import org.eclipse.jdt.core.dom.Type;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
@@ -9,14 +17,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import edu.byu.yc.ASTClassValidator;
-import edu.byu.yc.environment.ASTEnvironment;
+import edu.byu.yc.Violation;
+import edu.byu.yc.environment.ClasspathIndex;
+import edu.byu.yc.environment.JdkCatalog;
+import edu.byu.yc.environment.ScopeTree;
+import edu.byu.yc.environment.TypeCatalog;
+import edu.byu.yc.environment.TypeIndex;
 
 
 /**
@@ -26,28 +38,97 @@ import edu.byu.yc.environment.ASTEnvironment;
  */
 public class TypeVisitor extends ASTVisitor {
 
+    /**
+     * The node types this visitor handles, for subscribing it to a TraversalEngine
+     */
+    public static final int[] NODE_TYPES = {ASTNode.IMPORT_DECLARATION, ASTNode.TYPE_DECLARATION,
+            ASTNode.METHOD_DECLARATION, ASTNode.INITIALIZER, ASTNode.SIMPLE_TYPE, ASTNode.QUALIFIED_TYPE};
+
     private static Logger logger = LoggerFactory.getLogger(TypeVisitor.class);
+    private static final String JAVA_LANG = "java.lang";
+    private List<ASTClassValidator> classValidators;
+    private Map<ASTNode, ASTClassValidator> validatorsByRoot;
     private ASTClassValidator validator;
-    private ASTEnvironment currentEnv;
-    private Set<String> declaredTypeBaseNames = new HashSet<>();
-    private Map<String, ASTEnvironment> nameEnvironmentMap = new HashMap<>();
-    private Set<String> violations = new HashSet<>();
+    private ScopeTree scopes = new ScopeTree();
+    private int currentScope = ScopeTree.NONE;
+    private TypeIndex typeIndex;
+    private List<Violation> violations = new ArrayList<>();
+    private String file;
+    private JdkCatalog catalog;
+    private ClasspathIndex classpath;
+    private int typesChecked;
 
 
-    public TypeVisitor(ASTClassValidator validator) {
-        this.validator = validator;
-        Set<String> declaredTypes = validator.getDeclaredTypes();
+    /**
+     * Create a visitor for source that did not come from a file, without a JDK catalog or a
+     * classpath.
+     *
+     * @param classValidators the results of a QualifiedClassVisitor
+     */
+    public TypeVisitor(List<ASTClassValidator> classValidators) {
+        this(classValidators, null, null, null);
+    }
 
-        for (String type : declaredTypes) {
-            String baseName = getDeclaredTypeBaseName(type);
-            declaredTypeBaseNames.add(baseName);
-           // logger.debug("BASE NAMES {}", baseName);
+    /**
+     * Create a visitor that checks every class in classValidators during a single walk of the
+     * CompilationUnit they came from. The list is not read until the walk starts, so it can be
+     * the list a QualifiedClassVisitor is still filling in an earlier phase of the walk. Besides
+     * the types a class declares and imports, it accepts the JDK and classpath types that a class
+     * can use without importing them by name, and checks each import against the classpath.
+     *
+     * @param classValidators the results of a QualifiedClassVisitor
+     * @param file the file the CompilationUnit was parsed from, recorded in each violation, or null
+     * @param catalog the JDK's types, or null to require an import of every JDK type
+     * @param classpath the classpath's types, or null to trust every import
+     */
+    public TypeVisitor(List<ASTClassValidator> classValidators, String file, JdkCatalog catalog,
+                       ClasspathIndex classpath) {
+        this.classValidators = classValidators;
+        this.file = file;
+        this.catalog = catalog;
+        this.classpath = classpath;
+    }
+
+    /**
+     * Checks that an import names a type or package that exists, when there is a classpath to
+     * check it against. Imports of JDK packages are only checked if there is a JDK catalog. An
+     * import that is not found may still name a type of another checked file, which the
+     * ProjectIndex resolves once every file has been checked.
+     *
+     * @param node ImportDeclaration node
+     * @return false, as the import's name has no types to visit
+     */
+    @Override
+    public boolean visit(ImportDeclaration node) {
+        if (classpath == null) {
+            return false;
+        }
+        Name imported = node.getName();
+        if (node.isStatic() && !node.isOnDemand()) {
+            if (!imported.isQualifiedName()) {
+                return false;
+            }
+            // import static a.B.member imports a member of the type a.B
+            imported = ((QualifiedName) imported).getQualifier();
+        }
+        String name = imported.getFullyQualifiedName();
+        TypeCatalog types = JdkCatalog.isJdkName(name) ? catalog : classpath;
+        if (types == null || types.contains(name)) {
+            return false;
+        }
+        // import a.b.* imports a package, or the member types of a type
+        boolean onDemandPackage = node.isOnDemand() && !node.isStatic();
+        if (onDemandPackage && types.hasPackage(name)) {
+            return false;
         }
+        violations.add(Violation.at(Violation.UNRESOLVED_IMPORT, file,
+                onDemandPackage ? name + TypeCatalog.PACKAGE_SUFFIX : name, imported));
+        return false;
     }
 
     /**
-     * Visits TypeDeclaration nodes to determine the current environment and maps the declaration
-     * to an environment
+     * Visits TypeDeclaration nodes to enter the scope of the declaration, inside the scope of the
+     * type or method that declares it. A generic type's scope holds its type parameters.
      *
      * @param node TypeDeclaration node to be visited
      * @return true to visit all Type Declaration nodes
@@ -55,21 +136,69 @@ public class TypeVisitor extends ASTVisitor {
     @Override
     public boolean visit(TypeDeclaration node) {
 
-        ASTEnvironment parentEnvironment = null;
-        String declarationName = node.getName().toString();
-        ASTNode parent = node.getParent();
+        ASTClassValidator classValidator = validatorFor(node);
+        if (classValidator != null) {
+            enterClass(classValidator);
+        }
+
+        if (validator == null) {
+            return true;
+        }
+        // a member or local type is always visited inside the scope of the type or body that
+        // declares it
+        currentScope = scopes.enterType(currentScope, node.getName().getIdentifier(), typeIndex);
+        scopes.declareTypeParameters(currentScope, node.typeParameters());
+        return true;
+    }
+
+    /**
+     * Enters the scope of a generic method, or of a method that declares local types
+     *
+     * @param node MethodDeclaration node
+     * @return true to visit the method's types
+     */
+    @Override
+    public boolean visit(MethodDeclaration node) {
+        if (opensScope(node, node.typeParameters())) {
+            currentScope = scopes.enterBody(currentScope, validator.getLocalScopes().get(node));
+            scopes.declareTypeParameters(currentScope, node.typeParameters());
+        }
+        return true;
+    }
 
-        if (parent instanceof TypeDeclaration) {
-            TypeDeclaration parentTD = (TypeDeclaration) parent;
-            String parentName = parentTD.getName().toString();
-            parentEnvironment = nameEnvironmentMap.get(parentName);
+    @Override
+    public void endVisit(MethodDeclaration node) {
+        if (opensScope(node, node.typeParameters())) {
+            currentScope = scopes.getParent(currentScope);
         }
+    }
 
-        currentEnv = new ASTEnvironment(declarationName, parentEnvironment);
-        nameEnvironmentMap.put(declarationName, currentEnv);
+    /**
+     * Enters the scope of an initializer that declares local types
+     *
+     * @param node Initializer node
+     * @return true to visit the initializer's types
+     */
+    @Override
+    public boolean visit(Initializer node) {
+        if (opensScope(node, Collections.emptyList())) {
+            currentScope = scopes.enterBody(currentScope, validator.getLocalScopes().get(node));
+        }
         return true;
     }
 
+    @Override
+    public void endVisit(Initializer node) {
+        if (opensScope(node, Collections.emptyList())) {
+            currentScope = scopes.getParent(currentScope);
+        }
+    }
+
+    private boolean opensScope(ASTNode body, List<?> typeParameters) {
+        return validator != null && currentScope != ScopeTree.NONE
+                && (!typeParameters.isEmpty() || validator.getLocalScopes().containsKey(body));
+    }
+
 
     /**
      * Visits SimpleType nodes to determine if the code being analyzed contains valid uses of a class
@@ -82,18 +211,47 @@ public class TypeVisitor extends ASTVisitor {
      */
     @Override
     public boolean visit(SimpleType node) {
-        currentEnv.addType(node);
+        if (validator == null || currentScope == ScopeTree.NONE) {
+            return true;
+        }
+        scopes.addReference(currentScope);
+        typesChecked++;
         boolean valid = isValidTypeUsage(node);
         if (!valid) {
-            violations.add(node.toString() + ":\n" + node.getParent().toString());
+            violations.add(Violation.at(Violation.UNDECLARED_TYPE, file,
+                    node.getName().getFullyQualifiedName(), node));
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("NODE {} VALID: {}", node.getName(), valid);
+        }
+        return true;
+    }
+
+    /**
+     * Visits QualifiedType nodes, such as Outer&lt;String&gt;.Inner, to check that the member type
+     * exists when the qualifier is one of the class's own types. The qualifier is checked as a type
+     * of its own.
+     *
+     * @param node QualifiedType node
+     * @return true to visit the qualifier
+     */
+    @Override
+    public boolean visit(QualifiedType node) {
+        if (validator == null || currentScope == ScopeTree.NONE) {
+            return true;
+        }
+        scopes.addReference(currentScope);
+        typesChecked++;
+        TypeIndex.Node qualifier = findType(node.getQualifier());
+        if (qualifier != null && typeIndex.find(qualifier, node.getName()) == null) {
+            violations.add(Violation.at(Violation.UNDECLARED_TYPE, file, typeName(node), node));
         }
-        logger.info("NODE {} VALID: {}", node.getName(), valid);
         return true;
     }
 
     /**
-     * In order to correctly identify the current environment, once a TypeDeclaration has been
-     * traversed, endVisit makes the current environment the parent environment of the TD Node
+     * In order to correctly identify the current scope, once a TypeDeclaration has been
+     * traversed, endVisit makes the current scope the parent scope of the TD Node
      * that is now out of scope
      *
      * @param node TypeDeclaration node
@@ -101,95 +259,164 @@ public class TypeVisitor extends ASTVisitor {
     @Override
     public void endVisit(TypeDeclaration node) {
 
-        if (currentEnv != null) {
-            currentEnv = currentEnv.getParentEnv();
+        if (validator != null) {
+            currentScope = scopes.getParent(currentScope);
+        }
+        if (validator != null && validator.getRootNode() == node) {
+            exitClass();
         }
         super.endVisit(node);
     }
 
-
-    /**
-     * Takes the Type node and returns its name within the context of the environment
-     * in order to determine if its usage is valid. It will be compared against the declaredTypes
-     * Strings to see if it matches one of the valid declaredTypes
-     *
-     * @param type An AST Type node
-     * @return a String that gives context to the variables usage, for example Inner declared in the
-     * Outer class returns Outer.Inner
-     */
-    private String resolveEnvironmentName(Type type) {
-        ASTEnvironment rootEnv = currentEnv;
-        List<String> envNames = new ArrayList<>();
-        while (rootEnv != null) {
-            envNames.add(rootEnv.getEnvironmentName());
-            rootEnv = rootEnv.getParentEnv();
-        }
-
-        StringBuilder sb = new StringBuilder();
-        for (int i = envNames.size() - 1; i > -1; i--) {
-            String envName = envNames.get(i);
-            if (type.toString().equals(envName)) {
-                continue;
-            }
-            sb.append(envName);
-            if (i != 0) {
-                sb.append(".");
+    private ASTClassValidator validatorFor(TypeDeclaration node) {
+        if (validatorsByRoot == null) {
+            validatorsByRoot = new IdentityHashMap<>();
+            for (ASTClassValidator v : classValidators) {
+                validatorsByRoot.put(v.getRootNode(), v);
             }
         }
-        if (sb.charAt(sb.length() -1) == '.')
-        {
-            sb.deleteCharAt(sb.length() -1);
-        }
-        return sb.toString();
+        return validatorsByRoot.get(node);
+    }
+
+    /**
+     * Switch to checking the top level class that classValidator describes. Its member and local
+     * types are checked with the same validator.
+     */
+    private void enterClass(ASTClassValidator classValidator) {
+        validator = classValidator;
+        currentScope = ScopeTree.NONE;
+        typeIndex = classValidator.getTypeIndex();
+    }
+
+    private void exitClass() {
+        validator = null;
+        currentScope = ScopeTree.NONE;
+        typeIndex = null;
     }
 
+
     /**
-     * Checks to see if the type that is used is contained in the valid declaredTypeBaseNames set.
+     * Checks to see if the type that is used is in the TypeIndex of the class being checked.
      * If it is, then it is considered a valid usage and returns true.
      * If not then returns false.
-     * Also takes the context into consideration to see that the environment name + type name may
-     * be valid. Assumes heavily nested classes (more than 1 level) are static. Does not check that
-     * Previous levels are instantiated.
+     * Also takes the context into consideration: a simple name may be a type parameter of an
+     * enclosing type or method, and each enclosing scope, innermost first, is probed for a
+     * member or local type with the name, using the index node the scope found when it was
+     * entered. Assumes heavily nested classes (more than 1 level) are static. Does not check
+     * that Previous levels are instantiated.
      *
      * @param type AST type
      * @return boolean true or false depending on whether the type is used correctly
      */
-    private boolean isValidTypeUsage(Type type) {
-        boolean valid = declaredTypeBaseNames.contains(type.toString());
-        if (!valid) {
-            String environment = resolveEnvironmentName(type);
-            String newName = environment + "." + type;
-            valid = declaredTypeBaseNames.contains(environment + "." + type);
+    private boolean isValidTypeUsage(SimpleType type) {
+        Name name = type.getName();
+        if (name.isSimpleName() && scopes.isTypeParameter(currentScope, ((SimpleName) name).getIdentifier())) {
+            return true;
+        }
+        if (findType(name) != null) {
+            return true;
+        }
+        return catalog != null && isCatalogType(catalog, name)
+                || classpath != null && isCatalogType(classpath, name);
+    }
+
+    /**
+     * @return the class's own type that name refers to in the current scope, or null if it is
+     * not one of them
+     */
+    private TypeIndex.Node findType(Name name) {
+        for (int scope = currentScope; scope != ScopeTree.NONE; scope = scopes.getParent(scope)) {
+            TypeIndex.Node found = typeIndex.find(scopes.getIndexNode(scope), name);
+            if (found != null) {
+                return found;
+            }
         }
-        return valid;
+        return typeIndex.find(typeIndex.getRoot(), name);
     }
 
     /**
-     * Simplifies a valid qualified name from the QualifiedClassVisitor by converting it
-     * into a name that can be used within the file (removes package information), to easily
-     * determine proper type usage from within a single file.
+     * @return the class's own type that type refers to, ignoring its type arguments, or null if
+     * it is not one of them
+     */
+    private TypeIndex.Node findType(Type type) {
+        if (type.isParameterizedType()) {
+            type = ((ParameterizedType) type).getType();
+        }
+        if (type.isSimpleType()) {
+            return findType(((SimpleType) type).getName());
+        }
+        if (type.isQualifiedType()) {
+            TypeIndex.Node qualifier = findType(((QualifiedType) type).getQualifier());
+            return qualifier == null ? null : typeIndex.find(qualifier, ((QualifiedType) type).getName());
+        }
+        return null;
+    }
+
+    /**
+     * @return the name of type without its type arguments, such as Outer.Inner
+     */
+    private static String typeName(Type type) {
+        if (type.isParameterizedType()) {
+            return typeName(((ParameterizedType) type).getType());
+        }
+        if (type.isQualifiedType()) {
+            QualifiedType qualified = (QualifiedType) type;
+            return typeName(qualified.getQualifier()) + "." + qualified.getName().getIdentifier();
+        }
+        return type.isSimpleType() ? ((SimpleType) type).getName().getFullyQualifiedName() : type.toString();
+    }
+
+
+    /**
+     * Checks whether name is a compiled type that is in scope without a single type import: a
+     * type of java.lang, a member of a package or type imported with *, a member type of an
+     * imported type such as Map.Entry, or a fully qualified name.
      *
-     * @param qualifiedName A String of a valid qualifiedName from the QualifiedClassVisitor
-     * @return String that is a simplified name
+     * @param catalog the JDK's or the classpath's types
+     * @param name the type name that was used
+     * @return true if the catalog has the type
      */
-    private String getDeclaredTypeBaseName(String qualifiedName) {
-        String baseName = null;
-        String packageName = validator.getPackageName();
-        if (qualifiedName.contains(packageName)) {
-            baseName = qualifiedName.replace((packageName + "."), "");
-        } else {
-            String[] imports = qualifiedName.split("\\.");
-            baseName = imports[imports.length - 1];
+    private boolean isCatalogType(TypeCatalog catalog, Name name) {
+        if (catalog.contains(JAVA_LANG, name) || catalog.contains("", name)) {
+            return true;
+        }
+        for (String onDemand : validator.getOnDemandImports()) {
+            if (catalog.contains(onDemand, name)) {
+                return true;
+            }
         }
-        return baseName;
+        if (name.isQualifiedName()) {
+            Name first = name;
+            while (first.isQualifiedName()) {
+                first = ((QualifiedName) first).getQualifier();
+            }
+            String imported = validator.getImportedTypes().get(((SimpleName) first).getIdentifier());
+            int dot = imported == null ? -1 : imported.lastIndexOf('.');
+            return dot > 0 && catalog.contains(imported.substring(0, dot), name);
+        }
+        return false;
     }
 
 
+    /**
+     * @return the scopes of the visited file, with the number of type references checked in each
+     */
+    public ScopeTree getScopes() {
+        return scopes;
+    }
+
+    /**
+     * @return the number of type references that were checked
+     */
+    public int getTypesChecked() {
+        return typesChecked;
+    }
+
     /**
      * Returns all of the violations in a file
-     * @return set of String violations of type us
+     * @return each invalid type usage, in the order they appear in the file
      */
-    public Set<String> getViolations() {
+    public List<Violation> getViolations() {
         return violations;
     }
 }
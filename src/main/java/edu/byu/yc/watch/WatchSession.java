@@ -0,0 +1,405 @@
+package edu.byu.yc.watch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import edu.byu.yc.CheckResult;
+import edu.byu.yc.FileChecker;
+import edu.byu.yc.FileResult;
+import edu.byu.yc.TypeChecker;
+import edu.byu.yc.Violation;
+import edu.byu.yc.environment.ProjectIndex;
+import edu.byu.yc.environment.TypeCatalog;
+import edu.byu.yc.io.SourceFinder;
+
+/**
+ * Checks a set of files and directories, then watches them and checks files again as they are
+ * saved. The results of checking each file on its own are kept in memory along with the
+ * ProjectIndex, so a change only re-checks the files that changed.
+ * <p>
+ * A file's resolved results can also change when a type of its package appears or disappears in
+ * another file. Each file is recorded as a dependent of the names it could not resolve on its
+ * own, since those are the only names ProjectIndex looks up for it, so only the files that
+ * name a type that was added or removed are resolved again. Saves that arrive within DEBOUNCE_MILLIS
+ * of each other are handled as one batch.
+ */
+public class WatchSession implements Closeable {
+
+    private static Logger logger = LoggerFactory.getLogger(WatchSession.class);
+
+    static final long DEBOUNCE_MILLIS = 200;
+
+    private final String[] roots;
+    private final SourceFinder finder;
+    private final FileChecker checker;
+    private final ExecutorService pool;
+    private final Consumer<FileResult> reporter;
+
+    private final ProjectIndex index = new ProjectIndex();
+    private final Map<String, FileResult> checked = new LinkedHashMap<>();
+    private final Map<String, Set<String>> filesByPackage = new HashMap<>();
+    private final Map<String, Set<String>> dependentsByType = new HashMap<>();
+    private final Map<Path, Path> rootsByDirectory = new HashMap<>();
+    private final Set<Path> watchedDirectories = new HashSet<>();
+    private final Set<Path> fileRoots = new HashSet<>();
+    private WatchService watchService;
+
+    /**
+     * @param roots files and directories to check and watch
+     * @param finder decides which files under roots are checked
+     * @param checker checks each file
+     * @param pool the pool that checks the files of each batch
+     * @param reporter called with the resolved results of each file that is checked again, or
+     * whose results may have changed because of another file
+     */
+    public WatchSession(String[] roots, SourceFinder finder, FileChecker checker, ExecutorService pool,
+                        Consumer<FileResult> reporter) {
+        this.roots = roots;
+        this.finder = finder;
+        this.checker = checker;
+        this.pool = pool;
+        this.reporter = reporter;
+    }
+
+    /**
+     * Check every file under the roots and start watching their directories.
+     *
+     * @return the results for every file, in the order they were found
+     * @throws IOException if the file system cannot be watched
+     */
+    public CheckResult start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        List<String> paths = new ArrayList<>();
+        for (String root : roots) {
+            Path rootPath = Paths.get(root);
+            finder.find(new String[]{root}, file -> paths.add(file.toString()), dir -> register(rootPath, dir));
+            if (Files.isRegularFile(rootPath)) {
+                // watch only this file of its directory
+                fileRoots.add(rootPath);
+                register(null, rootPath.getParent() != null ? rootPath.getParent() : Paths.get(""));
+            }
+        }
+
+        CheckResult result = new CheckResult();
+        for (FileResult resolved : resolve(update(paths, Collections.<String>emptySet()))) {
+            result.add(resolved);
+        }
+        return result;
+    }
+
+    /**
+     * Handle changes until the thread is interrupted or the session is closed.
+     */
+    public void run() {
+        try {
+            while (true) {
+                Set<Path> changed = new LinkedHashSet<>();
+                boolean overflow = drain(watchService.take(), changed);
+                WatchKey key;
+                while ((key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    overflow |= drain(key, changed);
+                }
+                if (overflow) {
+                    logger.warn("Missed some file system events, checking every file again");
+                    rescan();
+                } else {
+                    changed(changed);
+                }
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException cwse) {
+            logger.debug("Stopped watching");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    /**
+     * @param root the root dir was found under, or null if only the file roots in dir are checked
+     * @param dir the directory to watch
+     */
+    private void register(Path root, Path dir) {
+        if (root != null) {
+            rootsByDirectory.putIfAbsent(dir, root);
+        }
+        if (!watchedDirectories.add(dir)) {
+            return;
+        }
+        try {
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException ioe) {
+            logger.warn("Unable to watch {}: {}", dir, ioe.toString());
+        }
+    }
+
+    /**
+     * Collect the paths a key has events for.
+     *
+     * @return true if events were lost
+     */
+    private boolean drain(WatchKey key, Set<Path> changed) {
+        Path dir = (Path) key.watchable();
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+            } else {
+                changed.add(dir.resolve((Path) event.context()));
+            }
+        }
+        if (!key.reset()) {
+            rootsByDirectory.remove(dir);
+            watchedDirectories.remove(dir);
+        }
+        return overflow;
+    }
+
+    private void rescan() {
+        Set<String> found = new LinkedHashSet<>();
+        for (String root : roots) {
+            Path rootPath = Paths.get(root);
+            finder.find(new String[]{root}, file -> found.add(file.toString()), dir -> register(rootPath, dir));
+        }
+        Set<String> gone = new HashSet<>(checked.keySet());
+        gone.removeAll(found);
+        report(resolve(update(found, gone)));
+    }
+
+    /**
+     * Check the files that were created, saved or deleted, and resolve them and their dependents.
+     *
+     * @param changed files and directories that the watch service reported
+     */
+    void changed(Set<Path> changed) {
+        Set<String> toCheck = new LinkedHashSet<>();
+        Set<String> gone = new HashSet<>();
+        for (Path path : changed) {
+            Path root = rootFor(path);
+            if (Files.isDirectory(path)) {
+                // only a new directory has files that have not been seen
+                if (root != null && !watchedDirectories.contains(path)) {
+                    finder.find(root, path, file -> toCheck.add(file.toString()), dir -> register(root, dir));
+                }
+            } else if (Files.isRegularFile(path)) {
+                if (fileRoots.contains(path) || (root != null && finder.isSource(root, path))) {
+                    toCheck.add(path.toString());
+                }
+            } else {
+                for (String known : checked.keySet()) {
+                    if (Paths.get(known).startsWith(path)) {
+                        gone.add(known);
+                    }
+                }
+            }
+        }
+        if (!toCheck.isEmpty() || !gone.isEmpty()) {
+            report(resolve(update(toCheck, gone)));
+        }
+    }
+
+    private Path rootFor(Path path) {
+        Path parent = path.getParent();
+        return parent == null ? null : rootsByDirectory.get(parent);
+    }
+
+    /**
+     * Check toCheck on the pool, forget gone, and update the index and the dependents.
+     *
+     * @return the paths whose resolved results may have changed
+     */
+    private Set<String> update(Collection<String> toCheck, Collection<String> gone) {
+        List<String> paths = new ArrayList<>(toCheck);
+        List<Future<FileResult>> futures = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            futures.add(pool.submit(() -> checker.check(path)));
+        }
+
+        Set<String> affected = new LinkedHashSet<>();
+        Set<String> changedTypes = new HashSet<>();
+        Set<String> shrunkPackages = new HashSet<>();
+        for (String path : gone) {
+            FileResult old = forget(path);
+            if (old != null) {
+                changedTypes.addAll(qualifiedTypes(old));
+                shrunkPackages.add(old.getPackageName());
+                logger.info("{} was removed", path);
+            }
+        }
+        for (int i = 0; i < paths.size(); i++) {
+            String path = paths.get(i);
+            FileResult result;
+            try {
+                result = futures.get(i).get();
+            } catch (ExecutionException ee) {
+                logger.error("Unable to check {}", path, ee.getCause());
+                FileResult old = forget(path);
+                if (old != null) {
+                    changedTypes.addAll(qualifiedTypes(old));
+                    shrunkPackages.add(old.getPackageName());
+                }
+                continue;
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while checking " + path, ie);
+            }
+            FileResult old = forget(path);
+            Set<String> types = qualifiedTypes(result);
+            if (old != null) {
+                Set<String> oldTypes = qualifiedTypes(old);
+                for (String type : oldTypes) {
+                    if (!types.contains(type)) {
+                        changedTypes.add(type);
+                        shrunkPackages.add(old.getPackageName());
+                    }
+                }
+                oldTypes.forEach(types::remove);
+            }
+            changedTypes.addAll(types);
+            remember(path, result);
+            affected.add(path);
+        }
+
+        // a type that was removed may still be declared by another file of its package
+        for (String packageName : shrunkPackages) {
+            for (String path : filesByPackage.getOrDefault(packageName, Collections.<String>emptySet())) {
+                index.add(checked.get(path));
+            }
+        }
+        for (String type : changedTypes) {
+            affected.addAll(dependentsByType.getOrDefault(type, Collections.<String>emptySet()));
+        }
+        return affected;
+    }
+
+    private void remember(String path, FileResult result) {
+        checked.put(path, result);
+        index.add(result);
+        filesByPackage.computeIfAbsent(result.getPackageName(), p -> new HashSet<>()).add(path);
+        for (String name : referencedTypes(result)) {
+            dependentsByType.computeIfAbsent(name, n -> new HashSet<>()).add(path);
+        }
+    }
+
+    private FileResult forget(String path) {
+        FileResult old = checked.remove(path);
+        if (old == null) {
+            return null;
+        }
+        index.remove(old);
+        Set<String> files = filesByPackage.get(old.getPackageName());
+        if (files != null) {
+            files.remove(path);
+        }
+        for (String name : referencedTypes(old)) {
+            Set<String> dependents = dependentsByType.get(name);
+            if (dependents != null) {
+                dependents.remove(path);
+                if (dependents.isEmpty()) {
+                    dependentsByType.remove(name);
+                }
+            }
+        }
+        return old;
+    }
+
+    /**
+     * @return the fully qualified names of the types a file declares for its package, and the
+     * package itself as package.* for the files that import it
+     */
+    private static Set<String> qualifiedTypes(FileResult result) {
+        Set<String> types = new HashSet<>();
+        for (String type : result.getPackageTypes()) {
+            types.add(qualify(result.getPackageName(), type));
+        }
+        if (!types.isEmpty()) {
+            types.add(result.getPackageName() + TypeCatalog.PACKAGE_SUFFIX);
+        }
+        return types;
+    }
+
+    /**
+     * @return the fully qualified names that ProjectIndex could resolve the file's unresolved
+     * type names to
+     */
+    private static Set<String> referencedTypes(FileResult result) {
+        Set<String> names = new HashSet<>();
+        for (Violation violation : result.getTypeViolations()) {
+            names.add(qualify(result.getPackageName(), violation.getName()));
+            names.add(violation.getName());
+        }
+        return names;
+    }
+
+    private static String qualify(String packageName, String name) {
+        return packageName.isEmpty() ? name : packageName + "." + name;
+    }
+
+    /**
+     * Resolve the files against the index on the pool.
+     */
+    private List<FileResult> resolve(Set<String> paths) {
+        List<String> present = new ArrayList<>();
+        List<Future<FileResult>> checkedFutures = new ArrayList<>();
+        for (String path : paths) {
+            FileResult result = checked.get(path);
+            if (result != null) {
+                present.add(path);
+                checkedFutures.add(CompletableFuture.completedFuture(result));
+            }
+        }
+        List<FileResult> resolved = new ArrayList<>(present.size());
+        for (Future<FileResult> future : TypeChecker.resolveAll(checkedFutures, index, pool)) {
+            try {
+                resolved.add(future.get());
+            } catch (ExecutionException ee) {
+                logger.error("Unable to resolve a file", ee.getCause());
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while resolving files", ie);
+            }
+        }
+        return resolved;
+    }
+
+    private void report(List<FileResult> results) {
+        for (FileResult result : results) {
+            reporter.accept(result);
+        }
+        logger.info("Checked {} files", results.size());
+    }
+}
@@ -5,7 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
-import java.util.Set;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
@@ -25,10 +25,12 @@ public class NoAllCapsVisitorTests {
 
     @Test
     public void propertyDoesNotHoldTest() {
-        Set<String> ac = TypeChecker.getAllCaps(TypeChecker.parse(hasAllCaps));
+        List<Violation> ac = TypeChecker.getAllCaps(TypeChecker.parse(hasAllCaps));
         assertFalse(ac.isEmpty());
         assertEquals(1, ac.size());
-        assertTrue(ac.contains("STUFF"));
+        assertEquals("STUFF", ac.get(0).getName());
+        assertEquals(5, ac.get(0).getLine());
+        assertEquals("public void STUFF() {", ac.get(0).snippet(hasAllCaps));
     }
 
 }
@@ -0,0 +1,65 @@
+package edu.byu.yc;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParserFactoryTests {
+
+    private static final String BROKEN = "class Broken {\n    void run() {\n        Missing m = new Missing(;\n    }\n}\n";
+
+    /**
+     * Tests that a reused parser gives each file a tree of its own, configured like the first
+     */
+    @Test
+    @DisplayName("Test Parser Is Reused Between Files")
+    public void testReuse() {
+        ParserFactory factory = new ParserFactory();
+        ASTNode first = factory.parse("class A {\n    B b;\n}\n".toCharArray());
+        ASTNode second = factory.parse("enum C {\n    D\n}\n".toCharArray());
+        assertNotSame(first.getAST(), second.getAST());
+        assertEquals("A", ((TypeDeclaration) ((CompilationUnit) first).types().get(0)).getName().getIdentifier());
+        // enums need the compliance options on every parse, not only the first
+        assertEquals(0, ((CompilationUnit) second).getProblems().length);
+    }
+
+    /**
+     * Tests that the statements of a broken method body are only checked with statements recovery
+     */
+    @Test
+    @DisplayName("Test Statements Recovery")
+    public void testStatementsRecovery() {
+        List<Violation> withoutRecovery = TypeChecker.getTypeViolations(new ParserFactory().parse(BROKEN.toCharArray()));
+        List<Violation> withRecovery = TypeChecker.getTypeViolations(
+                new ParserFactory(true, false).parse(BROKEN.toCharArray()));
+        assertEquals(0, withoutRecovery.size());
+        assertEquals(2, withRecovery.size());
+        assertEquals("Missing", withRecovery.get(0).getName());
+        assertEquals("Missing", withRecovery.get(1).getName());
+    }
+
+    /**
+     * Tests that a declarations parse keeps the declarations of a file and drops its bodies
+     */
+    @Test
+    @DisplayName("Test Declarations Parse Skips Bodies")
+    public void testDeclarations() {
+        String source = "class A {\n    static { Missing m; }\n    void run() { Missing m; }\n    class B { }\n}\n";
+        ParserFactory factory = new ParserFactory();
+        CompilationUnit unit = (CompilationUnit) factory.parseDeclarations(source.toCharArray());
+        TypeDeclaration type = (TypeDeclaration) unit.types().get(0);
+        assertEquals(1, type.getMethods().length);
+        assertEquals(1, type.getTypes().length);
+        assertTrue(type.getMethods()[0].getBody().statements().isEmpty());
+        assertEquals(0, TypeChecker.getTypeViolations(unit).size());
+        assertEquals(2, TypeChecker.getTypeViolations(factory.parse(source.toCharArray())).size());
+    }
+}
@@ -6,9 +6,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import edu.byu.yc.io.SourceFinder;
+import edu.byu.yc.io.SourceLoader;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -29,6 +39,10 @@ public class TypeCheckerTests {
     private final File validTypesFile = new File(new File(root, "test-files"), "ValidTypes.java"); //test-files/ValidTypes.java
     private final File oneValidOneInvalidFile = new File(new File(root, "test-files"), "OneValidOneInvalidType.java"); //test-files/OneValidOneInvalidType.java
     private final File invalidTypesFile = new File(new File(root, "test-files"), "InvalidTypes.java"); //test-files/InvalidTypes.java
+    private final File nestedScopesFile = new File(new File(root, "test-files"), "NestedScopes.java"); //test-files/NestedScopes.java
+    private final File storageFile = new File(new File(root, "test-files"), "Storage.java"); //test-files/Storage.java
+    private final File siblingFile = new File(new File(root, "test-files/samepackage"), "Sibling.java"); //test-files/samepackage/Sibling.java
+    private final File helperFile = new File(new File(root, "test-files/samepackage"), "Helper.java"); //test-files/samepackage/Helper.java
 
     private final String validJavaLangTypes = TypeChecker.readFile(validJavaLangTypesFile.getPath());
     private final String invalidJavaLangTypes = TypeChecker.readFile(invalidJavaLangTypesFile.getPath());
@@ -39,6 +53,8 @@ public class TypeCheckerTests {
     private final String validTypes = TypeChecker.readFile(validTypesFile.getPath());
     private final String oneValidOneInvalid = TypeChecker.readFile(oneValidOneInvalidFile.getPath());
     private final String invalidTypes = TypeChecker.readFile(invalidTypesFile.getPath()); // Should contain 3 type errors
+    private final String nestedScopes = TypeChecker.readFile(nestedScopesFile.getPath()); // Should contain 1 type error
+    private final String storage = TypeChecker.readFile(storageFile.getPath()); // Should contain 3 type errors
 
     /**
      * Tests that when java.lang classes are imported they can be used in the file without reporting
@@ -110,7 +126,230 @@ public class TypeCheckerTests {
         assertEquals(3, TypeChecker.getTypeViolations(TypeChecker.parse(invalidTypes)).size());
     }
 
+    /**
+     * Tests that a nested class can use the member types of every class that encloses it, not just
+     * its own, and that an undeclared type is still reported
+     */
+    @Test
+    @DisplayName("Test Types From Enclosing Scopes")
+    public void testEnclosingScopes() {
+        List<Violation> violations = TypeChecker.getTypeViolations(TypeChecker.parse(nestedScopes));
+        assertEquals(1, violations.size());
+        assertEquals("Missing", violations.get(0).getName());
+        assertEquals(Violation.UNDECLARED_TYPE, violations.get(0).getRuleId());
+    }
+
+    /**
+     * Tests that the type parameters of generic classes and methods, and local classes, are only
+     * in scope where they are declared, and that the member of a parameterized type is checked
+     */
+    @Test
+    @DisplayName("Test Type Parameters And Local Types")
+    public void testGenerics() {
+        List<Violation> violations = TypeChecker.getTypeViolations(TypeChecker.parse(storage));
+        assertEquals(3, violations.size());
+        assertEquals("Storage.Missing", violations.get(0).getName());
+        assertEquals("Node", violations.get(1).getName());
+        assertEquals("K", violations.get(2).getName());
+    }
+
+    /**
+     * Tests that the imports of a file are in scope in every top level class it declares, not
+     * just the first
+     */
+    @Test
+    @DisplayName("Test Imports In Every Top Level Class")
+    public void testImportsInEveryTopLevelClass() {
+        String source = "package p;\n"
+                + "import java.lang.String;\n"
+                + "import java.util.List;\n"
+                + "public class A { String s; List l; }\n"
+                + "class B { String s; List l; }\n"
+                + "class C { String s; Missing m; }\n";
+        List<Violation> violations = TypeChecker.getTypeViolations(TypeChecker.parse(source));
+        assertEquals(1, violations.size());
+        assertEquals("Missing", violations.get(0).getName());
+        assertEquals(6, violations.get(0).getLine());
+    }
+
+    /**
+     * Tests that checking several files on a pool parses each file on its own, so the results are
+     * the same as checking the files one at a time
+     */
+    @Test
+    @DisplayName("Test Parallel Check Of Several Files")
+    public void testCheckAllInParallel() {
+        List<String> paths = Arrays.asList(invalidJavaLangTypesFile.getPath(),
+                oneValidOneInvalidFile.getPath(), invalidTypesFile.getPath(), validTypesFile.getPath());
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            CheckResult result = TypeChecker.checkAll(paths, pool);
+            assertEquals(4, result.getFileResults().size());
+            assertEquals(invalidTypesFile.getPath(), result.getFileResults().get(2).getPath());
+            assertEquals(3, result.getFileResults().get(2).getTypeViolations().size());
+            assertEquals(6, result.getTypeViolations().size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests that classes can use the other classes of their package, and their member types,
+     * without importing them when they are declared in another file or later in the same file
+     */
+    @Test
+    @DisplayName("Test Types From The Same Package")
+    public void testSamePackage() {
+        List<String> paths = Arrays.asList(siblingFile.getPath(), helperFile.getPath());
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            CheckResult result = TypeChecker.checkAll(paths, pool);
+            assertTrue(result.getFileResults().get(0).getTypeViolations().isEmpty());
+            List<Violation> violations = result.getFileResults().get(1).getTypeViolations();
+            assertEquals(1, violations.size());
+            assertEquals("Undeclared", violations.get(0).getName());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests that streaming reports every file exactly once, with the same violations as checking
+     * the files together, even with a single file in flight
+     */
+    @Test
+    @DisplayName("Test Streaming Check Matches Checking Together")
+    public void testStreaming() {
+        String[] roots = {new File(root, "test-files").getPath()};
+        SourceFinder finder = new SourceFinder();
+        FileChecker checker = new FileChecker.Builder(new SourceLoader()).build();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Map<String, FileResult> streamed = new ConcurrentHashMap<>();
+            int files = TypeChecker.checkStreaming(roots, finder, checker, pool, 1,
+                    result -> assertNull(streamed.put(result.getPath(), result)));
+            CheckResult together = TypeChecker.checkAll(roots, finder, checker, pool);
+            assertEquals(together.getFileResults().size(), files);
+            assertEquals(files, streamed.size());
+            for (FileResult result : together.getFileResults()) {
+                FileResult summary = streamed.get(result.getPath());
+                assertEquals(result.getAllCaps(), summary.getAllCaps());
+                assertEquals(result.getTypeViolations(), summary.getTypeViolations());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
 
+    /**
+     * Tests that files on the source path resolve the checked files without being checked, and
+     * that indexing a file from its declarations alone finds the same package types
+     */
+    @Test
+    @DisplayName("Test Source Path Is Indexed Without Checking")
+    public void testSourcepath() {
+        String[] roots = {siblingFile.getPath()};
+        String[] sourcepath = {siblingFile.getParent()};
+        SourceFinder finder = new SourceFinder();
+        FileChecker checker = new FileChecker.Builder(new SourceLoader()).build();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            assertEquals(3, TypeChecker.checkAll(roots, finder, checker, pool).getFileResults().get(0)
+                    .getTypeViolations().size());
+            CheckResult result = TypeChecker.checkAll(roots, sourcepath, finder, checker, pool);
+            assertEquals(1, result.getFileResults().size());
+            assertTrue(result.getFileResults().get(0).getTypeViolations().isEmpty());
 
+            FileResult indexed = checker.index(helperFile.getPath());
+            assertEquals(checker.check(helperFile.getPath()).getPackageTypes(), indexed.getPackageTypes());
+            assertEquals("edu.byu.yc.tests.samepackage", indexed.getPackageName());
+            assertTrue(indexed.getTypeViolations().isEmpty());
+        } finally {
+            pool.shutdown();
+        }
+    }
 
+    /**
+     * Tests that once the violation limit is reached the files that have not been started are
+     * skipped, and that the files that were checked have the violations of a complete check
+     */
+    @Test
+    @DisplayName("Test Violation Limit Skips Remaining Files")
+    public void testViolationLimit() {
+        String[] roots = {new File(root, "test-files").getPath()};
+        SourceFinder finder = new SourceFinder();
+        FileChecker checker = new FileChecker.Builder(new SourceLoader()).build();
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            CheckResult complete = TypeChecker.checkAll(roots, finder, checker, pool);
+            CheckResult limited = TypeChecker.checkAll(roots, new String[0], finder, checker, pool,
+                    new CheckLimits(0, 1));
+            assertFalse(limited.getSkipped().isEmpty());
+            assertEquals(complete.getFileResults().size(),
+                    limited.getFileResults().size() + limited.getSkipped().size());
+            List<FileResult> checked = limited.getFileResults();
+            FileResult last = checked.get(checked.size() - 1);
+            assertFalse(last.getAllCaps().isEmpty() && last.getTypeViolations().isEmpty());
+            for (int i = 0; i < checked.size(); i++) {
+                FileResult expected = complete.getFileResults().get(i);
+                assertEquals(expected.getPath(), checked.get(i).getPath());
+                assertEquals(expected.getAllCaps(), checked.get(i).getAllCaps());
+                assertEquals(expected.getTypeViolations(), checked.get(i).getTypeViolations());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests that with a violation limit a file is resolved against files that have not been
+     * checked yet, on the roots and on the source path, through the declarations index
+     */
+    @Test
+    @DisplayName("Test Violation Limit Resolves Against Files Not Yet Checked")
+    public void testViolationLimitResolvesLaterFiles() {
+        SourceFinder finder = new SourceFinder();
+        FileChecker checker = new FileChecker.Builder(new SourceLoader()).build();
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            String[] siblingFirst = {siblingFile.getPath(), helperFile.getPath()};
+            CheckResult roots = TypeChecker.checkAll(siblingFirst, new String[0], finder, checker, pool,
+                    new CheckLimits(0, 1));
+            assertEquals(2, roots.getFileResults().size());
+            assertTrue(roots.getFileResults().get(0).getTypeViolations().isEmpty());
+
+            CheckResult sourcepath = TypeChecker.checkAll(new String[] {siblingFile.getPath()},
+                    new String[] {siblingFile.getParent()}, finder, checker, pool, new CheckLimits(0, 1));
+            assertEquals(1, sourcepath.getFileResults().size());
+            assertTrue(sourcepath.getFileResults().get(0).getTypeViolations().isEmpty());
+            assertTrue(sourcepath.getSkipped().isEmpty());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests that the analysis of a file that passes the file timeout stops and is marked as
+     * truncated, and that a file within it is not
+     */
+    @Test
+    @DisplayName("Test File Timeout Truncates The File")
+    public void testFileTimeout() {
+        StringBuilder source = new StringBuilder("public class Generated {\n");
+        for (int i = 0; i < 20000; i++) {
+            source.append("    class Inner").append(i).append(" { Missing").append(i).append(" field; }\n");
+        }
+        source.append("}\n");
+        FileChecker checker = new FileChecker.Builder(new SourceLoader())
+                .limits(new CheckLimits(1, 0))
+                .build();
+        FileResult truncated = checker.check("Generated.java", source.toString().toCharArray());
+        assertTrue(truncated.isTruncated());
+        assertTrue(truncated.getTypeViolations().size() < 20000);
+
+        FileChecker generous = new FileChecker.Builder(new SourceLoader())
+                .limits(new CheckLimits(10_000, 0))
+                .build();
+        assertFalse(generous.check(validTypesFile.getPath()).isTruncated());
+    }
 }
@@ -0,0 +1,39 @@
+package edu.byu.yc;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class ViolationTests {
+
+    /**
+     * Tests that violations that differ only in name or length are neither equal nor ordered the
+     * same, so sorted and hashed sets keep the same violations
+     */
+    @Test
+    @DisplayName("Test Ordering Is Consistent With Equals")
+    public void testOrderingConsistentWithEquals() {
+        Violation a = new Violation(Violation.UNDECLARED_TYPE, "A.java", "Foo", 10, 3, 1, 11);
+        Violation renamed = new Violation(Violation.UNDECLARED_TYPE, "A.java", "Bar", 10, 3, 1, 11);
+        Violation longer = new Violation(Violation.UNDECLARED_TYPE, "A.java", "Foo", 10, 7, 1, 11);
+        Violation moved = new Violation(Violation.UNDECLARED_TYPE, "A.java", "Foo", 10, 3, 4, 2);
+
+        assertNotEquals(a, renamed);
+        assertNotEquals(0, a.compareTo(renamed));
+        assertNotEquals(a, longer);
+        assertNotEquals(0, a.compareTo(longer));
+        assertEquals(a, moved);
+        assertEquals(0, a.compareTo(moved));
+        assertEquals(a.hashCode(), moved.hashCode());
+
+        TreeSet<Violation> sorted = new TreeSet<>(Arrays.asList(a, renamed, longer, moved));
+        assertEquals(new HashSet<>(sorted), new HashSet<>(Arrays.asList(a, renamed, longer, moved)));
+        assertEquals(3, sorted.size());
+    }
+}
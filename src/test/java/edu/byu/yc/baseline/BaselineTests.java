@@ -0,0 +1,133 @@
+package edu.byu.yc.baseline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import edu.byu.yc.CheckResult;
+import edu.byu.yc.FileChecker;
+import edu.byu.yc.FileResult;
+import edu.byu.yc.TypeChecker;
+import edu.byu.yc.Violation;
+import edu.byu.yc.io.SourceFinder;
+import edu.byu.yc.io.SourceLoader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BaselineTests {
+
+    private final String[] roots = {new File(System.getProperty("user.dir"), "test-files").getPath()};
+    private final File invalidTypesFile = new File(roots[0], "InvalidTypes.java");
+    private final Path directory = Files.createTempDirectory("BaselineTests");
+
+    public BaselineTests() throws IOException {
+    }
+
+    @AfterEach
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private CheckResult checkAll(FileChecker checker) {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            return TypeChecker.checkAll(roots, new SourceFinder(), checker, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static int countViolations(List<FileResult> results) {
+        int count = 0;
+        for (FileResult result : results) {
+            count += result.getAllCaps().size() + result.getTypeViolations().size();
+        }
+        return count;
+    }
+
+    /**
+     * Tests that a baseline of every violation is read back with the same count and suppresses
+     * every violation when the project is checked again
+     */
+    @Test
+    @DisplayName("Test Baseline Suppresses Every Recorded Violation")
+    public void testRoundTrip() throws IOException {
+        CheckResult result = checkAll(new FileChecker.Builder(new SourceLoader()).build());
+        int violations = countViolations(result.getFileResults());
+        assertTrue(violations > 0);
+
+        Path file = directory.resolve("baseline");
+        assertEquals(violations, Baseline.write(file, result));
+        Baseline baseline = Baseline.map(file);
+        assertEquals(violations, baseline.size());
+
+        FileChecker checker = new FileChecker.Builder(new SourceLoader()).baseline(baseline).build();
+        CheckResult filtered = checkAll(checker);
+        assertEquals(result.getFileResults().size(), filtered.getFileResults().size());
+        assertEquals(0, countViolations(filtered.getFileResults()));
+
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> Baseline.map(file));
+    }
+
+    /**
+     * Tests that a recorded violation keeps its fingerprint when lines are added above it, and
+     * that another occurrence of it or the same name in another type is still reported
+     */
+    @Test
+    @DisplayName("Test Fingerprints Ignore Line Shifts")
+    public void testLineShift() throws IOException {
+        FileChecker checker = new FileChecker.Builder(new SourceLoader()).build();
+        String path = invalidTypesFile.getPath();
+        FileResult original = checker.check(path);
+        CheckResult result = new CheckResult();
+        result.add(original);
+        Path file = directory.resolve("baseline");
+        Baseline.write(file, result);
+        Baseline baseline = Baseline.map(file);
+
+        String source = new String(Files.readAllBytes(invalidTypesFile.toPath()), StandardCharsets.UTF_8);
+        String shifted = source.replace("// Should contain 3 errors", "\n\n// Should contain 5 errors")
+                .replace("Samuel nuttall;", "Samuel nuttall;\n    Samuel second;")
+                .replace("Dinosaur meow;", "Dinosaur meow;\n        Hello again;");
+        FileResult edited = checker.check(path, shifted.toCharArray());
+        assertEquals(5, edited.getTypeViolations().size());
+        for (int i = 0; i < original.getTypeViolations().size(); i++) {
+            Violation before = original.getTypeViolations().get(i);
+            Violation after = edited.getTypeViolations().get(i == 0 ? 0 : i + 1);
+            assertNotEquals(before.getLine(), after.getLine());
+            assertEquals(Baseline.fingerprint(before), Baseline.fingerprint(after));
+        }
+
+        List<Violation> reported = baseline.filter(edited).getTypeViolations();
+        assertEquals(2, reported.size());
+        assertEquals("Samuel", reported.get(0).getName());
+        assertEquals(edited.getTypeViolations().get(1), reported.get(0));
+        assertEquals("Hello", reported.get(1).getName());
+        assertEquals("Outer.Inner2", reported.get(1).getEnclosingType());
+        assertEquals(1, baseline.count(Baseline.fingerprint(reported.get(0))));
+        assertEquals(0, baseline.count(Baseline.fingerprint(reported.get(1))));
+
+        FileResult clean = checker.check(new File(roots[0], "ValidTypes.java").getPath());
+        assertSame(clean, baseline.filter(clean));
+    }
+}
@@ -0,0 +1,116 @@
+package edu.byu.yc.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.stream.Stream;
+
+import edu.byu.yc.FileResult;
+import edu.byu.yc.Violation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ResultCacheTests {
+
+    private final Path directory = Files.createTempDirectory("ResultCacheTests");
+
+    public ResultCacheTests() throws IOException {
+    }
+
+    @AfterEach
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static String key(ResultCache cache, String contents) {
+        MessageDigest digest = cache.newKeyDigest();
+        digest.update(contents.getBytes(StandardCharsets.UTF_8));
+        return cache.key(digest);
+    }
+
+    /**
+     * Tests that results written to the cache are read back for the same contents and
+     * configuration, and that a different configuration gives a different key.
+     */
+    @Test
+    @DisplayName("Test Cached Results Round Trip")
+    public void testRoundTrip() throws IOException {
+        ResultCache cache = new ResultCache(directory, Long.MAX_VALUE, "1");
+        String key = key(cache, "class A {}");
+        assertNull(cache.get(key, "A.java"));
+
+        Violation stuff = new Violation(Violation.ALL_CAPS, "A.java", "STUFF", 14, 5, 2, 9);
+        cache.put(key, new FileResult("A.java", Collections.singletonList(stuff),
+                Collections.<Violation>emptyList(), new HashSet<>(Arrays.asList("p.A", "java.lang.String"))));
+        FileResult cached = cache.get(key, "moved/A.java");
+        assertNotNull(cached);
+        assertEquals("moved/A.java", cached.getPath());
+        assertEquals(1, cached.getAllCaps().size());
+        Violation cachedStuff = cached.getAllCaps().get(0);
+        assertEquals(stuff.inFile("moved/A.java"), cachedStuff);
+        assertEquals("STUFF", cachedStuff.getName());
+        assertEquals(2, cachedStuff.getLine());
+        assertEquals(9, cachedStuff.getColumn());
+        assertEquals(new HashSet<>(Arrays.asList("p.A", "java.lang.String")), cached.getDeclaredTypes());
+
+        ResultCache otherRules = new ResultCache(directory, Long.MAX_VALUE, "2");
+        assertNotEquals(key, key(otherRules, "class A {}"));
+    }
+
+    /**
+     * Tests that trimming a cache that is over its limit removes entries.
+     */
+    @Test
+    @DisplayName("Test Trim Evicts Entries Over The Limit")
+    public void testTrim() throws IOException {
+        ResultCache cache = new ResultCache(directory, 1, "1");
+        String key = key(cache, "class A {}");
+        FileResult result = new FileResult("A.java", Collections.<Violation>emptyList(),
+                Collections.<Violation>emptyList(), Collections.<String>emptySet());
+        cache.put(key, result);
+        assertNotNull(cache.get(key, "A.java"));
+
+        cache.trim();
+        assertNull(cache.get(key, "A.java"));
+    }
+
+    /**
+     * Tests that an entry whose set size is corrupt is a miss rather than a huge allocation.
+     */
+    @Test
+    @DisplayName("Test Corrupt Set Size Is A Miss")
+    public void testCorruptSetSize() throws IOException {
+        ResultCache cache = new ResultCache(directory, Long.MAX_VALUE, "1");
+        String key = key(cache, "class A {}");
+        cache.put(key, new FileResult("A.java", Collections.<Violation>emptyList(),
+                Collections.<Violation>emptyList(), Collections.singleton("p.A")));
+        Path entry;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            entry = paths.filter(Files::isRegularFile).findFirst().get();
+        }
+        // magic, version, an empty package name and two empty violation lists come first
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(entry));
+        assertEquals(1, bytes.getInt(20));
+        bytes.putInt(20, 1 << 28);
+        Files.write(entry, bytes.array());
+
+        assertNull(cache.get(key, "A.java"));
+        assertEquals(1, cache.getMisses());
+    }
+}
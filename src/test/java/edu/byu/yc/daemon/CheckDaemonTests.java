@@ -0,0 +1,142 @@
+package edu.byu.yc.daemon;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import edu.byu.yc.CheckResult;
+import edu.byu.yc.FileChecker;
+import edu.byu.yc.Violation;
+import edu.byu.yc.io.SourceFinder;
+import edu.byu.yc.io.SourceLoader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CheckDaemonTests {
+
+    private final String root = System.getProperty("user.dir");
+    private final File invalidTypesFile = new File(new File(root, "test-files"), "InvalidTypes.java");
+
+    private final Path directory = Files.createTempDirectory("CheckDaemonTests");
+    private final ExecutorService pool = Executors.newFixedThreadPool(2);
+    private final CheckDaemon daemon = new CheckDaemon(0, 60_000,
+            new SourceFinder(Collections.<String>emptyList(), Collections.<String>emptyList()),
+            new FileChecker.Builder(new SourceLoader()).build(), pool, StandardCharsets.UTF_8, directory);
+    private final Thread server = new Thread(daemon::serve);
+
+    public CheckDaemonTests() throws IOException {
+        server.start();
+    }
+
+    @AfterEach
+    public void stopDaemon() throws InterruptedException, IOException {
+        daemon.close();
+        server.join();
+        pool.shutdown();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Tests that a client gets the same violations from the daemon as checking the file in
+     * process, for each of several requests
+     */
+    @Test
+    @DisplayName("Test Daemon Checks Files For Clients")
+    public void testCheck() throws IOException {
+        DaemonClient client = new DaemonClient(daemon.getPort(), directory);
+        for (int i = 0; i < 3; i++) {
+            CheckResult result = client.check(new String[]{invalidTypesFile.getPath()});
+            assertNotNull(result);
+            assertEquals(1, result.getFileResults().size());
+            assertEquals(invalidTypesFile.getAbsolutePath(), result.getFileResults().get(0).getPath());
+            assertEquals(3, result.getTypeViolations().size());
+            for (Violation v : result.getTypeViolations()) {
+                assertEquals(Violation.UNDECLARED_TYPE, v.getRuleId());
+                assertTrue(v.getLine() > 0);
+                assertTrue(v.getSourceLine().contains(v.getName()));
+            }
+        }
+    }
+
+    /**
+     * Tests that a V line round trips with its enclosing type and a source line that has tabs of
+     * its own, and that a line without every field is rejected rather than read with a default
+     */
+    @Test
+    @DisplayName("Test Violation Lines Need Every Field")
+    public void testViolationLine() throws IOException {
+        String line = String.join("\t", DaemonProtocol.VIOLATION, Violation.UNDECLARED_TYPE, "4", "9", "57", "6",
+                "Hello", "Outer.Inner2", "Hello\tagain;");
+        Violation v = DaemonProtocol.parseViolation(DaemonProtocol.split(line), "A.java");
+        assertEquals("Hello", v.getName());
+        assertEquals(57, v.getStartOffset());
+        assertEquals("Outer.Inner2", v.getEnclosingType());
+        assertEquals("Hello\tagain;", v.getSourceLine());
+
+        String shorter = line.substring(0, line.indexOf("\tOuter"));
+        assertThrows(IOException.class, () -> DaemonProtocol.parseViolation(DaemonProtocol.split(shorter), "A.java"));
+    }
+
+    /**
+     * Tests that a shut down daemon stops accepting requests
+     */
+    @Test
+    @DisplayName("Test Daemon Shutdown")
+    public void testShutdown() throws IOException, InterruptedException {
+        DaemonClient client = new DaemonClient(daemon.getPort(), directory);
+        assertTrue(client.shutdown());
+        server.join();
+        assertFalse(Files.exists(daemon.getTokenFile()));
+        assertNull(client.check(new String[]{invalidTypesFile.getPath()}));
+    }
+
+    /**
+     * Tests that the token file can only be read by its owner, and that a connection that does not
+     * start with the token is refused, even to shut the daemon down
+     */
+    @Test
+    @DisplayName("Test Daemon Refuses Connections Without Its Token")
+    public void testToken() throws IOException {
+        if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            assertEquals(PosixFilePermissions.fromString("rw-------"),
+                    Files.getPosixFilePermissions(daemon.getTokenFile()));
+        }
+        for (String first : new String[]{DaemonProtocol.SHUTDOWN, DaemonProtocol.AUTH + "\twrong"}) {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+                OutputStream out = socket.getOutputStream();
+                DaemonProtocol.writeLine(out, first);
+                DaemonProtocol.writeLine(out, DaemonProtocol.SHUTDOWN);
+                out.flush();
+                InputStream in = socket.getInputStream();
+                assertTrue(DaemonProtocol.readLine(in).startsWith(DaemonProtocol.ERROR));
+                assertNull(DaemonProtocol.readLine(in));
+            }
+        }
+        assertNull(new DaemonClient(daemon.getPort(), directory.resolve("elsewhere"))
+                .check(new String[]{invalidTypesFile.getPath()}));
+        assertNotNull(new DaemonClient(daemon.getPort(), directory).check(new String[]{invalidTypesFile.getPath()}));
+    }
+}
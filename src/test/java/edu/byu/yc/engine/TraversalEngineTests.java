@@ -0,0 +1,163 @@
+package edu.byu.yc.engine;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.byu.yc.TypeChecker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TraversalEngineTests {
+
+    private static final String SOURCE = "class Outer {\n"
+            + "    int first;\n"
+            + "    void method() { }\n"
+            + "    class Inner {\n"
+            + "        int second;\n"
+            + "    }\n"
+            + "    int third;\n"
+            + "}\n";
+
+    private static ASTNode parse(String source) {
+        return TypeChecker.parse(source.toCharArray());
+    }
+
+    /**
+     * Records the type declarations, methods and names it is given, prefixed with its label, and
+     * prunes the type declarations named prune.
+     */
+    private static class RecordingVisitor extends ASTVisitor {
+        private final String label;
+        private final List<String> events;
+        private final String prune;
+
+        RecordingVisitor(String label, List<String> events, String prune) {
+            this.label = label;
+            this.events = events;
+            this.prune = prune;
+        }
+
+        @Override
+        public boolean visit(TypeDeclaration node) {
+            events.add(label + " visit " + node.getName().getIdentifier());
+            return !node.getName().getIdentifier().equals(prune);
+        }
+
+        @Override
+        public void endVisit(TypeDeclaration node) {
+            events.add(label + " end " + node.getName().getIdentifier());
+        }
+
+        @Override
+        public boolean visit(MethodDeclaration node) {
+            events.add(label + " method " + node.getName().getIdentifier());
+            return true;
+        }
+
+        @Override
+        public boolean visit(SimpleName node) {
+            events.add(label + " name " + node.getIdentifier());
+            return true;
+        }
+    }
+
+    /**
+     * Tests that a visitor only receives the node types it subscribed to, even if it overrides
+     * others, and that a node type the engine cannot dispatch is rejected
+     */
+    @Test
+    @DisplayName("Test Unsubscribed Node Types Are Not Dispatched")
+    public void testUnsubscribedNode() {
+        List<String> events = new ArrayList<>();
+        new TraversalEngine()
+                .subscribe(new RecordingVisitor("a", events, null), ASTNode.TYPE_DECLARATION)
+                .run(parse(SOURCE));
+        assertEquals(Arrays.asList("a visit Outer", "a visit Inner", "a end Inner", "a end Outer"), events);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new TraversalEngine().subscribe(new RecordingVisitor("a", events, null), ASTNode.BLOCK));
+    }
+
+    /**
+     * Tests that a visitor that returns false is muted until the end of the node it pruned, while
+     * the other visitors of the phase still see the node's children
+     */
+    @Test
+    @DisplayName("Test Pruning Visitor Is Muted While Others Continue")
+    public void testPrune() {
+        List<String> pruned = new ArrayList<>();
+        List<String> full = new ArrayList<>();
+        new TraversalEngine()
+                .subscribe(new RecordingVisitor("a", pruned, "Inner"), ASTNode.TYPE_DECLARATION,
+                        ASTNode.SIMPLE_NAME)
+                .subscribe(new RecordingVisitor("b", full, null), ASTNode.TYPE_DECLARATION,
+                        ASTNode.SIMPLE_NAME)
+                .run(parse(SOURCE));
+
+        assertEquals(Arrays.asList("a visit Outer", "a name Outer", "a name first", "a name method",
+                "a visit Inner", "a end Inner", "a name third", "a end Outer"), pruned);
+        assertTrue(full.contains("b name Inner"));
+        assertTrue(full.contains("b name second"));
+        assertEquals(pruned.size() + 2, full.size());
+    }
+
+    /**
+     * Tests that every visitor before a barrier finishes the whole tree, through its last
+     * endVisit, before any visitor after the barrier visits a node
+     */
+    @Test
+    @DisplayName("Test Barrier Finishes One Phase Before The Next")
+    public void testBarrier() {
+        List<String> events = new ArrayList<>();
+        TraversalEngine engine = new TraversalEngine()
+                .subscribe(new RecordingVisitor("1", events, null), ASTNode.TYPE_DECLARATION)
+                .barrier()
+                .subscribe(new RecordingVisitor("2", events, null), ASTNode.TYPE_DECLARATION,
+                        ASTNode.METHOD_DECLARATION);
+        assertEquals(2, engine.getPhaseCount());
+        engine.run(parse(SOURCE));
+
+        assertEquals(Arrays.asList("1 visit Outer", "1 visit Inner", "1 end Inner", "1 end Outer",
+                "2 visit Outer", "2 method method", "2 visit Inner", "2 end Inner", "2 end Outer"), events);
+    }
+
+    /**
+     * Tests that a walk past its deadline stops with the nodes found so far, and that a deadline
+     * in the future does not stop it
+     */
+    @Test
+    @DisplayName("Test Deadline Stops The Walk")
+    public void testDeadline() {
+        StringBuilder source = new StringBuilder("class Big {\n");
+        for (int i = 0; i < 2000; i++) {
+            source.append("    int field").append(i).append(";\n");
+        }
+        ASTNode root = parse(source.append("}\n").toString());
+
+        List<String> events = new ArrayList<>();
+        TraversalEngine late = new TraversalEngine()
+                .subscribe(new RecordingVisitor("a", events, null), ASTNode.SIMPLE_NAME)
+                .deadline(System.nanoTime() - 1);
+        assertThrows(DeadlineExceededException.class, () -> late.run(root));
+        assertTrue(late.getNodesVisited() > 0);
+        assertTrue(!events.isEmpty() && events.size() < 2001);
+
+        events.clear();
+        TraversalEngine onTime = new TraversalEngine()
+                .subscribe(new RecordingVisitor("a", events, null), ASTNode.SIMPLE_NAME)
+                .deadline(System.nanoTime() + 60_000_000_000L);
+        onTime.run(root);
+        assertEquals(2001, events.size());
+    }
+}
@@ -0,0 +1,163 @@
+package edu.byu.yc.environment;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import edu.byu.yc.FileChecker;
+import edu.byu.yc.FileResult;
+import edu.byu.yc.Violation;
+import edu.byu.yc.io.SourceLoader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClasspathIndexTests {
+
+    private final Path directory = Files.createTempDirectory("ClasspathIndexTests");
+    private final Path jar = directory.resolve("library.jar");
+    private final Path fallback = directory.resolve("fallback");
+
+    public ClasspathIndexTests() throws IOException {
+    }
+
+    @AfterEach
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * The index only reads entry names, so the entries can be empty
+     */
+    private void writeJar(String... entries) throws IOException {
+        try (OutputStream out = Files.newOutputStream(jar); ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (String entry : entries) {
+                zip.putNextEntry(new ZipEntry(entry));
+                zip.closeEntry();
+            }
+        }
+    }
+
+    private List<Violation> importViolations(FileResult result) {
+        List<Violation> violations = new ArrayList<>();
+        for (Violation violation : result.getTypeViolations()) {
+            if (Violation.UNRESOLVED_IMPORT.equals(violation.getRuleId())) {
+                violations.add(violation);
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * Tests that a jar's named classes and packages are indexed from its entry names, and that the
+     * index is saved next to the jar
+     */
+    @Test
+    @DisplayName("Test Jar Is Indexed From Entry Names")
+    public void testJar() throws IOException {
+        writeJar("a/b/C.class", "a/b/C$D.class", "a/b/C$1.class", "a/b/C$1Local.class",
+                "META-INF/versions/9/a/e/F.class", "META-INF/MANIFEST.MF", "a/b/notes.txt");
+        ClasspathIndex index = ClasspathIndex.load(Collections.singletonList(jar), fallback);
+        assertEquals(1, index.size());
+        assertTrue(index.contains("a.b.C"));
+        assertTrue(index.contains("a.b.C.D"));
+        assertTrue(index.contains("a.e.F"));
+        assertTrue(index.hasPackage("a.b"));
+        assertFalse(index.hasPackage("a"));
+        assertFalse(index.contains("a.b.C.1"));
+        assertFalse(index.contains("a.b.notes"));
+        assertTrue(Files.isRegularFile(jar.resolveSibling("library.jar.types")));
+    }
+
+    /**
+     * Tests that a saved index is used while its jar is unchanged, and replaced once the jar changes
+     */
+    @Test
+    @DisplayName("Test Saved Index Follows Its Jar")
+    public void testSavedIndex() throws IOException {
+        writeJar("a/b/C.class");
+        Path saved = jar.resolveSibling("library.jar.types");
+        ClasspathIndex.load(Collections.singletonList(jar), fallback);
+        Object fileKey = Files.readAttributes(saved, BasicFileAttributes.class).fileKey();
+        ClasspathIndex.load(Collections.singletonList(jar), fallback);
+        assertEquals(fileKey, Files.readAttributes(saved, BasicFileAttributes.class).fileKey());
+
+        FileTime modified = Files.getLastModifiedTime(jar);
+        writeJar("a/b/C.class", "a/b/G.class");
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(modified.toMillis() + 2000));
+        assertTrue(ClasspathIndex.load(Collections.singletonList(jar), fallback).contains("a.b.G"));
+    }
+
+    /**
+     * Tests that the fingerprint of a class directory changes when a class is added deep in it,
+     * which leaves the time of the directory itself unchanged, but not when a class is rewritten
+     */
+    @Test
+    @DisplayName("Test Fingerprint Follows Nested Classes")
+    public void testDirectoryFingerprint() throws IOException {
+        Path classes = directory.resolve("classes");
+        Path nested = Files.createDirectories(classes.resolve("com/foo"));
+        Files.write(nested.resolve("Bar.class"), new byte[] {1});
+        List<Path> classpath = Collections.singletonList(classes);
+        long fingerprint = ClasspathIndex.load(classpath, fallback).getFingerprint();
+
+        Files.write(nested.resolve("Bar.class"), new byte[] {1, 2});
+        assertEquals(fingerprint, ClasspathIndex.load(classpath, fallback).getFingerprint());
+
+        FileTime modified = Files.getLastModifiedTime(classes);
+        Files.write(nested.resolve("Baz.class"), new byte[] {1});
+        assertEquals(modified, Files.getLastModifiedTime(classes));
+        ClasspathIndex index = ClasspathIndex.load(classpath, fallback);
+        assertTrue(index.contains("com.foo.Baz"));
+        assertNotEquals(fingerprint, index.getFingerprint());
+    }
+
+    /**
+     * Tests that imports are checked against the classpath, that JDK imports are trusted without
+     * a JDK catalog, and that imports of the project's own types resolve once it is indexed
+     */
+    @Test
+    @DisplayName("Test Imports Are Checked Against The Classpath")
+    public void testImports() throws IOException {
+        writeJar("a/b/C.class", "a/b/C$D.class");
+        Path source = Files.write(directory.resolve("Uses.java"), ("package p;\n"
+                + "import a.b.C;\nimport a.b.*;\nimport a.b.C.D;\nimport static a.b.C.member;\n"
+                + "import java.util.List;\nimport a.x.Missing;\nimport a.y.*;\nimport q.Own;\n"
+                + "class Uses {\n    C c;\n    List<String> list;\n}\n").getBytes("UTF-8"));
+        Path own = Files.write(directory.resolve("Own.java"), "package q;\nclass Own {\n}\n".getBytes("UTF-8"));
+
+        FileChecker checker = new FileChecker.Builder(new SourceLoader())
+                .classpath(ClasspathIndex.load(Collections.singletonList(jar), fallback))
+                .build();
+        FileResult result = checker.check(source.toString());
+        List<Violation> violations = importViolations(result);
+        assertEquals(3, violations.size());
+        assertEquals("a.x.Missing", violations.get(0).getName());
+        assertEquals(7, violations.get(0).getLine());
+        assertEquals("a.y.*", violations.get(1).getName());
+        assertEquals("q.Own", violations.get(2).getName());
+
+        ProjectIndex project = new ProjectIndex();
+        project.add(result);
+        project.add(checker.check(own.toString()));
+        assertEquals(2, importViolations(project.resolve(result)).size());
+    }
+}
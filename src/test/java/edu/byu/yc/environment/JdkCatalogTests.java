@@ -0,0 +1,72 @@
+package edu.byu.yc.environment;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import edu.byu.yc.FileChecker;
+import edu.byu.yc.Violation;
+import edu.byu.yc.io.SourceLoader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JdkCatalogTests {
+
+    private final String root = System.getProperty("user.dir");
+    private final File implicitJdkTypesFile = new File(new File(root, "test-files"), "ImplicitJdkTypes.java");
+    private final Path directory = Files.createTempDirectory("JdkCatalogTests");
+
+    public JdkCatalogTests() throws IOException {
+    }
+
+    @AfterEach
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Tests that the catalog holds the public types of exported packages, including member types,
+     * and that a saved catalog is read back
+     */
+    @Test
+    @DisplayName("Test Catalog Of Public JDK Types")
+    public void testCatalog() throws IOException {
+        JdkCatalog built = JdkCatalog.load(directory);
+        JdkCatalog mapped = JdkCatalog.load(directory);
+        assertEquals(built.size(), mapped.size());
+        assertTrue(mapped.contains("java.lang.String"));
+        assertTrue(mapped.contains("java.util.Map.Entry"));
+        assertFalse(mapped.contains("java.util.HashMap.Node"));
+        assertFalse(mapped.contains("jdk.internal.misc.Unsafe"));
+        assertFalse(mapped.contains("java.lang.Frobnicator"));
+        assertTrue(mapped.hasPackage("java.util.concurrent"));
+        assertFalse(mapped.hasPackage("jdk.internal.misc"));
+    }
+
+    /**
+     * Tests that java.lang types, types from wildcard imports, member types of imported types and
+     * fully qualified types are accepted without a single type import
+     */
+    @Test
+    @DisplayName("Test Implicit And Wildcard JDK Types")
+    public void testImplicitTypes() throws IOException {
+        FileChecker checker = new FileChecker.Builder(new SourceLoader())
+                .catalog(JdkCatalog.load(directory))
+                .build();
+        List<Violation> violations = checker.check(implicitJdkTypesFile.getPath()).getTypeViolations();
+        assertEquals(1, violations.size());
+        assertEquals("Frobnicator", violations.get(0).getName());
+    }
+}
@@ -0,0 +1,66 @@
+package edu.byu.yc.environment;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import edu.byu.yc.TypeChecker;
+import edu.byu.yc.engine.TraversalEngine;
+import edu.byu.yc.visitors.QualifiedClassVisitor;
+import edu.byu.yc.visitors.TypeVisitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ScopeTreeTests {
+
+    private final String root = System.getProperty("user.dir");
+    private final File storageFile = new File(new File(root, "test-files"), "Storage.java");
+
+    /**
+     * Tests that a scope is entered for each type and for each generic method or method with
+     * local types, linked to the scope that declares it, and that every checked reference is
+     * counted in the scope it was used in
+     */
+    @Test
+    @DisplayName("Test Scopes Of Types And Methods")
+    public void testScopes() throws IOException {
+        String source = new String(Files.readAllBytes(storageFile.toPath()), StandardCharsets.UTF_8);
+        ASTNode node = TypeChecker.parse(source.toCharArray());
+        QualifiedClassVisitor qualifiedClassVisitor = new QualifiedClassVisitor();
+        TypeVisitor typeVisitor = new TypeVisitor(qualifiedClassVisitor.getClassValidators());
+        new TraversalEngine()
+                .subscribe(qualifiedClassVisitor, QualifiedClassVisitor.NODE_TYPES)
+                .barrier()
+                .subscribe(typeVisitor, TypeVisitor.NODE_TYPES)
+                .run(node);
+
+        // Storage, Entry, first, local and the local class Node
+        ScopeTree scopes = typeVisitor.getScopes();
+        assertEquals(5, scopes.size());
+        assertEquals(ScopeTree.NONE, scopes.getParent(0));
+        assertEquals(0, scopes.getParent(1));
+        assertEquals(0, scopes.getParent(2));
+        assertEquals(0, scopes.getParent(3));
+        assertEquals(3, scopes.getParent(4));
+        assertTrue(scopes.getIndexNode(4).isDeclared());
+
+        assertTrue(scopes.isTypeParameter(4, "E"));
+        assertTrue(scopes.isTypeParameter(4, "T"));
+        assertTrue(scopes.isTypeParameter(2, "K"));
+        assertFalse(scopes.isTypeParameter(1, "K"));
+        assertFalse(scopes.isTypeParameter(0, "T"));
+
+        int references = 0;
+        for (int scope = 0; scope < scopes.size(); scope++) {
+            references += scopes.getReferences(scope);
+        }
+        assertEquals(typeVisitor.getTypesChecked(), references);
+    }
+}
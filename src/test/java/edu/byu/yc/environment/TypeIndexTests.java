@@ -0,0 +1,91 @@
+package edu.byu.yc.environment;
+
+import org.eclipse.jdt.core.dom.AST;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TypeIndexTests {
+
+    private final AST ast = AST.newAST(AST.JLS3);
+
+    /**
+     * Tests that simple names are found from the root and qualified names through the member
+     * types of their qualifier
+     */
+    @Test
+    @DisplayName("Test Declare And Find Simple And Qualified Names")
+    public void testDeclareAndFind() {
+        TypeIndex index = new TypeIndex();
+        TypeIndex.Node outer = index.declare(index.getRoot(), "Outer");
+        TypeIndex.Node inner = index.declare(outer, "Inner");
+        TypeIndex.Node deepest = index.declare(inner, "Deepest");
+
+        assertFalse(index.getRoot().isDeclared());
+        assertTrue(outer.isDeclared());
+        assertSame(outer, index.find(index.getRoot(), ast.newName("Outer")));
+        assertSame(inner, index.find(index.getRoot(), ast.newName("Outer.Inner")));
+        assertSame(deepest, index.find(index.getRoot(), ast.newName("Outer.Inner.Deepest")));
+        assertSame(deepest, index.find(outer, ast.newName("Inner.Deepest")));
+        assertTrue(index.contains(ast.newName("Outer.Inner")));
+    }
+
+    /**
+     * Tests that declaring a segment again, even from another String, reuses its node and keeps
+     * the member types already declared in it
+     */
+    @Test
+    @DisplayName("Test Declaring A Segment Again Reuses Its Node")
+    public void testSegmentReuse() {
+        TypeIndex index = new TypeIndex();
+        TypeIndex.Node outer = index.declare(index.getRoot(), "Outer");
+        TypeIndex.Node inner = index.declare(outer, "Inner");
+
+        TypeIndex.Node again = index.declare(index.getRoot(), new String("Outer"));
+        assertSame(outer, again);
+        assertSame(inner, again.child(new String("Inner")));
+        assertSame(inner, index.declare(again, new StringBuilder("Inn").append("er").toString()));
+    }
+
+    /**
+     * Tests that names that were never declared, or that stop short of or run past a declared
+     * type, are not found
+     */
+    @Test
+    @DisplayName("Test Undeclared Names Are Not Found")
+    public void testUndeclared() {
+        TypeIndex index = new TypeIndex();
+        index.declare(index.declare(index.getRoot(), "Outer"), "Inner");
+
+        assertNull(index.find(index.getRoot(), ast.newName("Missing")));
+        assertNull(index.find(index.getRoot(), ast.newName("Inner")));
+        assertNull(index.find(index.getRoot(), ast.newName("Outer.Missing")));
+        assertNull(index.find(index.getRoot(), ast.newName("Missing.Inner")));
+        assertNull(index.find(index.getRoot(), ast.newName("Outer.Inner.Deeper")));
+        assertNull(index.find(null, ast.newName("Outer")));
+        assertFalse(index.contains(ast.newName("Missing")));
+    }
+
+    /**
+     * Tests that types declared in a scope from newScope are found through that scope only
+     */
+    @Test
+    @DisplayName("Test Lookup Through A New Scope")
+    public void testNewScope() {
+        TypeIndex index = new TypeIndex();
+        index.declare(index.getRoot(), "Outer");
+        TypeIndex.Node scope = index.newScope();
+        TypeIndex.Node local = index.declare(scope, "Local");
+        TypeIndex.Node member = index.declare(local, "Member");
+
+        assertFalse(scope.isDeclared());
+        assertSame(local, index.find(scope, ast.newName("Local")));
+        assertSame(member, index.find(scope, ast.newName("Local.Member")));
+        assertNull(index.find(scope, ast.newName("Outer")));
+        assertFalse(index.contains(ast.newName("Local")));
+    }
+}
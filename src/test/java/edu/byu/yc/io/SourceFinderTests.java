@@ -0,0 +1,155 @@
+package edu.byu.yc.io;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * JUnit 5.3 has no TempDir, so each test gets a directory of its own the way the other tests do.
+ */
+public class SourceFinderTests {
+
+    private final Path directory = Files.createTempDirectory("SourceFinderTests");
+    private final Logger logger = (Logger) LoggerFactory.getLogger(SourceFinder.class);
+    private final ListAppender<ILoggingEvent> warnings = new ListAppender<>();
+
+    public SourceFinderTests() throws IOException {
+    }
+
+    @BeforeEach
+    public void captureWarnings() {
+        warnings.start();
+        logger.addAppender(warnings);
+    }
+
+    @AfterEach
+    public void deleteDirectory() throws IOException {
+        logger.detachAppender(warnings);
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private Path createFile(String relative) throws IOException {
+        Path file = directory.resolve(relative);
+        Files.createDirectories(file.getParent());
+        return Files.write(file, "class A {}".getBytes());
+    }
+
+    private Set<Path> find(SourceFinder finder) {
+        return new HashSet<>(finder.findAll(new String[] {directory.toString()}));
+    }
+
+    private int countWarnings() {
+        int count = 0;
+        for (ILoggingEvent event : warnings.list) {
+            if (event.getLevel() == Level.WARN) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Tests that an exclude of target/** skips the target directory at the root but not a
+     * directory named target deeper in the tree
+     */
+    @Test
+    @DisplayName("Test Exclude Is Relative To The Root")
+    public void testExclude() throws IOException {
+        Path source = createFile("src/A.java");
+        createFile("target/B.java");
+        createFile("target/gen/C.java");
+        Path nested = createFile("lib/target/D.java");
+        SourceFinder finder = new SourceFinder(Collections.<String>emptyList(),
+                Collections.singletonList("target/**"));
+        assertEquals(new HashSet<>(Arrays.asList(source, nested)), find(finder));
+    }
+
+    /**
+     * Tests that an include glob with a directory is matched against the path relative to the
+     * root, and one without is matched against the file name at any depth
+     */
+    @Test
+    @DisplayName("Test Include Matches Relative Path And File Name")
+    public void testInclude() throws IOException {
+        Path source = createFile("src/A.java");
+        Path generated = createFile("src/GenA.java");
+        Path deepGenerated = createFile("deep/x/GenB.java");
+        createFile("deep/B.java");
+
+        SourceFinder relative = new SourceFinder(Collections.singletonList("src/*.java"),
+                Collections.<String>emptyList());
+        assertEquals(new HashSet<>(Arrays.asList(source, generated)), find(relative));
+
+        SourceFinder name = new SourceFinder(Collections.singletonList("Gen*.java"), Collections.<String>emptyList());
+        assertEquals(new HashSet<>(Arrays.asList(generated, deepGenerated)), find(name));
+    }
+
+    /**
+     * Tests that a symbolic link back to an ancestor is skipped with a warning and every file is
+     * still found exactly once
+     */
+    @Test
+    @DisplayName("Test Symbolic Link Loop Is Skipped")
+    public void testSymbolicLinkLoop() throws IOException {
+        Path source = createFile("a/A.java");
+        try {
+            Files.createSymbolicLink(directory.resolve("a/loop"), directory.resolve("a"));
+        } catch (UnsupportedOperationException | IOException e) {
+            assumeTrue(false, "symbolic links are not supported: " + e);
+        }
+        List<Path> found = new ArrayList<>(new SourceFinder().findAll(new String[] {directory.toString()}));
+        assertEquals(Collections.singletonList(source), found);
+        assertEquals(1, countWarnings());
+    }
+
+    /**
+     * Tests that a directory that cannot be read is skipped with a warning instead of ending the
+     * walk with an exception
+     */
+    @Test
+    @DisplayName("Test Unreadable Directory Is Skipped")
+    public void testUnreadableDirectory() throws IOException {
+        Path source = createFile("a/A.java");
+        createFile("locked/B.java");
+        Path locked = directory.resolve("locked");
+        try {
+            Files.setPosixFilePermissions(locked, PosixFilePermissions.fromString("---------"));
+        } catch (UnsupportedOperationException e) {
+            assumeTrue(false, "permissions are not supported: " + e);
+        }
+        try {
+            // a user that can read anything, such as root, cannot lock the directory
+            assumeFalse(Files.isReadable(locked), "unreadable directories can be read by this user");
+            assertEquals(Collections.singleton(source), find(new SourceFinder()));
+            assertEquals(1, countWarnings());
+        } finally {
+            Files.setPosixFilePermissions(locked, PosixFilePermissions.fromString("rwx------"));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package edu.byu.yc.io;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class SourceLoaderTests {
+
+    private final SourceLoader loader = new SourceLoader();
+    private final List<Path> tempFiles = new ArrayList<>();
+
+    @AfterEach
+    public void deleteTempFiles() throws IOException {
+        for (Path path : tempFiles) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private Path write(byte[] contents) throws IOException {
+        Path path = Files.createTempFile("SourceLoaderTests", ".java");
+        tempFiles.add(path);
+        Files.write(path, contents);
+        return path;
+    }
+
+    /**
+     * Tests that a shorter file loaded into a reused array does not see the end of the longer file
+     * that was loaded before it, only trailing whitespace.
+     */
+    @Test
+    @DisplayName("Test Reused Buffer Is Padded With Whitespace")
+    public void testReusedBufferIsPadded() throws IOException {
+        Source longer = loader.load(write("class Longer { int value; }".getBytes(StandardCharsets.UTF_8)));
+        char[] array = longer.getContents();
+
+        Source shorter = loader.load(write("class A {}".getBytes(StandardCharsets.UTF_8)));
+        assertSame(array, shorter.getContents());
+        assertEquals("class A {}", shorter.toString());
+        assertEquals("class A {}", new String(shorter.getContents()).trim());
+    }
+
+    /**
+     * Tests that a file that is not valid UTF-8 is still loaded, one character per byte.
+     */
+    @Test
+    @DisplayName("Test Malformed Input Falls Back To ISO-8859-1")
+    public void testMalformedInputFallsBack() throws IOException {
+        byte[] latin1 = "class Café {}".getBytes(StandardCharsets.ISO_8859_1);
+        assertEquals("class Café {}", loader.load(write(latin1)).toString());
+    }
+}
@@ -0,0 +1,116 @@
+package edu.byu.yc.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import edu.byu.yc.FileChecker;
+import edu.byu.yc.Violation;
+import edu.byu.yc.io.SourceLoader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CheckMetricsTests {
+
+    private static final String[] FILES = {"test-files/HasAllCaps.java", "test-files/InvalidTypes.java",
+            "test-files/ValidTypes.java"};
+
+    private static CheckMetrics check() {
+        CheckMetrics metrics = new CheckMetrics();
+        FileChecker checker = new FileChecker.Builder(new SourceLoader()).metrics(metrics).build();
+        for (String file : FILES) {
+            checker.check(file);
+        }
+        return metrics;
+    }
+
+    /**
+     * Tests that each file is counted along with its nodes, types and violations
+     */
+    @Test
+    @DisplayName("Test Files Are Counted")
+    public void testCounts() {
+        CheckMetrics metrics = check();
+        assertEquals(FILES.length, metrics.getFilesChecked());
+        assertEquals(0, metrics.getCachedFiles());
+        assertTrue(metrics.getNodesVisited() > 0);
+        assertTrue(metrics.getTypesChecked() > 0);
+        Map<String, Long> violations = metrics.getViolationsByRule();
+        assertTrue(violations.get(Violation.ALL_CAPS) > 0);
+        assertTrue(violations.get(Violation.UNDECLARED_TYPE) > 0);
+    }
+
+    /**
+     * Tests that every phase of each file is timed, and that files are ranked slowest first
+     */
+    @Test
+    @DisplayName("Test Phases Are Timed")
+    public void testPhases() {
+        CheckMetrics metrics = check();
+        metrics.time(Phase.EXPAND, () -> { });
+        for (PhaseTotals phase : metrics.getPhases()) {
+            long expected = phase.getPhase().equals(Phase.EXPAND.getLabel()) ? 1
+                    : phase.getPhase().equals(Phase.INDEX.getLabel()) ? 0 : FILES.length;
+            assertEquals(expected, phase.getCount(), phase.getPhase());
+        }
+        List<FileTiming> slowest = metrics.getSlowestFiles();
+        assertEquals(FILES.length, slowest.size());
+        for (int i = 1; i < slowest.size(); i++) {
+            assertTrue(slowest.get(i - 1).getWallMicros() >= slowest.get(i).getWallMicros());
+        }
+        assertTrue(metrics.getMedianFileMicros() <= metrics.getP99FileMicros());
+        assertTrue(metrics.getP99FileMicros() >= slowest.get(0).getWallMicros());
+        assertTrue(metrics.format().contains(Phase.TYPES.getLabel()));
+
+        metrics.reset();
+        assertEquals(0, metrics.getFilesChecked());
+        assertTrue(metrics.getSlowestFiles().isEmpty());
+    }
+
+    /**
+     * Tests that time a phase spent waiting is taken back out of its wall time
+     */
+    @Test
+    @DisplayName("Test Waits Are Excluded From A Phase")
+    public void testExcludeWait() {
+        CheckMetrics metrics = new CheckMetrics();
+        long[] waited = new long[1];
+        metrics.time(Phase.EXPAND, () -> {
+            long start = System.nanoTime();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            waited[0] = System.nanoTime() - start;
+        });
+        metrics.excludeWait(Phase.EXPAND, waited[0]);
+        PhaseTotals expand = metrics.getPhases().get(Phase.EXPAND.ordinal());
+        assertEquals(1, expand.getCount());
+        assertTrue(expand.getWallMillis() < 100, expand.getWallMillis() + " ms");
+    }
+
+    /**
+     * Tests that registered metrics can be read through the platform MBeanServer
+     */
+    @Test
+    @DisplayName("Test Metrics Are Registered With JMX")
+    public void testRegister() throws Exception {
+        CheckMetrics metrics = check();
+        metrics.register();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(CheckMetrics.OBJECT_NAME);
+        try {
+            assertEquals((long) FILES.length, server.getAttribute(name, "FilesChecked"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
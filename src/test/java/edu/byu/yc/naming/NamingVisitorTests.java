@@ -0,0 +1,111 @@
+package edu.byu.yc.naming;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.byu.yc.ParserFactory;
+import edu.byu.yc.Violation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NamingVisitorTests {
+
+    private static final String SOURCE = "class widget {\n"
+            + "    static final int maxSize = 1;\n"
+            + "    int Count;\n"
+            + "    int ok;\n"
+            + "    widget() { }\n"
+            + "    void Run(int Arg) { int local_name = Arg; }\n"
+            + "    interface Shape { int sides = 3; }\n"
+            + "    enum Color { red, GREEN }\n"
+            + "}\n";
+
+    private static List<Violation> check(NamingRules rules) {
+        ASTNode unit = new ParserFactory().parse(SOURCE.toCharArray());
+        NamingVisitor visitor = new NamingVisitor("widget.java", rules);
+        unit.accept(visitor);
+        return visitor.getViolations();
+    }
+
+    private static List<String> describe(List<Violation> violations) {
+        List<String> described = new ArrayList<>();
+        for (Violation violation : violations) {
+            described.add(violation.getRuleId() + " " + violation.getName());
+        }
+        return described;
+    }
+
+    /**
+     * Tests that each style accepts and rejects the shapes it should
+     */
+    @Test
+    @DisplayName("Test Name Styles")
+    public void testStyles() {
+        for (String name : new String[]{"STUFF", "A", "X1", "UTF_8", "_", "$"}) {
+            assertTrue(NameStyle.ALL_CAPS.matches(NameStyle.classify(name)), name);
+        }
+        for (String name : new String[]{"Stuff", "a", "STRA\u00dfE"}) {
+            assertFalse(NameStyle.ALL_CAPS.matches(NameStyle.classify(name)), name);
+        }
+        assertTrue(NameStyle.CONSTANT_CASE.matches(NameStyle.classify("MAX_VALUE")));
+        assertTrue(NameStyle.CONSTANT_CASE.matches(NameStyle.classify("UTF_8")));
+        assertFalse(NameStyle.CONSTANT_CASE.matches(NameStyle.classify("_MAX")));
+        assertFalse(NameStyle.CONSTANT_CASE.matches(NameStyle.classify("MAX__VALUE")));
+        assertFalse(NameStyle.CONSTANT_CASE.matches(NameStyle.classify("MAX_")));
+        assertFalse(NameStyle.CONSTANT_CASE.matches(NameStyle.classify("MaxValue")));
+        assertTrue(NameStyle.CAMEL_CASE.matches(NameStyle.classify("getValue2")));
+        assertFalse(NameStyle.CAMEL_CASE.matches(NameStyle.classify("get_value")));
+        assertFalse(NameStyle.CAMEL_CASE.matches(NameStyle.classify("GetValue")));
+        assertTrue(NameStyle.PASCAL_CASE.matches(NameStyle.classify("FileChecker")));
+        assertFalse(NameStyle.PASCAL_CASE.matches(NameStyle.classify("fileChecker")));
+        assertFalse(NameStyle.PASCAL_CASE.matches(NameStyle.classify("File$Checker")));
+    }
+
+    /**
+     * Tests that without conventions only the first use of each all caps name is reported
+     */
+    @Test
+    @DisplayName("Test Default Rules Report Only All Caps Names")
+    public void testDefault() {
+        List<Violation> violations = check(NamingRules.DEFAULT);
+        assertEquals(1, violations.size());
+        assertEquals(Violation.ALL_CAPS, violations.get(0).getRuleId());
+        assertEquals("GREEN", violations.get(0).getName());
+        assertEquals(8, violations.get(0).getLine());
+    }
+
+    /**
+     * Tests that each declaration is checked against the convention of its kind, constructors are
+     * not checked and uses of a name are not reported again
+     */
+    @Test
+    @DisplayName("Test Conventions Of Each Kind Of Declaration")
+    public void testConventions() {
+        List<String> violations = describe(check(NamingRules.JAVA));
+        List<String> expected = new ArrayList<>();
+        expected.add("naming-type widget");
+        expected.add("naming-constant maxSize");
+        expected.add("naming-field Count");
+        expected.add("naming-method Run");
+        expected.add("naming-variable Arg");
+        expected.add("naming-variable local_name");
+        expected.add("naming-constant sides");
+        expected.add("naming-constant red");
+        expected.add("all-caps GREEN");
+        assertEquals(expected, violations);
+
+        List<String> methodsOnly = describe(check(NamingRules.parse("method=camelCase")));
+        assertEquals(2, methodsOnly.size());
+        assertTrue(methodsOnly.contains("naming-method Run"));
+        assertEquals("method=camelCase", NamingRules.parse("method=camelCase").toString());
+        assertThrows(IllegalArgumentException.class, () -> NamingRules.parse("class=camelCase"));
+        assertThrows(IllegalArgumentException.class, () -> NamingRules.parse("method=snake_case"));
+    }
+}
@@ -0,0 +1,98 @@
+package edu.byu.yc.report;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import edu.byu.yc.FileResult;
+import edu.byu.yc.TypeChecker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReportSinkTests {
+
+    private final String root = System.getProperty("user.dir");
+    private final String oneInvalidFile = new File(new File(root, "test-files"), "OneValidOneInvalidType.java").getPath();
+    private final String noAllCapsFile = new File(new File(root, "test-files"), "NoAllCaps.java").getPath();
+
+    private String report(ReportFormat format, String... paths) throws IOException {
+        StringWriter out = new StringWriter();
+        try (ReportSink sink = new ReportSink(format.newWriter(out), 1)) {
+            for (String path : paths) {
+                FileResult result = TypeChecker.checkFile(path);
+                sink.accept(result);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Tests that the text report has each violation's position and message, then its source line
+     */
+    @Test
+    @DisplayName("Test Text Report")
+    public void testText() throws IOException {
+        assertEquals(oneInvalidFile + ":7:5: Invalid type used Cheese\nCheese cheese;\n",
+                report(ReportFormat.TEXT, noAllCapsFile, oneInvalidFile));
+    }
+
+    /**
+     * Tests that the text report shows the line the checker decoded, from a file that fell back
+     * to ISO-8859-1, even once the file is gone
+     */
+    @Test
+    @DisplayName("Test Text Report Shows The Decoded Source")
+    public void testTextDecodedSource() throws IOException {
+        Path file = Files.createTempFile("ReportSinkTests", ".java");
+        FileResult result;
+        try {
+            Files.write(file, "class Cafe {\n    /* caf\u00e9 */ Cheese cheese;\n}\n"
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            result = TypeChecker.checkFile(file.toString());
+        } finally {
+            Files.delete(file);
+        }
+        StringWriter out = new StringWriter();
+        try (ReportSink sink = new ReportSink(ReportFormat.TEXT.newWriter(out), 1)) {
+            sink.accept(result);
+        }
+        assertEquals(file + ":2:16: Invalid type used Cheese\n/* caf\u00e9 */ Cheese cheese;\n", out.toString());
+    }
+
+    /**
+     * Tests that the JSON Lines report has one object per violation, with its path escaped
+     */
+    @Test
+    @DisplayName("Test JSON Lines Report")
+    public void testJsonLines() throws IOException {
+        String file = oneInvalidFile.replace("\\", "\\\\");
+        assertEquals("{\"file\":\"" + file + "\",\"line\":7,\"column\":5,\"offset\":96,\"length\":6,"
+                        + "\"rule\":\"undeclared-type\",\"name\":\"Cheese\",\"message\":\"Invalid type used Cheese\"}\n",
+                report(ReportFormat.JSONL, noAllCapsFile, oneInvalidFile));
+    }
+
+    /**
+     * Tests that a SARIF report is a complete log even when no file has a violation, and that each
+     * violation is a result in the run
+     */
+    @Test
+    @DisplayName("Test SARIF Report")
+    public void testSarif() throws IOException {
+        String empty = report(ReportFormat.SARIF, noAllCapsFile);
+        assertTrue(empty.startsWith("{\"version\":\"2.1.0\""));
+        assertTrue(empty.endsWith("\"results\":[\n]}]}\n"));
+
+        String sarif = report(ReportFormat.SARIF, oneInvalidFile, oneInvalidFile);
+        assertTrue(sarif.contains("{\"ruleId\":\"undeclared-type\",\"level\":\"error\","
+                + "\"message\":{\"text\":\"Invalid type used Cheese\"}"));
+        assertTrue(sarif.contains("\"region\":{\"startLine\":7,\"startColumn\":5,\"charOffset\":96,\"charLength\":6}"));
+        assertEquals(2, sarif.split("\"ruleId\"").length - 1);
+    }
+}
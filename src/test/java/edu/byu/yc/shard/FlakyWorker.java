@@ -0,0 +1,25 @@
+package edu.byu.yc.shard;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import edu.byu.yc.TypeChecker;
+
+/**
+ * A worker that crashes the first time any worker is started with the same marker file, for
+ * testing that the coordinator starts a failed shard again.
+ */
+public class FlakyWorker {
+
+    public static void main(String[] args) throws IOException {
+        try {
+            Files.createFile(Paths.get(args[0]));
+            System.exit(3);
+        } catch (FileAlreadyExistsException e) {
+            TypeChecker.main(Arrays.copyOfRange(args, 1, args.length));
+        }
+    }
+}
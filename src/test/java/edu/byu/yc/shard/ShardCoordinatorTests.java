@@ -0,0 +1,159 @@
+package edu.byu.yc.shard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import edu.byu.yc.CheckResult;
+import edu.byu.yc.FileChecker;
+import edu.byu.yc.FileResult;
+import edu.byu.yc.TypeChecker;
+import edu.byu.yc.io.SourceFinder;
+import edu.byu.yc.io.SourceLoader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ShardCoordinatorTests {
+
+    private final String[] roots = {new File(System.getProperty("user.dir"), "test-files").getPath()};
+    private final Path directory = Files.createTempDirectory("ShardCoordinatorTests");
+
+    public ShardCoordinatorTests() throws IOException {
+    }
+
+    @AfterEach
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * The classpath of the test, for starting workers, whether or not the runner put it on the
+     * system classpath
+     */
+    private static String classpath() throws URISyntaxException {
+        ClassLoader loader = ShardCoordinatorTests.class.getClassLoader();
+        if (!(loader instanceof URLClassLoader)) {
+            return System.getProperty("java.class.path");
+        }
+        List<String> entries = new ArrayList<>();
+        for (URL url : ((URLClassLoader) loader).getURLs()) {
+            entries.add(Paths.get(url.toURI()).toString());
+        }
+        entries.add(System.getProperty("java.class.path"));
+        return String.join(File.pathSeparator, entries);
+    }
+
+    /**
+     * Tests that every file goes to exactly one shard and that no shard is heavier than another
+     * by more than the heaviest file
+     */
+    @Test
+    @DisplayName("Test Shards Are Balanced By Size")
+    public void testPlan() throws IOException {
+        List<Path> files = new SourceFinder().findAll(roots);
+        List<Shard> shards = ShardCoordinator.plan(files, Collections.<Path>emptyList(), 3);
+        assertEquals(3, shards.size());
+        Set<String> planned = new HashSet<>();
+        long heaviestFile = 0;
+        for (Path file : files) {
+            heaviestFile = Math.max(heaviestFile, Files.size(file));
+        }
+        long lightest = Long.MAX_VALUE;
+        long heaviest = 0;
+        for (Shard shard : shards) {
+            for (String path : shard.getChecked()) {
+                assertTrue(planned.add(path), path);
+            }
+            lightest = Math.min(lightest, shard.getWeight());
+            heaviest = Math.max(heaviest, shard.getWeight());
+        }
+        assertEquals(files.size(), planned.size());
+        assertTrue(heaviest - lightest <= heaviestFile);
+        assertEquals(1, ShardCoordinator.plan(files.subList(0, 1), Collections.<Path>emptyList(), 3).size());
+    }
+
+    /**
+     * Tests that results are read back as they were written and that a truncated file is rejected
+     */
+    @Test
+    @DisplayName("Test Shard Results Round Trip")
+    public void testResults() throws IOException {
+        FileChecker checker = new FileChecker.Builder(new SourceLoader()).build();
+        ShardResults results = new ShardResults();
+        String path = new File(roots[0], "InvalidTypes.java").getPath();
+        FileResult checked = checker.check(path);
+        results.add(Shard.CHECK, checked);
+        results.add(Shard.INDEX, checker.index(path));
+        Path file = directory.resolve("results");
+        results.write(file);
+
+        ShardResults read = ShardResults.read(file);
+        assertEquals(1, read.getChecked().size());
+        assertEquals(1, read.getIndexed().size());
+        assertEquals(checked.getTypeViolations(), read.getChecked().get(0).getTypeViolations());
+        assertEquals(checked.getPackageTypes(), read.getIndexed().get(0).getPackageTypes());
+
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> ShardResults.read(file));
+    }
+
+    /**
+     * Tests that a worker that crashes is started again and that the merged results match
+     * checking every file in one process, sorted by path
+     */
+    @Test
+    @DisplayName("Test Crashed Worker Is Retried And Results Merge")
+    public void testWorkers() throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(classpath());
+        command.add(FlakyWorker.class.getName());
+        command.add(directory.resolve("crashed").toString());
+        ShardCoordinator coordinator = new ShardCoordinator(command, Arrays.asList("--threads", "1"), 2, 120000);
+        SourceFinder finder = new SourceFinder();
+        CheckResult sharded = coordinator.check(roots, new String[0], finder);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            List<FileResult> together = new ArrayList<>(TypeChecker.checkAll(roots, finder,
+                    new FileChecker.Builder(new SourceLoader()).build(), pool).getFileResults());
+            together.sort(Comparator.comparing(FileResult::getPath));
+            assertTrue(Files.exists(directory.resolve("crashed")));
+            assertEquals(together.size(), sharded.getFileResults().size());
+            for (int i = 0; i < together.size(); i++) {
+                FileResult expected = together.get(i);
+                FileResult actual = sharded.getFileResults().get(i);
+                assertEquals(expected.getPath(), actual.getPath());
+                assertEquals(expected.getAllCaps(), actual.getAllCaps());
+                assertEquals(expected.getTypeViolations(), actual.getTypeViolations());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package edu.byu.yc.watch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import edu.byu.yc.CheckResult;
+import edu.byu.yc.FileChecker;
+import edu.byu.yc.FileResult;
+import edu.byu.yc.io.SourceFinder;
+import edu.byu.yc.io.SourceLoader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class WatchSessionTests {
+
+    private final Path directory = Files.createTempDirectory("WatchSessionTests");
+    private final Path a = write("A.java", "package p;\nclass A {\n    B b;\n}\n");
+    private final Path b = write("B.java", "package p;\nclass B {\n}\n");
+    private final Path c = write("C.java", "package p;\nclass C {\n    Missing missing;\n}\n");
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(2);
+    private final Map<String, FileResult> reported = new LinkedHashMap<>();
+    private final WatchSession session = new WatchSession(new String[]{directory.toString()},
+            new SourceFinder(), new FileChecker.Builder(new SourceLoader()).build(), pool,
+            result -> reported.put(result.getPath(), result));
+
+    public WatchSessionTests() throws IOException {
+    }
+
+    private Path write(String name, String contents) throws IOException {
+        return Files.write(directory.resolve(name), contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    public void cleanUp() throws IOException {
+        session.close();
+        pool.shutdown();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private int violations(String path) {
+        return reported.get(path).getTypeViolations().size();
+    }
+
+    /**
+     * Tests that removing and restoring a type resolves the files that use it again, and only
+     * those files
+     */
+    @Test
+    @DisplayName("Test Dependents Are Resolved Again")
+    public void testDependents() throws IOException {
+        CheckResult initial = session.start();
+        assertEquals(3, initial.getFileResults().size());
+        assertEquals(1, initial.getTypeViolations().size());
+
+        Files.delete(b);
+        session.changed(Collections.singleton(b));
+        assertEquals(Collections.singletonList(a.toString()), new ArrayList<>(reported.keySet()));
+        assertEquals(1, violations(a.toString()));
+
+        reported.clear();
+        write("B.java", "package p;\nclass B {\n}\n");
+        session.changed(Collections.singleton(b));
+        assertEquals(2, reported.size());
+        assertEquals(0, violations(a.toString()));
+        assertEquals(0, violations(b.toString()));
+    }
+
+    /**
+     * Tests that a change that does not add or remove a type only checks the changed file
+     */
+    @Test
+    @DisplayName("Test Unrelated Files Are Not Checked Again")
+    public void testUnrelatedChange() throws IOException {
+        session.start();
+        write("C.java", "package p;\nclass C {\n    A a;\n}\n");
+        session.changed(Collections.singleton(c));
+        List<String> paths = new ArrayList<>(reported.keySet());
+        assertEquals(Collections.singletonList(c.toString()), paths);
+        assertEquals(0, violations(c.toString()));
+    }
+}
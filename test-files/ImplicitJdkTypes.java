@@ -0,0 +1,15 @@
+package edu.byu.yc.tests;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+
+public class ImplicitJdkTypes {
+
+    String name;
+    Thread.State state;
+    List<Integer> numbers;
+    Map.Entry<String, Object> entry;
+    ConcurrentMap<String, Object> concurrent;
+    java.io.File file;
+    Frobnicator frobnicator;
+}
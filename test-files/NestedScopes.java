@@ -0,0 +1,20 @@
+package edu.byu.yc.tests;
+
+import java.lang.String;
+
+public class Outer {
+
+    public class Inner {
+        String hello;
+    }
+
+    public class Inner2 {
+
+        public class Cheese {
+            Inner inner;
+            Inner2 enclosing;
+            Cheese self;
+            Missing missing;
+        }
+    }
+}
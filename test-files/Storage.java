@@ -0,0 +1,40 @@
+package edu.byu.yc.tests;
+
+import java.lang.Comparable;
+import java.lang.String;
+import java.util.List;
+import java.util.Map;
+
+public class Storage<E> {
+    private List<E> items;
+    private E[] array;
+    private Map<String, Entry<E>> byName;
+
+    public class Entry<V extends Comparable<V>> {
+        V value;
+        E owner;
+    }
+
+    public <K> K first(List<? extends K> keys) {
+        K key = null;
+        return key;
+    }
+
+    public Storage<E>.Entry<String> entry() {
+        Storage<E>.Missing missing = null;
+        return null;
+    }
+
+    public void local() {
+        class Node<T> {
+            T value;
+            Node<T> next;
+        }
+        Node<E> head = null;
+    }
+
+    public void other() {
+        Node<E> head = null;
+        K key = null;
+    }
+}
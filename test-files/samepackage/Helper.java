@@ -0,0 +1,15 @@
+package edu.byu.yc.tests.samepackage;
+
+public class Helper {
+
+    Sibling sibling;
+    Undeclared undeclared;
+
+    static class Inner {
+    }
+
+    void local() {
+        class Local {
+        }
+    }
+}
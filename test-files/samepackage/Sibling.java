@@ -0,0 +1,15 @@
+package edu.byu.yc.tests.samepackage;
+
+public class Sibling {
+
+    Helper helper;
+    Helper.Inner inner;
+
+    public Sibling(Helper helper) {
+        this.helper = helper;
+    }
+}
+
+class SameFile {
+    Sibling sibling;
+}